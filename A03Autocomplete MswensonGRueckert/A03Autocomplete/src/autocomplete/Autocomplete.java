@@ -1,6 +1,10 @@
 package autocomplete;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import edu.princeton.cs.algs4.Merge;
 import edu.princeton.cs.algs4.Quick;
@@ -10,11 +14,44 @@ import edu.princeton.cs.algs4.Quick;
  * Users will be given a list of matching terms as they type along with the
  * weights of the terms in weighted order.
  *
+ * The terms are sorted and searched by their SearchKey, so a prefix search
+ * compares plain chars and finds exactly the terms that start with the
+ * prefix ignoring case.
+ *
  * @author Michael Swenson, GarretRueckert
  *
  */
-public class Autocomplete {
+public class Autocomplete implements AutocompleteEngine {
+	// smallest number of prefixes worth a walk of their own
+	private static final int BATCH_CHUNK = 256;
+	// orders whole keys, for exact lookups; built once, not per lookup
+	private static final Comparator<String> WHOLE_KEY = SearchKey.byPrefixOrder(Integer.MAX_VALUE);
+
 	private final Term[] terms;
+	// search key of every term, in sorted order
+	private final String[] keys;
+	private final boolean stripAccents;
+	private final RangeMaxIndex heaviest;
+	private final BuildTimes buildTimes;
+	// null while metrics are off
+	private volatile QueryMetrics metrics;
+
+	/**
+	 * A term and its search key, sorted by the key.
+	 */
+	private static class Keyed implements Comparable<Keyed> {
+		private final String key;
+		private final Term term;
+
+		private Keyed(String key, Term term) {
+			this.key = key;
+			this.term = term;
+		}
+
+		public int compareTo(Keyed that) {
+			return key.compareTo(that.key);
+		}
+	}
 
 	/**
 	 * Initialize the data structure from the given array of terms.
@@ -24,12 +61,184 @@ public class Autocomplete {
 	 * 
 	 */
 	public Autocomplete(Term[] terms) {
+		this(terms, false);
+	}
+
+	/**
+	 * Initialize the data structure from the given array of terms, optionally
+	 * sorting with a parallel merge sort and building the weight index on all
+	 * cores instead of using Quick.sort on one thread.
+	 * 
+	 * @param terms
+	 *            list of terms to be sorted
+	 * @param parallel
+	 *            whether to build on the common fork-join pool
+	 */
+	public Autocomplete(Term[] terms, boolean parallel) {
+		this(terms, parallel, false);
+	}
+
+	/**
+	 * Initialize the data structure from the given array of terms. Each query
+	 * gets a search key once, with its case folded and, if asked for, its
+	 * accents stripped, and the terms are sorted and searched by those keys.
+	 * 
+	 * @param terms
+	 *            list of terms to be sorted
+	 * @param parallel
+	 *            whether to build on the common fork-join pool
+	 * @param stripAccents
+	 *            whether prefixes match regardless of accents
+	 */
+	public Autocomplete(final Term[] terms, boolean parallel, final boolean stripAccents) {
 		if (terms == null) {
 			throw new IllegalArgumentException();
 		}
 
-		this.terms = terms.clone();
-		Quick.sort(this.terms);
+		long start = System.nanoTime();
+		final Keyed[] keyed = new Keyed[terms.length];
+		IntStream indices = IntStream.range(0, terms.length);
+		(parallel ? indices.parallel() : indices).forEach(new IntConsumer() {
+			public void accept(int i) {
+				keyed[i] = new Keyed(SearchKey.of(terms[i].getQuery(), stripAccents), terms[i]);
+			}
+		});
+		long keysDone = System.nanoTime();
+
+		if (parallel) {
+			Arrays.parallelSort(keyed);
+		} else {
+			Quick.sort(keyed);
+		}
+		this.terms = new Term[keyed.length];
+		this.keys = new String[keyed.length];
+		for (int i = 0; i < keyed.length; i++) {
+			this.terms[i] = keyed[i].term;
+			this.keys[i] = keyed[i].key;
+		}
+		this.stripAccents = stripAccents;
+		long sorted = System.nanoTime();
+
+		this.heaviest = indexWeights(this.terms, parallel);
+		long indexed = System.nanoTime();
+
+		this.buildTimes = new BuildTimes(parallel, keysDone - start, sorted - keysDone, indexed - sorted);
+	}
+
+	private Autocomplete(Term[] sorted, String[] keys, boolean stripAccents, RangeMaxIndex heaviest,
+			BuildTimes buildTimes) {
+		this.terms = sorted;
+		this.keys = keys;
+		this.stripAccents = stripAccents;
+		this.heaviest = heaviest;
+		this.buildTimes = buildTimes;
+	}
+
+	/**
+	 * Build an Autocomplete over terms that are already sorted by their case
+	 * folded search keys, skipping the key computation and the sort. The
+	 * arrays are used as is and must not be changed afterwards.
+	 * 
+	 * @param sorted
+	 *            terms in key order
+	 * @param keys
+	 *            SearchKey.of(query, false) for every term
+	 * @return the autocomplete over the terms
+	 */
+	static Autocomplete ofSorted(Term[] sorted, String[] keys) {
+		long start = System.nanoTime();
+		RangeMaxIndex heaviest = indexWeights(sorted, false);
+		return new Autocomplete(sorted, keys, false, heaviest, new BuildTimes(false, 0, 0, System.nanoTime() - start));
+	}
+
+	// range maximum index over the weights of the sorted terms
+	private static RangeMaxIndex indexWeights(final Term[] sorted, boolean parallel) {
+		final double[] weights = new double[sorted.length];
+		IntStream indices = IntStream.range(0, weights.length);
+		(parallel ? indices.parallel() : indices).forEach(new IntConsumer() {
+			public void accept(int i) {
+				weights[i] = sorted[i].getWeight();
+			}
+		});
+		return new RangeMaxIndex(weights, parallel);
+	}
+
+	/**
+	 * Return the sorted terms. The array is shared, not copied.
+	 * 
+	 * @return the terms in search key order
+	 */
+	Term[] terms() {
+		return terms;
+	}
+
+	/**
+	 * Return the search keys of the sorted terms. The array is shared, not
+	 * copied.
+	 * 
+	 * @return the keys in sorted order
+	 */
+	String[] keys() {
+		return keys;
+	}
+
+	/**
+	 * Return the search key of a prefix or query for this index.
+	 * 
+	 * @param text
+	 *            prefix or query
+	 * @return its key
+	 */
+	String keyOf(String text) {
+		return SearchKey.of(text, stripAccents);
+	}
+
+	/**
+	 * Return the index of the term with exactly the given query, matching
+	 * case.
+	 * 
+	 * @param query
+	 *            query to look up
+	 * @return index in terms(), or -1 if there is none
+	 */
+	int indexOf(String query) {
+		int[] range = BinarySearchDeluxe.equalRange(keys, keyOf(query), WHOLE_KEY);
+		for (int i = range[0]; i != -1 && i <= range[1]; i++) {
+			if (terms[i].getQuery().equals(query)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Return how long the constructor spent in each phase of the build.
+	 * 
+	 * @return the build times
+	 */
+	public BuildTimes buildTimes() {
+		return buildTimes;
+	}
+
+	/**
+	 * Record the latency of every query in the given metrics from now on, or
+	 * stop recording if metrics is null. Batch queries and sessions are not
+	 * recorded.
+	 * 
+	 * @param metrics
+	 *            where to record, or null
+	 */
+	public void setMetrics(QueryMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Return the metrics queries are recorded in.
+	 * 
+	 * @return the metrics, or null if they are off
+	 */
+	public QueryMetrics metrics() {
+		return metrics;
 	}
 
 	/**
@@ -44,24 +253,256 @@ public class Autocomplete {
 		if (prefix == null) {
 			throw new NullPointerException();
 		}
-		Term placeHolder = new Term(prefix, 0);
-		int firstIndex = BinarySearchDeluxe.firstIndexOf(terms, placeHolder, Term.byPrefixOrder(prefix.length()));
-		int lastIndex = BinarySearchDeluxe.lastIndexOf(terms, placeHolder, Term.byPrefixOrder(prefix.length()));
+		QueryMetrics recorder = metrics;
+		if (recorder != null) {
+			return recordedAllMatches(prefix, recorder);
+		}
+		int[] range = range(prefix);
+		return sortedByWeight(range[0], range[1]);
+	}
 
-		Term[] matches;
+	// allMatches with each phase timed
+	private Term[] recordedAllMatches(String prefix, QueryMetrics recorder) {
+		long start = System.nanoTime();
+		int[] range = range(prefix);
+		long searched = System.nanoTime();
+		Term[] matches = range[0] == -1 ? new Term[0] : Arrays.copyOfRange(terms, range[0], range[1] + 1);
+		long copied = System.nanoTime();
+		Arrays.sort(matches, Term.byReverseWeightOrder());
+		long sorted = System.nanoTime();
+		recorder.recordAllMatches(searched - start, copied - searched, sorted - copied, matches.length);
+		return matches;
+	}
 
-		if (firstIndex == -1) {
+	/**
+	 * Return the terms in [first, last] of the sorted array, in descending
+	 * order of weight.
+	 * 
+	 * @param first
+	 *            first index, or -1 for none
+	 * @param last
+	 *            last index
+	 * @return the terms sorted by weight
+	 */
+	Term[] sortedByWeight(int first, int last) {
+		if (first == -1) {
 			return new Term[0];
 		}
+		Term[] matches = Arrays.copyOfRange(terms, first, last + 1);
+		Arrays.sort(matches, Term.byReverseWeightOrder());
+		return matches;
+	}
+
+	/**
+	 * Return the k heaviest terms that start with the given prefix, in
+	 * descending order of weight. The heaviest terms are pulled from a range
+	 * maximum index over the sorted terms, so the cost is O(k log n) however
+	 * many terms share the prefix.
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @param k
+	 *            maximum number of terms to return
+	 * @return array of at most k matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix, int k) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		QueryMetrics recorder = metrics;
+		if (recorder == null) {
+			int[] range = range(prefix);
+			return topK(range[0], range[1], k);
+		}
+		long start = System.nanoTime();
+		int[] range = range(prefix);
+		long searched = System.nanoTime();
+		Term[] matches = topK(range[0], range[1], k);
+		recorder.recordTopK(searched - start, System.nanoTime() - searched, size(range));
+		return matches;
+	}
 
-		matches = new Term[lastIndex - firstIndex + 1];
+	/**
+	 * Return the k heaviest terms in [first, last] of the sorted array, in
+	 * descending order of weight.
+	 * 
+	 * @param first
+	 *            first index, or -1 for none
+	 * @param last
+	 *            last index
+	 * @param k
+	 *            maximum number of terms to return
+	 * @return at most k terms sorted by weight
+	 */
+	Term[] topK(int first, int last, int k) {
+		if (first == -1 || k == 0) {
+			return new Term[0];
+		}
+		int[] top = heaviest.topK(first, last, k);
+		Term[] matches = new Term[top.length];
 		for (int i = 0; i < matches.length; i++) {
-			matches[i] = terms[firstIndex++];
+			matches[i] = terms[top[i]];
 		}
-		Arrays.sort(matches, Term.byReverseWeightOrder());
 		return matches;
 	}
 
+	/**
+	 * Return the k heaviest matches of every prefix in a batch, in the order
+	 * of the prefixes.
+	 * 
+	 * @param prefixes
+	 *            the prefixes to look up
+	 * @param k
+	 *            maximum number of terms per prefix
+	 * @return the matches of prefixes[i] at index i, sorted by weight
+	 */
+	public Term[][] allMatches(String[] prefixes, int k) {
+		return allMatches(prefixes, k, false);
+	}
+
+	/**
+	 * Return the k heaviest matches of every prefix in a batch, in the order
+	 * of the prefixes. The prefixes are sorted, and then their ranges are
+	 * found in one forward walk over the sorted terms: each search gallops
+	 * ahead from where the previous prefix started, so a batch costs about
+	 * log of the gap between neighbouring prefixes per prefix instead of log
+	 * n. A parallel batch is split into one walk per chunk of sorted
+	 * prefixes.
+	 * 
+	 * @param prefixes
+	 *            the prefixes to look up
+	 * @param k
+	 *            maximum number of terms per prefix
+	 * @param parallel
+	 *            whether to split the batch across the common fork-join pool
+	 * @return the matches of prefixes[i] at index i, sorted by weight
+	 */
+	public Term[][] allMatches(final String[] prefixes, final int k, boolean parallel) {
+		if (prefixes == null) {
+			throw new NullPointerException();
+		}
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		final String[] prefixKeys = new String[prefixes.length];
+		final Integer[] order = new Integer[prefixes.length];
+		for (int i = 0; i < order.length; i++) {
+			if (prefixes[i] == null) {
+				throw new NullPointerException();
+			}
+			prefixKeys[i] = keyOf(prefixes[i]);
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer i, Integer j) {
+				return prefixKeys[i].compareTo(prefixKeys[j]);
+			}
+		});
+
+		final Term[][] matches = new Term[prefixes.length][];
+		final int chunks = parallel
+				? Math.max(1, Math.min(order.length / BATCH_CHUNK, 4 * ForkJoinPool.getCommonPoolParallelism()))
+				: 1;
+		IntStream walks = IntStream.range(0, chunks);
+		(parallel ? walks.parallel() : walks).forEach(new IntConsumer() {
+			public void accept(int chunk) {
+				int from = 0;
+				int end = (int) ((long) order.length * (chunk + 1) / chunks);
+				for (int i = (int) ((long) order.length * chunk / chunks); i < end; i++) {
+					String key = prefixKeys[order[i]];
+					Comparator<String> comparator = SearchKey.byPrefixOrder(key.length());
+					int first = gallop(from, key, comparator, false);
+					int last = gallop(first, key, comparator, true) - 1;
+					matches[order[i]] = topK(first > last ? -1 : first, last, k);
+					from = first;
+				}
+			}
+		});
+		return matches;
+	}
+
+	// first index at or after from whose key is not before the prefix key
+	// (or, with upper, is after it), doubling the step until it is passed
+	// and then binary searching the last step
+	private int gallop(int from, String key, Comparator<String> comparator, boolean upper) {
+		int lo = from;
+		int step = 1;
+		int hi = from;
+		while (hi < keys.length && before(keys[hi], key, comparator, upper)) {
+			lo = hi + 1;
+			hi = from + step;
+			step *= 2;
+		}
+		hi = Math.min(hi, keys.length);
+		while (lo < hi) {
+			int mid = lo + (hi - lo) / 2;
+			if (before(keys[mid], key, comparator, upper)) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	private static boolean before(String termKey, String key, Comparator<String> comparator, boolean upper) {
+		int cmp = comparator.compare(termKey, key);
+		return upper ? cmp <= 0 : cmp < 0;
+	}
+
+	/**
+	 * Start a typing session that narrows each prefix inside the range of
+	 * the one before it.
+	 * 
+	 * @return a new session at the empty prefix
+	 */
+	public AutocompleteSession session() {
+		return new AutocompleteSession(this);
+	}
+
+	/**
+	 * Return the terms that start with the given prefix in descending order
+	 * of weight, one at a time. Nothing is copied or sorted up front, and
+	 * each term costs O(log n), so showing the first page of a large range
+	 * is as cheap as allMatches(prefix, k).
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @return the matches, heaviest first
+	 */
+	public Matches matches(String prefix) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		int[] range = range(prefix);
+		return Matches.start(terms, heaviest, range[0], range[1]);
+	}
+
+	/**
+	 * Carry on with the matches of prefix from a cursor taken with
+	 * Matches.cursor, for the next page of suggestions. The terms before the
+	 * cursor are not walked again.
+	 * 
+	 * @param prefix
+	 *            the prefix the cursor was taken for
+	 * @param cursor
+	 *            the cursor
+	 * @return the matches after the cursor, heaviest first
+	 * @throws IllegalArgumentException
+	 *             if the cursor is malformed or was taken for another prefix
+	 *             or another Autocomplete
+	 */
+	public Matches matches(String prefix, String cursor) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		int[] range = range(prefix);
+		return Matches.resume(terms, heaviest, range[0], range[1], cursor);
+	}
+
 	/**
 	 * Return the number of terms that start with the given prefix.
 	 * 
@@ -71,8 +512,23 @@ public class Autocomplete {
 	public int numberOfMatches(String prefix) {
 		if (prefix == null)
 			throw new NullPointerException();
-		return BinarySearchDeluxe.lastIndexOf(terms, new Term(prefix, 0), Term.byPrefixOrder(prefix.length()))
-				- BinarySearchDeluxe.firstIndexOf(terms, new Term(prefix, 0), Term.byPrefixOrder(prefix.length()));
+		QueryMetrics recorder = metrics;
+		long start = recorder == null ? 0 : System.nanoTime();
+		int count = size(range(prefix));
+		if (recorder != null) {
+			recorder.recordNumberOfMatches(System.nanoTime() - start, count);
+		}
+		return count;
+	}
+
+	private static int size(int[] range) {
+		return range[0] == -1 ? 0 : range[1] - range[0] + 1;
+	}
+
+	// first and last index of the terms starting with prefix, or {-1, -1}
+	int[] range(String prefix) {
+		String key = keyOf(prefix);
+		return BinarySearchDeluxe.equalRange(keys, key, SearchKey.byPrefixOrder(key.length()));
 	}
 
 	public static void main(String[] args) {
@@ -0,0 +1,163 @@
+package autocomplete;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * Class AutocompleteBenchmark times the query methods of Autocomplete
+ * against each other. It runs on the HailSatan test data and on a large
+ * synthetic corpus so that both short prefixes (huge match ranges) and long
+ * prefixes (tiny match ranges) are covered.
+ * 
+ * Usage: java autocomplete.AutocompleteBenchmark [syntheticTerms] [k]
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class AutocompleteBenchmark {
+	static final String TEST_DATA = "/autocomplete/TestingData/HailSatan.txt";
+
+	private static final long WARMUP_NANOS = 500_000_000L;
+	private static final long MEASURED_NANOS = 1_000_000_000L;
+
+	/**
+	 * Reads a term file with TermLoader.
+	 * 
+	 * @param filename
+	 *            file or classpath resource to read
+	 * @return the terms in file order
+	 */
+	static Term[] readTerms(String filename) {
+		try {
+			return TermLoader.load(filename);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Generates n random lower case terms of 3 to 12 letters with skewed
+	 * weights. The fixed seed keeps runs comparable.
+	 * 
+	 * @param n
+	 *            number of terms
+	 * @return the generated terms
+	 */
+	static Term[] syntheticTerms(int n) {
+		Random random = new Random(2420);
+		Term[] terms = new Term[n];
+		char[] buffer = new char[12];
+		for (int i = 0; i < n; i++) {
+			int length = 3 + random.nextInt(10);
+			for (int j = 0; j < length; j++) {
+				buffer[j] = (char) ('a' + random.nextInt(26));
+			}
+			double weight = Math.floor(1_000_000 / (1.0 + random.nextInt(100_000)));
+			terms[i] = new Term(new String(buffer, 0, length), weight);
+		}
+		return terms;
+	}
+
+	/**
+	 * A single query to be timed.
+	 */
+	interface Query {
+		int run(String prefix);
+	}
+
+	/**
+	 * Runs the query over every prefix repeatedly, first to warm up the JIT
+	 * and then for about a second of measurement, and returns the average
+	 * time of one query in microseconds.
+	 * 
+	 * @param prefixes
+	 *            prefixes to query
+	 * @param query
+	 *            query to time
+	 * @return average microseconds per query
+	 */
+	static double time(String[] prefixes, Query query) {
+		long sink = 0;
+		long start = System.nanoTime();
+		while (System.nanoTime() - start < WARMUP_NANOS) {
+			for (String prefix : prefixes) {
+				sink += query.run(prefix);
+			}
+		}
+		long queries = 0;
+		start = System.nanoTime();
+		long elapsed;
+		do {
+			for (String prefix : prefixes) {
+				sink += query.run(prefix);
+			}
+			queries += prefixes.length;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < MEASURED_NANOS);
+		if (sink == 42) {
+			System.out.print("");
+		}
+		return elapsed / 1000.0 / queries;
+	}
+
+	/**
+	 * Return the heap in use after a few garbage collections.
+	 * 
+	 * @return used heap in bytes
+	 */
+	static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	// retained heap of both index layouts, including the Term objects
+	// Autocomplete keeps alive
+	private static void footprint(int n) {
+		long base = usedHeap();
+		Autocomplete auto = new Autocomplete(syntheticTerms(n));
+		long objects = usedHeap() - base;
+		auto.numberOfMatches("");
+		auto = null;
+
+		base = usedHeap();
+		PackedAutocomplete packed = new PackedAutocomplete(syntheticTerms(n));
+		long arrays = usedHeap() - base;
+		System.out.printf("footprint                    Term[] %10.1f bytes/term   packed %10.1f bytes/term%n",
+				objects / (double) n, arrays / (double) packed.size());
+	}
+
+	private static void compare(String label, final Autocomplete auto, String[] prefixes, final int k) {
+		double full = time(prefixes, new Query() {
+			public int run(String prefix) {
+				return auto.allMatches(prefix).length;
+			}
+		});
+		double topK = time(prefixes, new Query() {
+			public int run(String prefix) {
+				return auto.allMatches(prefix, k).length;
+			}
+		});
+		System.out.printf("%-28s allMatches(p) %10.2f us   allMatches(p, %d) %10.2f us   %6.1fx%n", label, full, k,
+				topK, full / topK);
+	}
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+		int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		Autocomplete metal = new Autocomplete(readTerms(TEST_DATA));
+		compare("HailSatan short prefixes", metal, new String[] { "M", "T", "B", "S" }, k);
+		compare("HailSatan long prefixes", metal, new String[] { "Metallica - M", "Opeth - B", "Megadeth - R" }, k);
+
+		Autocomplete synthetic = new Autocomplete(syntheticTerms(n));
+		compare("synthetic short prefixes", synthetic, new String[] { "a", "m", "q", "z" }, k);
+		compare("synthetic long prefixes", synthetic, new String[] { "abc", "mno", "qrst", "zyx" }, k);
+		synthetic = null;
+
+		footprint(n);
+	}
+}
@@ -0,0 +1,44 @@
+package autocomplete;
+
+/**
+ * Interface AutocompleteEngine is the query side of Autocomplete. Every
+ * engine answers prefix queries the same way: matching is on the start of
+ * the query ignoring case, and results come back in descending order of
+ * weight.
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public interface AutocompleteEngine {
+
+	/**
+	 * Return all terms that start with the given prefix, in descending order
+	 * of weight.
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @return array of matching terms sorted by weight
+	 */
+	Term[] allMatches(String prefix);
+
+	/**
+	 * Return the k heaviest terms that start with the given prefix, in
+	 * descending order of weight.
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @param k
+	 *            maximum number of terms to return
+	 * @return array of at most k matching terms sorted by weight
+	 */
+	Term[] allMatches(String prefix, int k);
+
+	/**
+	 * Return the number of terms that start with the given prefix.
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @return number of terms with matching prefix
+	 */
+	int numberOfMatches(String prefix);
+}
@@ -79,8 +79,6 @@ import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.event.MouseInputAdapter;
 
-import edu.princeton.cs.algs4.In;
-
 public class AutocompleteGUI extends JFrame {
     // for serializable classes
     private static final long serialVersionUID = 1L;
@@ -94,8 +92,9 @@ public class AutocompleteGUI extends JFrame {
     // Display top k results
     private final int k;
 
-    // Indicates whether to display weights next to query matches
-    private boolean displayWeights = true;
+    // Indicates whether to display weights next to query matches; read by
+    // the suggestion thread when it formats the drop-down
+    private volatile boolean displayWeights = true;
 
     /**
      * Initializes the GUI, and the associated Autocomplete object
@@ -180,7 +179,14 @@ public class AutocompleteGUI extends JFrame {
         private static final long serialVersionUID = 1L;
         
         private final JTextField searchText;      // the search bar
-        private Autocomplete auto;                // the Autocomplete object 
+        private AutocompleteEngine auto;          // the Autocomplete object 
+        private AutocompleteSession session;      // narrows the previous match
+                                                  // range as the user types;
+                                                  // only used by the pipeline
+        private final SuggestionPipeline<String[]> pipeline; // looks up the
+                                                  // suggestions off the EDT
+        private volatile int listWidth;           // width of the search text,
+                                                  // for formatting off the EDT
         private String[] results = new String[k]; // an array of matches
         //// private JList<String> suggestions;   // a list of autocomplete matches (Java 7)
         private JList suggestions;                // a list of autocomplete matches (Java 6)
@@ -209,46 +215,41 @@ public class AutocompleteGUI extends JFrame {
         /**
          * Creates the Autocomplete object and the search bar and suggestion
          * drop-down portions of the GUI
-         * @param filename the file the Autocomplete object is constructed from
+         * @param filename the file the Autocomplete object is constructed from,
+         * either a term file or an index file written by IndexFile
          */
         public AutocompletePanel(String filename) {
             super();
 
-            // Read in the data
-            Term[] terms = null;
-            try {
-                In in = new In(filename);
-                String line0 = in.readLine();
-                if (line0 == null) {
-                    System.err.println("Could not read line 0 of " + filename);
-                    System.exit(1);
+            if (filename.endsWith(IndexFile.EXTENSION)) {
+                // Map the prebuilt index instead of parsing and sorting
+                try {
+                    auto = new MappedAutocomplete(filename);
                 }
-                int n = Integer.parseInt(line0);
-                terms = new Term[n];
-                for (int i = 0; i < n; i++) {
-                    String line = in.readLine();
-                    if (line == null) {
-                        System.err.println("Could not read line " + (i+1) + " of " + filename);
-                        System.exit(1);
-                    }
-                    int tab = line.indexOf('\t');
-                    if (tab == -1) {
-                        System.err.println("No tab character in line " + (i+1) + " of " + filename);
-                        System.exit(1);
-                    }
-                    long weight = Long.parseLong(line.substring(0, tab).trim());
-                    String query = line.substring(tab + 1);
-                    terms[i] = new Term(query, weight);
+                catch (IOException e) {
+                    System.err.println("Could not map index file " + filename);
+                    e.printStackTrace();
+                    System.exit(1);
                 }
             }
-            catch (Exception e) {
-                System.err.println("Could not read or parse input file " + filename);
-                e.printStackTrace();
-                System.exit(1);
+            else {
+                Autocomplete sorted = readAutocomplete(filename);
+                auto = sorted;
+                session = sorted.session();
             }
 
-            // Create the autocomplete object
-            auto = new Autocomplete(terms);
+            // look up and format off the event thread, show on it
+            pipeline = new SuggestionPipeline<String[]>(
+                    new SuggestionPipeline.Query<String[]>() {
+                        public String[] run(String text) {
+                            return findSuggestions(text);
+                        }
+                    },
+                    new SuggestionPipeline.Publisher<String[]>() {
+                        public void publish(String text, String[] found) {
+                            showSuggestions(found);
+                        }
+                    });
 
             GroupLayout layout = new GroupLayout(this);
             this.setLayout(layout);
@@ -526,6 +527,27 @@ public class AutocompleteGUI extends JFrame {
             );
         }
 
+        /**
+         * Reads a term file and creates the Autocomplete object from it
+         * @param filename the term file
+         * @return the Autocomplete object
+         */
+        private Autocomplete readAutocomplete(String filename) {
+            // Read in the data
+            Term[] terms = null;
+            try {
+                terms = TermLoader.load(filename);
+            }
+            catch (IOException e) {
+                System.err.println("Could not read or parse input file " + filename);
+                e.printStackTrace();
+                System.exit(1);
+            }
+
+            // Create the autocomplete object
+            return new Autocomplete(terms);
+        }
+
         /**
          * Re-populates the drop-down menu with the new suggestions, and 
          * resizes the containing panel vertically
@@ -556,78 +578,108 @@ public class AutocompleteGUI extends JFrame {
         }
 
         /**
-         * Makes a call to the implementation of Autocomplete to get
-         * suggestions for the currently entered text.
+         * Asks the suggestion pipeline for the suggestions for the currently
+         * entered text. The lookup runs on a background thread once the user
+         * pauses, and the drop-down is updated when it is done; an empty
+         * text clears the drop-down right away.
          * @param text string to search for
          */
         public void getSuggestions(String text) {
             
             // don't search for suggestions if there is no input
             if (text.equals("")) {
-                suggestions.setListData(new String[0]);
-                suggestions.clearSelection();
-                suggestions.setVisible(false);
-                scrollPane.setVisible(false);
+                pipeline.cancel();
+                showSuggestions(new String[0]);
             }
             else {
-                int textLen = text.length();
+                listWidth = searchText.getPreferredSize().width;
+                pipeline.submit(text);
+            }
+        }
 
-                // get all matching terms
-                Term[] allResults = auto.allMatches(text);
-                if (allResults == null) {
-                    throw new NullPointerException("allMatches() is null");
-                }
+        /**
+         * Makes a call to the implementation of Autocomplete to get
+         * suggestions for the given text and formats them for the drop-down.
+         * Runs on the pipeline thread, so it must not touch the components.
+         * @param text string to search for
+         * @return the formatted suggestions
+         */
+        private String[] findSuggestions(String text) {
+            int textLen = text.length();
+
+            // get the top k matching terms
+            Term[] allResults;
+            if (session != null) {
+                session.update(text);
+                allResults = session.allMatches(k);
+            }
+            else {
+                allResults = auto.allMatches(text, k);
+            }
+            if (allResults == null) {
+                throw new NullPointerException("allMatches() is null");
+            }
 
-                results = new String[Math.min(k, allResults.length)];
-                if (Math.min(k, allResults.length) > 0) {
-                    for (int i = 0; i < results.length; i++) {
+            String[] found = new String[Math.min(k, allResults.length)];
+            for (int i = 0; i < found.length; i++) {
 
-                        // A bit of a hack to get the Term's query string 
-                        // and weight from toString()
-                        String next = allResults[i].toString();
-                        if (allResults[i] == null) {
-                            throw new NullPointerException("allMatches() "
-                                    + "returned an array with a null entry");
-                        }
-                        int tab = next.indexOf('\t');
-                        if (tab < 0) {
-                            throw new RuntimeException("allMatches() returned"
-                                    + " an array with an entry without a tab:"
-                                    + " '" + next + "'");
-                        }
-                        String weight = next.substring(0, tab).trim();
-                        String query  = next.substring(tab);
-
-                        // truncate length if needed
-                        if (query.length() > suggListLen.length())
-                            query = query.substring(0, suggListLen.length());
-
-                        // create the table HTML 
-                        results[i] = "<html><table width=\"" 
-                                + searchText.getPreferredSize().width + "\">"
-                                + "<tr><td align=left>" 
-                                + query.substring(0, textLen + 1)
-                                + "<b>" + query.substring(textLen + 1) + "</b>";
-                        if (displayWeights) {
-                            results[i] += "<td width=\"10%\" align=right>"
-                                    + "<font size=-1><span id=\"weight\" "
-                                    + "style=\"float:right;color:gray\">" 
-                                    + weight + "</font>";
-                        }
-                        results[i] += "</table></html>";
-                    }
-                    suggestions.setListData(results);
-                    suggestions.setVisible(true);
-                    scrollPane.setVisible(true);
+                // A bit of a hack to get the Term's query string 
+                // and weight from toString()
+                String next = allResults[i].toString();
+                if (allResults[i] == null) {
+                    throw new NullPointerException("allMatches() "
+                            + "returned an array with a null entry");
                 }
-                else {
-                    // No suggestions
-                    suggestions.setListData(new String[0]);
-                    suggestions.clearSelection();
-                    suggestions.setVisible(false);
-                    scrollPane.setVisible(false);
+                int tab = next.indexOf('\t');
+                if (tab < 0) {
+                    throw new RuntimeException("allMatches() returned"
+                            + " an array with an entry without a tab:"
+                            + " '" + next + "'");
+                }
+                String weight = next.substring(0, tab).trim();
+                String query  = next.substring(tab);
+
+                // truncate length if needed
+                if (query.length() > suggListLen.length())
+                    query = query.substring(0, suggListLen.length());
+
+                // create the table HTML 
+                found[i] = "<html><table width=\"" 
+                        + listWidth + "\">"
+                        + "<tr><td align=left>" 
+                        + query.substring(0, textLen + 1)
+                        + "<b>" + query.substring(textLen + 1) + "</b>";
+                if (displayWeights) {
+                    found[i] += "<td width=\"10%\" align=right>"
+                            + "<font size=-1><span id=\"weight\" "
+                            + "style=\"float:right;color:gray\">" 
+                            + weight + "</font>";
                 }
+                found[i] += "</table></html>";
+            }
+            return found;
+        }
+
+        /**
+         * Puts the given suggestions in the drop-down, hiding it if there
+         * are none. Runs on the event thread.
+         * @param found the formatted suggestions
+         */
+        private void showSuggestions(String[] found) {
+            results = found;
+            if (found.length > 0) {
+                suggestions.setListData(found);
+                suggestions.setVisible(true);
+                scrollPane.setVisible(true);
+            }
+            else {
+                // No suggestions
+                suggestions.setListData(new String[0]);
+                suggestions.clearSelection();
+                suggestions.setVisible(false);
+                scrollPane.setVisible(false);
             }
+            updateListSize();
         }
 
         // bring the clicked suggestion up to the Search bar and search it
@@ -0,0 +1,132 @@
+package autocomplete;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Class AutocompleteLoadGenerator drives an AutocompleteServer with random
+ * one to three letter prefixes from several connections, each sending
+ * pipelined batches, and reports the query throughput and the percentiles
+ * of the batch round-trip time.
+ *
+ * Usage: java autocomplete.AutocompleteLoadGenerator [port] [connections]
+ * [batch] [seconds]
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class AutocompleteLoadGenerator {
+
+	/**
+	 * Round-trip times of one connection, in nanoseconds.
+	 */
+	private static class Latencies {
+		private long[] nanos = new long[1024];
+		private int size;
+
+		private void add(long value) {
+			if (size == nanos.length) {
+				nanos = Arrays.copyOf(nanos, 2 * size);
+			}
+			nanos[size++] = value;
+		}
+	}
+
+	// send batches over one connection until the deadline
+	private static Latencies run(String host, int port, int batch, long deadline, long seed) throws IOException {
+		Random random = new Random(seed);
+		Latencies latencies = new Latencies();
+		Socket socket = new Socket(host, port);
+		try {
+			socket.setTcpNoDelay(true);
+			BufferedReader in = new BufferedReader(
+					new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+			char[] prefix = new char[3];
+			while (System.nanoTime() < deadline) {
+				long start = System.nanoTime();
+				for (int i = 0; i < batch; i++) {
+					int length = 1 + random.nextInt(prefix.length);
+					for (int j = 0; j < length; j++) {
+						prefix[j] = (char) ('a' + random.nextInt(26));
+					}
+					out.write(prefix, 0, length);
+					out.write('\n');
+				}
+				out.flush();
+				for (int i = 0; i < batch; i++) {
+					String header = in.readLine();
+					if (header == null || header.startsWith("ERR")) {
+						throw new IOException("server answered " + header);
+					}
+					for (int m = Integer.parseInt(header); m > 0; m--) {
+						in.readLine();
+					}
+				}
+				latencies.add(System.nanoTime() - start);
+			}
+		} finally {
+			socket.close();
+		}
+		return latencies;
+	}
+
+	// the value below which the given fraction of the sorted values fall
+	private static double percentile(long[] sorted, int size, double fraction) {
+		int index = (int) Math.ceil(fraction * size) - 1;
+		return sorted[Math.max(0, Math.min(size - 1, index))] / 1e3;
+	}
+
+	public static void main(String[] args) throws InterruptedException, ExecutionException {
+		final String host = "localhost";
+		final int port = args.length > 0 ? Integer.parseInt(args[0]) : AutocompleteServer.DEFAULT_PORT;
+		int connections = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		final int batch = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+		long seconds = args.length > 3 ? Long.parseLong(args[3]) : 10;
+
+		final long start = System.nanoTime();
+		final long deadline = start + seconds * 1_000_000_000L;
+		ExecutorService executor = ThreadSupport.newThreadPerTaskExecutor();
+		List<Future<Latencies>> results = new ArrayList<Future<Latencies>>();
+		for (int c = 0; c < connections; c++) {
+			final long seed = c;
+			results.add(executor.submit(new Callable<Latencies>() {
+				public Latencies call() throws IOException {
+					return run(host, port, batch, deadline, seed);
+				}
+			}));
+		}
+
+		long[] all = new long[0];
+		int size = 0;
+		for (Future<Latencies> result : results) {
+			Latencies latencies = result.get();
+			all = Arrays.copyOf(all, size + latencies.size);
+			System.arraycopy(latencies.nanos, 0, all, size, latencies.size);
+			size += latencies.size;
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		executor.shutdown();
+		Arrays.sort(all, 0, size);
+
+		System.out.printf("%d connections, batches of %d, %.1f s%n", connections, batch, elapsed);
+		System.out.printf("  throughput  %12.0f queries/s%n", (double) size * batch / elapsed);
+		System.out.printf("  batch round trip  p50 %8.1f us  p90 %8.1f us  p99 %8.1f us  p99.9 %8.1f us  max %8.1f us%n",
+				percentile(all, size, 0.5), percentile(all, size, 0.9), percentile(all, size, 0.99),
+				percentile(all, size, 0.999), percentile(all, size, 1.0));
+	}
+}
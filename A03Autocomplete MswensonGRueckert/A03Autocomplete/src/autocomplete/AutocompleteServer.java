@@ -0,0 +1,283 @@
+package autocomplete;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class AutocompleteServer answers prefix queries over a line protocol on a
+ * local port. Every connection is handled on a thread of its own, a virtual
+ * thread when the JVM has them.
+ *
+ * The protocol is UTF-8 text, one request per line:
+ *
+ * <pre>
+ * prefix            the top k matches, k being the server default
+ * k TAB prefix      the top k matches
+ * </pre>
+ *
+ * and one response per request, in request order: a line with the number of
+ * matches m, followed by m lines in Term.toString form (weight TAB query),
+ * always with a '.' decimal point whatever the server's locale, or a single
+ * line "ERR message", also sent when the engine fails on a request or the
+ * request is longer than MAX_REQUEST_CHARS. Clients may pipeline: send a whole batch
+ * of requests before reading any response. Responses are buffered and only
+ * flushed when no more requests are waiting to be read.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class AutocompleteServer implements Closeable {
+	/**
+	 * Port the server listens on when none is given.
+	 */
+	public static final int DEFAULT_PORT = 4242;
+
+	/**
+	 * Longest request line answered, in chars. The rest of a longer line is
+	 * read and thrown away, so a client cannot make the server buffer it.
+	 */
+	public static final int MAX_REQUEST_CHARS = 8192;
+
+	private final AutocompleteEngine engine;
+	private final int defaultK;
+	private final ServerSocket serverSocket;
+	private final Set<Socket> connections = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+	private volatile boolean closed;
+
+	/**
+	 * Bind a server to the given port on the loopback address. Call start()
+	 * to begin accepting connections.
+	 *
+	 * @param engine
+	 *            engine answering the queries
+	 * @param port
+	 *            port to listen on, 0 for any free port
+	 * @param defaultK
+	 *            number of matches for requests that do not give k
+	 * @throws IOException
+	 *             if the port cannot be bound
+	 */
+	public AutocompleteServer(AutocompleteEngine engine, int port, int defaultK) throws IOException {
+		if (engine == null) {
+			throw new NullPointerException();
+		}
+		if (defaultK < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.engine = engine;
+		this.defaultK = defaultK;
+		this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+	}
+
+	/**
+	 * Return the port the server is bound to.
+	 *
+	 * @return the local port
+	 */
+	public int port() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Start accepting connections on a background thread.
+	 *
+	 * @return the accepting thread
+	 */
+	public Thread start() {
+		return ThreadSupport.start(new Runnable() {
+			public void run() {
+				acceptLoop();
+			}
+		});
+	}
+
+	/**
+	 * Stop accepting connections and close the open ones.
+	 */
+	public void close() throws IOException {
+		closed = true;
+		serverSocket.close();
+		for (Socket socket : connections) {
+			socket.close();
+		}
+	}
+
+	private void acceptLoop() {
+		while (!closed) {
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				if (!closed) {
+					System.err.println("accept failed: " + e.getMessage());
+				}
+				return;
+			}
+			connections.add(socket);
+			ThreadSupport.start(new Runnable() {
+				public void run() {
+					try {
+						serve(socket);
+					} catch (SocketException e) {
+						// the client went away or the server was closed
+					} catch (IOException e) {
+						System.err.println("connection failed: " + e.getMessage());
+					} finally {
+						connections.remove(socket);
+						try {
+							socket.close();
+						} catch (IOException e) {
+							// nothing left to clean up
+						}
+					}
+				}
+			});
+		}
+	}
+
+	// answer requests until the client closes its side
+	private void serve(Socket socket) throws IOException {
+		socket.setTcpNoDelay(true);
+		BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+		Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+		StringBuilder line = new StringBuilder();
+		int length;
+		while ((length = readRequest(in, line)) >= 0) {
+			if (length > MAX_REQUEST_CHARS) {
+				out.write("ERR request is too long\n");
+			} else {
+				answer(line.toString(), out);
+			}
+			// keep answers to a pipelined batch in one write
+			if (!in.ready()) {
+				out.flush();
+			}
+		}
+		out.flush();
+	}
+
+	/*
+	 * Read one request line into line, without its terminator, and return
+	 * its length in chars: -1 at the end of the stream, and more than
+	 * MAX_REQUEST_CHARS, with only that many kept, if the line is longer.
+	 */
+	private static int readRequest(BufferedReader in, StringBuilder line) throws IOException {
+		line.setLength(0);
+		int length = 0;
+		int c;
+		while ((c = in.read()) != -1 && c != '\n') {
+			if (length < MAX_REQUEST_CHARS) {
+				line.append((char) c);
+			}
+			length = Math.min(length + 1, MAX_REQUEST_CHARS + 1);
+		}
+		if (c == -1 && length == 0) {
+			return -1;
+		}
+		if (length <= MAX_REQUEST_CHARS && length > 0 && line.charAt(length - 1) == '\r') {
+			line.setLength(--length);
+		}
+		return length;
+	}
+
+	/**
+	 * Write the response to one request line.
+	 *
+	 * @param request
+	 *            the request, without its line terminator
+	 * @param out
+	 *            where the response goes
+	 * @throws IOException
+	 *             if the response cannot be written
+	 */
+	void answer(String request, Writer out) throws IOException {
+		int k = defaultK;
+		String prefix = request;
+		int tab = request.indexOf('\t');
+		if (tab >= 0) {
+			try {
+				k = Integer.parseInt(request.substring(0, tab));
+			} catch (NumberFormatException e) {
+				out.write("ERR k is not a number\n");
+				return;
+			}
+			if (k < 0) {
+				out.write("ERR k is negative\n");
+				return;
+			}
+			prefix = request.substring(tab + 1);
+		}
+		Term[] matches;
+		try {
+			matches = engine.allMatches(prefix, k);
+		} catch (RuntimeException e) {
+			out.write("ERR " + describe(e) + "\n");
+			return;
+		} catch (OutOfMemoryError e) {
+			// one request asked for too much; the others can still be served
+			out.write("ERR " + describe(e) + "\n");
+			return;
+		}
+		out.write(Integer.toString(matches.length));
+		out.write('\n');
+		for (Term term : matches) {
+			// the wire format must not follow the default locale
+			out.write(String.format(Locale.ROOT, "%.1f\t%s", term.getWeight(), term.getQuery()));
+			out.write('\n');
+		}
+	}
+
+	// a failure as one line of the protocol
+	private static String describe(Throwable e) {
+		String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+		return message.replace('\r', ' ').replace('\n', ' ');
+	}
+
+	/**
+	 * Serves a term file or index file until the process is killed.
+	 *
+	 * Usage: java autocomplete.AutocompleteServer terms.txt|terms.idx [port]
+	 * [k]
+	 *
+	 * @param args
+	 *            the file to serve, the port and the default k
+	 * @throws IOException
+	 *             if the file cannot be read or the port cannot be bound
+	 * @throws InterruptedException
+	 *             if interrupted while serving
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 1 || args.length > 3) {
+			System.err.println("Usage: java autocomplete.AutocompleteServer terms.txt|terms" + IndexFile.EXTENSION
+					+ " [port] [k]");
+			System.exit(2);
+		}
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+		int k = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+		AutocompleteEngine engine;
+		if (args[0].endsWith(IndexFile.EXTENSION)) {
+			engine = new MappedAutocomplete(args[0]);
+		} else {
+			engine = new Autocomplete(TermLoader.load(args[0]), true);
+		}
+		AutocompleteServer server = new AutocompleteServer(engine, port, k);
+		System.out.println("Serving " + args[0] + " on localhost:" + server.port() + " with "
+				+ (ThreadSupport.hasVirtualThreads() ? "virtual" : "platform") + " threads");
+		server.start().join();
+	}
+}
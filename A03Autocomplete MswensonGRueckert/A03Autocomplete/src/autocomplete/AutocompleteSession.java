@@ -0,0 +1,129 @@
+package autocomplete;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class AutocompleteSession follows one text field as the user types. It
+ * keeps a stack with the range of the sorted terms matching every prefix of
+ * the current text, so appending a character only searches inside the range
+ * of the previous prefix, and backspace pops back to a range that was
+ * already found. A session is not thread safe; use one per text field.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class AutocompleteSession {
+	private final Autocomplete auto;
+	private final String[] keys;
+	// ranges[i] holds {first, last} for the first i characters of prefix
+	private final List<int[]> ranges = new ArrayList<int[]>();
+	private final StringBuilder prefix = new StringBuilder();
+
+	AutocompleteSession(Autocomplete auto) {
+		this.auto = auto;
+		this.keys = auto.keys();
+		ranges.add(keys.length == 0 ? new int[] { -1, -1 } : new int[] { 0, keys.length - 1 });
+	}
+
+	/**
+	 * Return the prefix the session is at.
+	 *
+	 * @return the current prefix
+	 */
+	public String prefix() {
+		return prefix.toString();
+	}
+
+	/**
+	 * Move the session to the given text. The longest prefix the text shares
+	 * with the current prefix is kept, and only the rest is searched.
+	 *
+	 * @param text
+	 *            the text now in the field
+	 */
+	public void update(String text) {
+		if (text == null) {
+			throw new NullPointerException();
+		}
+		int common = 0;
+		int max = Math.min(text.length(), prefix.length());
+		while (common < max && text.charAt(common) == prefix.charAt(common)) {
+			common++;
+		}
+		while (prefix.length() > common) {
+			backspace();
+		}
+		for (int i = common; i < text.length(); i++) {
+			append(text.charAt(i));
+		}
+	}
+
+	/**
+	 * Append a character to the prefix, searching only the range of the
+	 * current prefix.
+	 *
+	 * @param c
+	 *            the character typed
+	 */
+	public void append(char c) {
+		int[] range = ranges.get(ranges.size() - 1);
+		prefix.append(c);
+		if (range[0] != -1) {
+			String key = auto.keyOf(prefix.toString());
+			range = BinarySearchDeluxe.equalRange(keys, range[0], range[1], key, SearchKey.byPrefixOrder(key.length()));
+		}
+		ranges.add(range);
+	}
+
+	/**
+	 * Remove the last character of the prefix and go back to its range.
+	 *
+	 * @return false if the prefix was already empty
+	 */
+	public boolean backspace() {
+		if (prefix.length() == 0) {
+			return false;
+		}
+		prefix.setLength(prefix.length() - 1);
+		ranges.remove(ranges.size() - 1);
+		return true;
+	}
+
+	/**
+	 * Return all terms that start with the current prefix, in descending
+	 * order of weight.
+	 *
+	 * @return array of matching terms sorted by weight
+	 */
+	public Term[] allMatches() {
+		int[] range = ranges.get(ranges.size() - 1);
+		return auto.sortedByWeight(range[0], range[1]);
+	}
+
+	/**
+	 * Return the k heaviest terms that start with the current prefix, in
+	 * descending order of weight.
+	 *
+	 * @param k
+	 *            maximum number of terms to return
+	 * @return array of at most k matching terms sorted by weight
+	 */
+	public Term[] allMatches(int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		int[] range = ranges.get(ranges.size() - 1);
+		return auto.topK(range[0], range[1], k);
+	}
+
+	/**
+	 * Return the number of terms that start with the current prefix.
+	 *
+	 * @return number of terms with matching prefix
+	 */
+	public int numberOfMatches() {
+		int[] range = ranges.get(ranges.size() - 1);
+		return range[0] == -1 ? 0 : range[1] - range[0] + 1;
+	}
+}
@@ -0,0 +1,70 @@
+package autocomplete;
+
+/**
+ * Class BatchBenchmark precomputes the top k suggestions for every one to
+ * three letter prefix, once with a separate allMatches call per prefix and
+ * once with the batch allMatches, sequential and parallel.
+ * 
+ * Usage: java autocomplete.BatchBenchmark [syntheticTerms] [k]
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class BatchBenchmark {
+	private static final int ROUNDS = 5;
+
+	/**
+	 * Return every lower case prefix of 1 to maxLength letters, in sorted
+	 * order.
+	 * 
+	 * @param maxLength
+	 *            longest prefix
+	 * @return the prefixes
+	 */
+	static String[] shortPrefixes(int maxLength) {
+		int count = 0;
+		for (int length = 1, power = 26; length <= maxLength; length++, power *= 26) {
+			count += power;
+		}
+		String[] prefixes = new String[count];
+		int i = 0;
+		for (int length = 1; length <= maxLength; length++) {
+			char[] prefix = new char[length];
+			for (int code = 0; code < Math.pow(26, length); code++) {
+				for (int j = length - 1, rest = code; j >= 0; j--, rest /= 26) {
+					prefix[j] = (char) ('a' + rest % 26);
+				}
+				prefixes[i++] = new String(prefix);
+			}
+		}
+		return prefixes;
+	}
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+		int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		Autocomplete auto = new Autocomplete(AutocompleteBenchmark.syntheticTerms(n));
+		String[] prefixes = shortPrefixes(3);
+
+		double loop = Double.MAX_VALUE;
+		double batch = Double.MAX_VALUE;
+		double parallel = Double.MAX_VALUE;
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for (String prefix : prefixes) {
+				auto.allMatches(prefix, k);
+			}
+			loop = Math.min(loop, (System.nanoTime() - start) / 1e6);
+			start = System.nanoTime();
+			auto.allMatches(prefixes, k);
+			batch = Math.min(batch, (System.nanoTime() - start) / 1e6);
+			start = System.nanoTime();
+			auto.allMatches(prefixes, k, true);
+			parallel = Math.min(parallel, (System.nanoTime() - start) / 1e6);
+		}
+		System.out.printf("%d terms, %d prefixes, k = %d, best of %d%n", n, prefixes.length, k, ROUNDS);
+		System.out.printf("  one call per prefix %8.1f ms%n", loop);
+		System.out.printf("  batch               %8.1f ms%n", batch);
+		System.out.printf("  batch, parallel     %8.1f ms%n", parallel);
+	}
+}
@@ -12,6 +12,21 @@ import java.util.Comparator;
  */
 public class BinarySearchDeluxe {
 
+	/**
+	 * Compares a search key that the caller holds with the element at an index,
+	 * for searching data that is not an array of keys: a column of a struct of
+	 * arrays, a memory-mapped buffer, or a char arena. Implementations read the
+	 * element in place, so a probe allocates nothing.
+	 */
+	public interface IndexComparator {
+		/**
+		 * @param i index of the element
+		 * @return negative, zero or positive as the search key is less than,
+		 *         equal to or greater than element i
+		 */
+		int compareTo(int i);
+	}
+
 	/**
      * Return the index of the first key in a[] that equals the search key, or -1 if no such key.
      * @param a array being searched
@@ -29,11 +44,12 @@ public class BinarySearchDeluxe {
         while (lo <= hi) {
             // Key is in a[lo..hi] or not present.
             int mid = lo + (hi - lo) / 2;
-            if (comparator.compare(key, a[mid]) == 0){
+            int cmp = comparator.compare(key, a[mid]);
+            if (cmp == 0){
             	result = mid;
             	hi = mid -1;
             }
-            else if (comparator.compare(key, a[mid]) < 0) 
+            else if (cmp < 0) 
             	hi = mid - 1;
             else  
             	lo = mid + 1;
@@ -58,15 +74,316 @@ public class BinarySearchDeluxe {
             while (lo <= hi) {
                 // Key is in a[lo..hi] or not present.
                 int mid = lo + (hi - lo) / 2;
-                if (comparator.compare(key, a[mid]) == 0){
+                int cmp = comparator.compare(key, a[mid]);
+                if (cmp == 0){
                 	result = mid;
                 	lo = mid + 1;
                 }
-                else if (comparator.compare(key, a[mid]) < 0) 
+                else if (cmp < 0) 
                 	hi = mid - 1;
                 else  
                 	lo = mid + 1;
             }
             return result; 
     }
+
+	/**
+     * Return the first and last index of the keys in a[] that equal the search key,
+     * or {-1, -1} if no such key. Both bounds come from one shared descent: once a
+     * match is found the window is split into a lower-bound search to its left and
+     * an upper-bound search to its right. Every probe calls the comparator once.
+     * @param a array being searched
+     * @param key Key to be found
+     * @param comparator comparator used for searches
+     * @return {first, last} index of key in a, or {-1, -1} if not present
+     */
+	public static <Key> int[] equalRange(Key[] a, Key key, Comparator<Key> comparator){
+    	if(a == null){
+    		throw new NullPointerException();
+    	}
+        return equalRange(a, 0, a.length - 1, key, comparator);
+    }
+
+	/**
+     * Return the first and last index of the keys in a[lo..hi] that equal the search key,
+     * or {-1, -1} if no such key. Only the window is searched, so narrowing a range that
+     * is already known to contain every match costs log of the window, not of the array.
+     * @param a array being searched
+     * @param lo first index of the window
+     * @param hi last index of the window, lo - 1 for an empty window
+     * @param key Key to be found
+     * @param comparator comparator used for searches
+     * @return {first, last} index of key in a[lo..hi], or {-1, -1} if not present
+     */
+	public static <Key> int[] equalRange(Key[] a, int lo, int hi, Key key, Comparator<Key> comparator){
+    	if(a == null || key == null || comparator == null){
+    		throw new NullPointerException();
+    	}
+    	if(lo < 0 || hi >= a.length || hi < lo - 1){
+    		throw new IndexOutOfBoundsException("window [" + lo + ", " + hi + "] of " + a.length);
+    	}
+        while (lo <= hi) {
+            // Key is in a[lo..hi] or not present.
+            int mid = lo + (hi - lo) / 2;
+            int cmp = comparator.compare(key, a[mid]);
+            if (cmp < 0)
+            	hi = mid - 1;
+            else if (cmp > 0)
+            	lo = mid + 1;
+            else
+            	return new int[] { lowerBound(a, lo, mid, key, comparator),
+            			upperBound(a, mid, hi, key, comparator) };
+        }
+        return new int[] { -1, -1 };
+    }
+
+	// first index in a[lo..match] equal to key, knowing a[match] equals key
+	// and nothing in the window is greater than key
+	private static <Key> int lowerBound(Key[] a, int lo, int match, Key key, Comparator<Key> comparator){
+        int hi = match - 1;
+        while (lo <= hi) {
+            int mid = lo + (hi - lo) / 2;
+            if (comparator.compare(key, a[mid]) > 0)
+            	lo = mid + 1;
+            else {
+            	match = mid;
+            	hi = mid - 1;
+            }
+        }
+        return match;
+    }
+
+	// last index in a[match..hi] equal to key, knowing a[match] equals key
+	// and nothing in the window is less than key
+	private static <Key> int upperBound(Key[] a, int match, int hi, Key key, Comparator<Key> comparator){
+        int lo = match + 1;
+        while (lo <= hi) {
+            int mid = lo + (hi - lo) / 2;
+            if (comparator.compare(key, a[mid]) < 0)
+            	hi = mid - 1;
+            else {
+            	match = mid;
+            	lo = mid + 1;
+            }
+        }
+        return match;
+    }
+
+	/**
+     * Return the index of the first element of a[] that equals key, or -1 if none.
+     * @param a sorted array being searched
+     * @param key value to be found
+     * @return -1 if not present, first index of key if present
+     */
+	public static int firstIndexOf(int[] a, int key){
+        int lo = 0;
+        int hi = a.length - 1;
+        int result = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key)
+            	lo = mid + 1;
+            else {
+            	if (a[mid] == key)
+            		result = mid;
+            	hi = mid - 1;
+            }
+        }
+        return result;
+    }
+
+	/**
+     * Return the index of the last element of a[] that equals key, or -1 if none.
+     * @param a sorted array being searched
+     * @param key value to be found
+     * @return -1 if not present, last index of key if present
+     */
+	public static int lastIndexOf(int[] a, int key){
+        int lo = 0;
+        int hi = a.length - 1;
+        int result = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] > key)
+            	hi = mid - 1;
+            else {
+            	if (a[mid] == key)
+            		result = mid;
+            	lo = mid + 1;
+            }
+        }
+        return result;
+    }
+
+	/**
+     * Return the index of the first element of a[] that equals key, or -1 if none.
+     * @param a sorted array being searched
+     * @param key value to be found
+     * @return -1 if not present, first index of key if present
+     */
+	public static int firstIndexOf(long[] a, long key){
+        int lo = 0;
+        int hi = a.length - 1;
+        int result = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key)
+            	lo = mid + 1;
+            else {
+            	if (a[mid] == key)
+            		result = mid;
+            	hi = mid - 1;
+            }
+        }
+        return result;
+    }
+
+	/**
+     * Return the index of the last element of a[] that equals key, or -1 if none.
+     * @param a sorted array being searched
+     * @param key value to be found
+     * @return -1 if not present, last index of key if present
+     */
+	public static int lastIndexOf(long[] a, long key){
+        int lo = 0;
+        int hi = a.length - 1;
+        int result = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] > key)
+            	hi = mid - 1;
+            else {
+            	if (a[mid] == key)
+            		result = mid;
+            	lo = mid + 1;
+            }
+        }
+        return result;
+    }
+
+	/**
+     * Return the index of the first element of a[] that equals key, or -1 if none.
+     * Values are compared with Double.compare, the order Arrays.sort(double[]) uses,
+     * so -0.0 sorts before 0.0 and NaN can be found.
+     * @param a sorted array being searched
+     * @param key value to be found
+     * @return -1 if not present, first index of key if present
+     */
+	public static int firstIndexOf(double[] a, double key){
+        int lo = 0;
+        int hi = a.length - 1;
+        int result = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = Double.compare(key, a[mid]);
+            if (cmp > 0)
+            	lo = mid + 1;
+            else {
+            	if (cmp == 0)
+            		result = mid;
+            	hi = mid - 1;
+            }
+        }
+        return result;
+    }
+
+	/**
+     * Return the index of the last element of a[] that equals key, or -1 if none.
+     * Values are compared with Double.compare, the order Arrays.sort(double[]) uses.
+     * @param a sorted array being searched
+     * @param key value to be found
+     * @return -1 if not present, last index of key if present
+     */
+	public static int lastIndexOf(double[] a, double key){
+        int lo = 0;
+        int hi = a.length - 1;
+        int result = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = Double.compare(key, a[mid]);
+            if (cmp < 0)
+            	hi = mid - 1;
+            else {
+            	if (cmp == 0)
+            		result = mid;
+            	lo = mid + 1;
+            }
+        }
+        return result;
+    }
+
+	/**
+     * Return the first index in [lo, hi] whose element equals the search key, or -1
+     * if none. The elements must be sorted in the key's order.
+     * @param lo first index of the window
+     * @param hi last index of the window, lo - 1 for an empty window
+     * @param key compares the search key with the element at an index
+     * @return -1 if not present, first index of key in the window if present
+     */
+	public static int firstIndexOf(int lo, int hi, IndexComparator key){
+    	checkWindow(lo, hi, key);
+        int result = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = key.compareTo(mid);
+            if (cmp > 0)
+            	lo = mid + 1;
+            else {
+            	if (cmp == 0)
+            		result = mid;
+            	hi = mid - 1;
+            }
+        }
+        return result;
+    }
+
+	/**
+     * Return the last index in [lo, hi] whose element equals the search key, or -1
+     * if none. The elements must be sorted in the key's order.
+     * @param lo first index of the window
+     * @param hi last index of the window, lo - 1 for an empty window
+     * @param key compares the search key with the element at an index
+     * @return -1 if not present, last index of key in the window if present
+     */
+	public static int lastIndexOf(int lo, int hi, IndexComparator key){
+    	checkWindow(lo, hi, key);
+        int result = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = key.compareTo(mid);
+            if (cmp < 0)
+            	hi = mid - 1;
+            else {
+            	if (cmp == 0)
+            		result = mid;
+            	lo = mid + 1;
+            }
+        }
+        return result;
+    }
+
+	/**
+     * Return the first and last index in [lo, hi] whose element equals the search
+     * key, or {-1, -1} if none. The last index is searched for only to the right of
+     * the first.
+     * @param lo first index of the window
+     * @param hi last index of the window, lo - 1 for an empty window
+     * @param key compares the search key with the element at an index
+     * @return {first, last} index of key in the window, or {-1, -1} if not present
+     */
+	public static int[] equalRange(int lo, int hi, IndexComparator key){
+        int first = firstIndexOf(lo, hi, key);
+        if (first == -1)
+        	return new int[] { -1, -1 };
+        return new int[] { first, lastIndexOf(first, hi, key) };
+    }
+
+	private static void checkWindow(int lo, int hi, IndexComparator key){
+    	if(key == null){
+    		throw new NullPointerException();
+    	}
+    	if(lo < 0 || hi < lo - 1){
+    		throw new IndexOutOfBoundsException("window [" + lo + ", " + hi + "]");
+    	}
+    }
 }
@@ -0,0 +1,251 @@
+package autocomplete;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Class BlockMaxIndex answers the same argMax and topK questions as
+ * RangeMaxIndex in a fraction of the space, for indexes where memory
+ * matters more than a few nanoseconds a query.
+ *
+ * Each weight is kept as its rank in a table of the distinct values, which
+ * orders exactly like the weights themselves: a 16-bit rank when there are
+ * at most 65536 distinct weights, a rank packed into just enough bits when
+ * those and the table take less room than the weights, as with whole-number
+ * counts, and otherwise the weights are kept as they are. The tree only
+ * covers blocks of 16 weights, and the parts of a range that cover a block
+ * partly are scanned. That costs 2.5 to 4.5 bytes per weight plus the table,
+ * against RangeMaxIndex's 16. Ties go to the lower index.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class BlockMaxIndex {
+	private static final int BLOCK = 16;
+	private static final int MAX_SHORT_RANKS = 1 << 16;
+
+	private final int n;
+	// ranks into values, short or packed rankBits to a rank, or else the
+	// weights themselves
+	private final char[] shortRanks;
+	private final long[] ranks;
+	private final int rankBits;
+	private final double[] values;
+	private final double[] weights;
+	private final int blocks;
+	// tree[blocks + b] = argMax of block b, tree[i] = heavier of tree[2i], tree[2i + 1]
+	private final int[] tree;
+
+	/**
+	 * Builds the index over the given weights. The array is not kept.
+	 *
+	 * @param weights
+	 *            weights to index
+	 */
+	public BlockMaxIndex(double[] weights) {
+		if (weights == null) {
+			throw new NullPointerException();
+		}
+		this.n = weights.length;
+		double[] distinct = weights.clone();
+		Arrays.sort(distinct);
+		int count = 0;
+		for (int i = 0; i < distinct.length; i++) {
+			if (count == 0 || Double.compare(distinct[count - 1], distinct[i]) != 0) {
+				distinct[count++] = distinct[i];
+			}
+		}
+		if (count <= MAX_SHORT_RANKS) {
+			this.values = Arrays.copyOf(distinct, count);
+			this.shortRanks = new char[n];
+			for (int i = 0; i < n; i++) {
+				shortRanks[i] = (char) Arrays.binarySearch(values, weights[i]);
+			}
+			this.ranks = null;
+			this.rankBits = 0;
+			this.weights = null;
+		} else if ((long) bitsFor(count) * n + Double.SIZE * (long) count < Double.SIZE * (long) n) {
+			this.values = Arrays.copyOf(distinct, count);
+			this.shortRanks = null;
+			this.rankBits = bitsFor(count);
+			this.ranks = new long[(int) (((long) n * rankBits + Long.SIZE - 1) / Long.SIZE)];
+			for (int i = 0; i < n; i++) {
+				long rank = Arrays.binarySearch(values, weights[i]);
+				long at = (long) i * rankBits;
+				int word = (int) (at / Long.SIZE);
+				int shift = (int) (at % Long.SIZE);
+				ranks[word] |= rank << shift;
+				if (shift + rankBits > Long.SIZE) {
+					ranks[word + 1] = rank >>> (Long.SIZE - shift);
+				}
+			}
+			this.weights = null;
+		} else {
+			this.values = null;
+			this.shortRanks = null;
+			this.ranks = null;
+			this.rankBits = 0;
+			this.weights = weights.clone();
+		}
+
+		this.blocks = (n + BLOCK - 1) / BLOCK;
+		this.tree = new int[2 * blocks];
+		for (int b = 0; b < blocks; b++) {
+			tree[blocks + b] = scan(b * BLOCK, Math.min(n, (b + 1) * BLOCK) - 1);
+		}
+		for (int i = blocks - 1; i > 0; i--) {
+			tree[i] = heavier(tree[2 * i], tree[2 * i + 1]);
+		}
+	}
+
+	/**
+	 * Return the weight at index i.
+	 *
+	 * @param i
+	 *            index of the weight
+	 * @return the weight
+	 */
+	public double weight(int i) {
+		if (shortRanks != null) {
+			return values[shortRanks[i]];
+		}
+		return ranks != null ? values[rank(i)] : weights[i];
+	}
+
+	/**
+	 * Return the index of the heaviest weight in weights[lo..hi].
+	 *
+	 * @param lo
+	 *            first index of the range
+	 * @param hi
+	 *            last index of the range
+	 * @return index of the maximum weight in the range
+	 */
+	public int argMax(int lo, int hi) {
+		if (lo < 0 || hi >= n || lo > hi) {
+			throw new IndexOutOfBoundsException();
+		}
+		int firstBlock = lo / BLOCK;
+		int lastBlock = hi / BLOCK;
+		if (lastBlock - firstBlock <= 1) {
+			return scan(lo, hi);
+		}
+		int best = heavier(scan(lo, (firstBlock + 1) * BLOCK - 1), scan(lastBlock * BLOCK, hi));
+		// the whole blocks in between
+		for (int l = firstBlock + 1 + blocks, r = lastBlock + blocks; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) {
+				best = heavier(best, tree[l++]);
+			}
+			if ((r & 1) == 1) {
+				best = heavier(best, tree[--r]);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Return the indices of the k heaviest weights in the union of the
+	 * disjoint ranges weights[lo[i]..hi[i]], heaviest first, in the same
+	 * order as RangeMaxIndex.topK.
+	 *
+	 * @param lo
+	 *            first index of each range
+	 * @param hi
+	 *            last index of each range
+	 * @param k
+	 *            maximum number of indices to return
+	 * @return indices of the heaviest weights, heaviest first
+	 */
+	public int[] topK(int[] lo, int[] hi, int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		long total = 0;
+		for (int i = 0; i < lo.length; i++) {
+			total += Math.max(0, hi[i] - lo[i] + 1);
+		}
+		int count = (int) Math.min(k, total);
+		if (count <= 0) {
+			return new int[0];
+		}
+		int[] result = new int[count];
+		// each entry is {lo, hi, argMax(lo, hi)}
+		PriorityQueue<int[]> ranges = new PriorityQueue<int[]>(lo.length + 2 * count, new Comparator<int[]>() {
+			public int compare(int[] r1, int[] r2) {
+				return compareIndices(r2[2], r1[2]);
+			}
+		});
+		for (int i = 0; i < lo.length; i++) {
+			if (lo[i] <= hi[i]) {
+				ranges.add(new int[] { lo[i], hi[i], argMax(lo[i], hi[i]) });
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			int[] range = ranges.poll();
+			int best = range[2];
+			result[i] = best;
+			if (range[0] < best) {
+				ranges.add(new int[] { range[0], best - 1, argMax(range[0], best - 1) });
+			}
+			if (best < range[1]) {
+				ranges.add(new int[] { best + 1, range[1], argMax(best + 1, range[1]) });
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the number of weights indexed.
+	 *
+	 * @return number of weights
+	 */
+	public int size() {
+		return n;
+	}
+
+	// index of the heaviest weight in lo..hi, scanned one by one
+	private int scan(int lo, int hi) {
+		int best = lo;
+		for (int i = lo + 1; i <= hi; i++) {
+			if (compareIndices(i, best) > 0) {
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	// positive if index i outranks index j: heavier, or equal and earlier
+	private int compareIndices(int i, int j) {
+		int cmp;
+		if (shortRanks != null) {
+			cmp = shortRanks[i] - shortRanks[j];
+		} else if (ranks != null) {
+			cmp = rank(i) - rank(j);
+		} else {
+			cmp = Double.compare(weights[i], weights[j]);
+		}
+		return cmp != 0 ? cmp : Integer.compare(j, i);
+	}
+
+	// the packed rank of weight i
+	private int rank(int i) {
+		long at = (long) i * rankBits;
+		int word = (int) (at / Long.SIZE);
+		int shift = (int) (at % Long.SIZE);
+		long bits = ranks[word] >>> shift;
+		if (shift + rankBits > Long.SIZE) {
+			bits |= ranks[word + 1] << (Long.SIZE - shift);
+		}
+		return (int) (bits & ((1L << rankBits) - 1));
+	}
+
+	// bits in a rank among count values
+	private static int bitsFor(int count) {
+		return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(count - 1));
+	}
+
+	private int heavier(int i, int j) {
+		return compareIndices(i, j) >= 0 ? i : j;
+	}
+}
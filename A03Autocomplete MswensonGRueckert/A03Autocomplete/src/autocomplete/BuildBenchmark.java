@@ -0,0 +1,33 @@
+package autocomplete;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Class BuildBenchmark compares the sequential and the parallel
+ * Autocomplete build phase by phase on a synthetic corpus.
+ * 
+ * Usage: java autocomplete.BuildBenchmark [syntheticTerms]
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class BuildBenchmark {
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+		Term[] terms = AutocompleteBenchmark.syntheticTerms(n);
+		System.out.printf("%d terms, common pool parallelism %d%n", n, ForkJoinPool.commonPool().getParallelism());
+
+		for (boolean parallel : new boolean[] { false, true }) {
+			BuildTimes best = null;
+			for (int round = 0; round < ROUNDS; round++) {
+				BuildTimes times = new Autocomplete(terms, parallel).buildTimes();
+				if (best == null || times.getTotalNanos() < best.getTotalNanos()) {
+					best = times;
+				}
+			}
+			System.out.println("  best of " + ROUNDS + ": " + best);
+		}
+	}
+}
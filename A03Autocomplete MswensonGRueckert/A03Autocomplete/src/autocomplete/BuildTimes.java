@@ -0,0 +1,77 @@
+package autocomplete;
+
+/**
+ * Class BuildTimes records how long each phase of building an Autocomplete
+ * took: computing the search keys, sorting the terms by them, and extracting
+ * the weights and building the top-k index over them.
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class BuildTimes {
+	private final boolean parallel;
+	private final long keyNanos;
+	private final long sortNanos;
+	private final long indexNanos;
+
+	BuildTimes(boolean parallel, long keyNanos, long sortNanos, long indexNanos) {
+		this.parallel = parallel;
+		this.keyNanos = keyNanos;
+		this.sortNanos = sortNanos;
+		this.indexNanos = indexNanos;
+	}
+
+	/**
+	 * Return whether the build ran in parallel.
+	 * 
+	 * @return true for a parallel build
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Return the time spent computing the search keys.
+	 * 
+	 * @return nanoseconds
+	 */
+	public long getKeyNanos() {
+		return keyNanos;
+	}
+
+	/**
+	 * Return the time spent sorting the terms.
+	 * 
+	 * @return nanoseconds
+	 */
+	public long getSortNanos() {
+		return sortNanos;
+	}
+
+	/**
+	 * Return the time spent building the top-k index.
+	 * 
+	 * @return nanoseconds
+	 */
+	public long getIndexNanos() {
+		return indexNanos;
+	}
+
+	/**
+	 * Return the total build time.
+	 * 
+	 * @return nanoseconds
+	 */
+	public long getTotalNanos() {
+		return keyNanos + sortNanos + indexNanos;
+	}
+
+	/**
+	 * Return the phases in the form "keys 61.0 ms, sort 812.4 ms, index 40.1
+	 * ms, total 913.5 ms (parallel)".
+	 */
+	public String toString() {
+		return String.format("keys %.1f ms, sort %.1f ms, index %.1f ms, total %.1f ms (%s)", keyNanos / 1e6,
+				sortNanos / 1e6, indexNanos / 1e6, getTotalNanos() / 1e6, parallel ? "parallel" : "sequential");
+	}
+}
@@ -0,0 +1,60 @@
+package autocomplete;
+
+import java.util.Random;
+
+/**
+ * Class CacheBenchmark replays a skewed stream of prefixes, drawn from a
+ * Zipf-like distribution over the prefixes of the terms, against plain
+ * Autocomplete and against CachedAutocomplete of a few sizes.
+ * 
+ * Usage: java autocomplete.CacheBenchmark [syntheticTerms] [k]
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class CacheBenchmark {
+	private static final int QUERIES = 100_000;
+
+	// prefixes of 1 to 4 characters, the popular ones first
+	private static String[] skewedPrefixes(Term[] terms, int count) {
+		Random random = new Random(13);
+		String[] popular = new String[20_000];
+		for (int i = 0; i < popular.length; i++) {
+			String query = terms[random.nextInt(terms.length)].getQuery();
+			popular[i] = query.substring(0, Math.min(query.length(), 1 + random.nextInt(4)));
+		}
+		String[] prefixes = new String[count];
+		for (int i = 0; i < count; i++) {
+			// rank r is drawn with probability about 1 / r
+			int rank = (int) Math.pow(popular.length, random.nextDouble()) - 1;
+			prefixes[i] = popular[rank];
+		}
+		return prefixes;
+	}
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		final int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		Term[] terms = AutocompleteBenchmark.syntheticTerms(n);
+		final Autocomplete auto = new Autocomplete(terms);
+		String[] prefixes = skewedPrefixes(terms, QUERIES);
+
+		double plain = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return auto.allMatches(prefix, k).length;
+			}
+		});
+		System.out.printf("%d terms, %d skewed queries, k = %d%n", n, QUERIES, k);
+		System.out.printf("  uncached            %8.2f us%n", plain);
+		for (int size = 100; size <= 10_000; size *= 10) {
+			final CachedAutocomplete cache = new CachedAutocomplete(auto, size);
+			double cached = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+				public int run(String prefix) {
+					return cache.allMatches(prefix, k).length;
+				}
+			});
+			double hitRate = 100.0 * cache.hits() / (cache.hits() + cache.misses());
+			System.out.printf("  cache %6d entries %8.2f us   hit rate %5.1f%%%n", size, cached, hitRate);
+		}
+	}
+}
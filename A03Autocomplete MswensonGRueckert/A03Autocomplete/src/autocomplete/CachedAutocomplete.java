@@ -0,0 +1,234 @@
+package autocomplete;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class CachedAutocomplete puts a bounded cache of top-k results in front of
+ * any AutocompleteEngine. Entries are keyed by the case-folded prefix and k,
+ * since prefixes that differ only in case have the same matches, and are
+ * evicted least recently used first.
+ *
+ * The cache is split into segments, each an access-ordered LinkedHashMap
+ * behind its own lock, so concurrent readers rarely wait on each other;
+ * eviction is least recently used within a segment. Replacing the engine
+ * empties the cache, and every entry remembers the engine it came from so
+ * that a result computed against the old engine while the swap happens is
+ * never served afterwards.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class CachedAutocomplete implements AutocompleteEngine {
+	private static final int SEGMENTS = 16;
+
+	private volatile AutocompleteEngine engine;
+	private final Segment[] segments;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Cache key: the folded prefix and k.
+	 */
+	private static class Key {
+		private final String prefix;
+		private final int k;
+
+		private Key(String prefix, int k) {
+			this.prefix = prefix;
+			this.k = k;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key that = (Key) o;
+			return k == that.k && prefix.equals(that.prefix);
+		}
+
+		public int hashCode() {
+			return 31 * prefix.hashCode() + k;
+		}
+	}
+
+	/**
+	 * A cached result and the engine that produced it.
+	 */
+	private static class Result {
+		private final AutocompleteEngine engine;
+		private final Term[] matches;
+
+		private Result(AutocompleteEngine engine, Term[] matches) {
+			this.engine = engine;
+			this.matches = matches;
+		}
+	}
+
+	/**
+	 * One lock's worth of the cache.
+	 */
+	private class Segment extends LinkedHashMap<Key, Result> {
+		private static final long serialVersionUID = 1L;
+		private final int capacity;
+
+		private Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		protected boolean removeEldestEntry(Map.Entry<Key, Result> eldest) {
+			if (size() > capacity) {
+				evictions.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Cache the given engine's top-k results.
+	 *
+	 * @param engine
+	 *            engine answering cache misses
+	 * @param maxEntries
+	 *            maximum number of cached results
+	 */
+	public CachedAutocomplete(AutocompleteEngine engine, int maxEntries) {
+		if (engine == null) {
+			throw new NullPointerException();
+		}
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.engine = engine;
+		int count = Math.min(SEGMENTS, maxEntries);
+		this.segments = new Segment[count];
+		for (int i = 0; i < count; i++) {
+			// spread the remainder so the capacities add up to maxEntries
+			segments[i] = new Segment(maxEntries / count + (i < maxEntries % count ? 1 : 0));
+		}
+	}
+
+	/**
+	 * Swap in a new engine, for example one built from a new term set, and
+	 * drop every cached result.
+	 *
+	 * @param engine
+	 *            the new engine
+	 */
+	public void replace(AutocompleteEngine engine) {
+		if (engine == null) {
+			throw new NullPointerException();
+		}
+		this.engine = engine;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	/**
+	 * Return all matches from the engine. Full results are not cached, since
+	 * a single short prefix can match most of the terms.
+	 */
+	public Term[] allMatches(String prefix) {
+		return engine.allMatches(prefix);
+	}
+
+	public Term[] allMatches(String prefix, int k) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		AutocompleteEngine current = engine;
+		Key key = new Key(fold(prefix), k);
+		Segment segment = segments[(key.hashCode() & 0x7fffffff) % segments.length];
+		Result result;
+		synchronized (segment) {
+			result = segment.get(key);
+		}
+		if (result != null && result.engine == current) {
+			hits.incrementAndGet();
+			return result.matches.clone();
+		}
+
+		misses.incrementAndGet();
+		Term[] matches = current.allMatches(prefix, k);
+		synchronized (segment) {
+			// an engine replaced meanwhile must not see this result
+			if (engine == current) {
+				segment.put(key, new Result(current, matches));
+			}
+		}
+		return matches.clone();
+	}
+
+	public int numberOfMatches(String prefix) {
+		return engine.numberOfMatches(prefix);
+	}
+
+	/**
+	 * Return the number of results currently cached.
+	 *
+	 * @return cached entries
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Return the number of top-k queries answered from the cache.
+	 *
+	 * @return cache hits
+	 */
+	public long hits() {
+		return hits.get();
+	}
+
+	/**
+	 * Return the number of top-k queries passed on to the engine.
+	 *
+	 * @return cache misses
+	 */
+	public long misses() {
+		return misses.get();
+	}
+
+	/**
+	 * Return the number of results dropped to stay within the size bound.
+	 *
+	 * @return evictions
+	 */
+	public long evictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Return the counters in the form "hits 90, misses 10, evictions 2, size
+	 * 8".
+	 */
+	public String toString() {
+		return "hits " + hits() + ", misses " + misses() + ", evictions " + evictions() + ", size " + size();
+	}
+
+	// the prefix with every character folded the way matching ignores case
+	private static String fold(String prefix) {
+		char[] folded = new char[prefix.length()];
+		for (int i = 0; i < folded.length; i++) {
+			folded[i] = Term.foldCase(prefix.charAt(i));
+		}
+		return new String(folded);
+	}
+}
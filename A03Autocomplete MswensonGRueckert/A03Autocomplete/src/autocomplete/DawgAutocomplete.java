@@ -0,0 +1,540 @@
+package autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.princeton.cs.algs4.Quick;
+
+/**
+ * Class DawgAutocomplete answers the same queries as Autocomplete from a
+ * minimal acyclic automaton (DAWG) over the query strings. Queries that
+ * share a prefix share states, and so do queries that share a suffix, so
+ * the dictionary is far smaller than a Term[] or a trie. No Term or String
+ * is kept per entry, and no object per state: the whole automaton is one
+ * byte array.
+ * 
+ * A state with a single transition is just the character of that
+ * transition, running on into the next state, so a part of a query costs
+ * one byte per ASCII character whether other queries share it or not.
+ * 
+ * Counting the queries accepted below each state numbers the queries
+ * 0..n-1 in lexicographic order along any path. The weights
+ * are kept in that order, so the queries starting with a prefix are one
+ * rank range per spelling of the prefix and top-k comes from a
+ * BlockMaxIndex over the weights, which keeps them as ranks into a table of
+ * the distinct weights. Only the k results are turned back into strings, by
+ * walking the automaton with their rank.
+ * 
+ * The automaton is built with the incremental algorithm for sorted input
+ * of Daciuk, Mihov, Watson and Watson (2000).
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class DawgAutocomplete implements AutocompleteEngine {
+	/*
+	 * A state is an offset into the arena, where a run of characters starts,
+	 * and every number is a varint, seven bits a byte with the high bit set
+	 * on all but the last. Character c of a run is c + CHAR. A state with
+	 * one transition and no query ending at it is the label of that
+	 * transition, and the run goes on into the target, which either comes
+	 * right after it or is jumped to with JUMP + (target offset - offset
+	 * after the jump). Any other state ends its run with END and then:
+	 * 
+	 * header: min(transitions, 3) << 1 | FINAL
+	 * transitions - 3, if there are 3 or more
+	 * count of queries ending at the state, if FINAL
+	 * per transition, sorted by label: label, target offset - offset after
+	 * this number, and the count of queries accepted from the target if
+	 * there are two transitions or more
+	 * 
+	 * The arena is written back to front, children first, so the bytes
+	 * that follow a jump or a transition, and with them the offset it is
+	 * taken from, are known when it is written. A walk by rank only needs
+	 * the counts of the targets of a state with a choice of transitions, so
+	 * those are kept in the state, where they are read with it.
+	 */
+	private static final int END = 0;
+	private static final int CHAR = 1;
+	private static final int JUMP = CHAR + Character.MAX_VALUE + 1;
+	private static final int FINAL = 1;
+	private static final int TRANSITIONS_SHIFT = 1;
+	private static final int MANY = 3;
+	private static final int MAX_VARINT_BYTES = 5;
+
+	private final byte[] arena;
+	private final int root;
+	private final int states;
+	private final int transitions;
+	// heaviest.weight(r) is the weight of the query with rank r
+	private final BlockMaxIndex heaviest;
+
+	/**
+	 * Initialize the dictionary from the given array of terms.
+	 * 
+	 * @param terms
+	 *            list of terms to be sorted and compressed
+	 */
+	public DawgAutocomplete(Term[] terms) {
+		if (terms == null) {
+			throw new IllegalArgumentException();
+		}
+		Term[] sorted = terms.clone();
+		Quick.sort(sorted);
+
+		Builder builder = new Builder();
+		double[] weights = new double[sorted.length];
+		for (int i = 0; i < sorted.length; i++) {
+			builder.add(sorted[i].getQuery());
+			weights[i] = sorted[i].getWeight();
+		}
+		List<State> list = builder.finish();
+
+		int[] counts = new int[list.size()];
+		// offsets[s] is the number of bytes from the start of state s to the end
+		int[] offsets = new int[list.size()];
+		byte[] bytes = new byte[64];
+		int length = 0;
+		int edges = 0;
+		// states are numbered children first, so counts can be summed in order
+		for (int s = 0; s < list.size(); s++) {
+			State state = list.get(s);
+			State end = state.end;
+			counts[s] = end.finals;
+			for (int i = 0; i < end.size; i++) {
+				counts[s] += counts[end.targets[i].id];
+			}
+			int most = MAX_VARINT_BYTES * (4 + state.tail.length() + 3 * end.size);
+			if (length + most > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, length + most));
+			}
+			if (end.size == 1 && end.finals == 0) {
+				int target = end.targets[0].id;
+				if (target != s - 1) {
+					length = prepend(bytes, length, JUMP + length - offsets[target]);
+				}
+				length = prepend(bytes, length, CHAR + end.labels[0]);
+			} else {
+				for (int i = end.size - 1; i >= 0; i--) {
+					int target = end.targets[i].id;
+					if (end.size > 1) {
+						length = prepend(bytes, length, counts[target]);
+					}
+					length = prepend(bytes, length, length - offsets[target]);
+					length = prepend(bytes, length, end.labels[i]);
+				}
+				if (end.finals > 0) {
+					length = prepend(bytes, length, end.finals);
+				}
+				if (end.size >= MANY) {
+					length = prepend(bytes, length, end.size - MANY);
+				}
+				length = prepend(bytes, length,
+						Math.min(end.size, MANY) << TRANSITIONS_SHIFT | (end.finals > 0 ? FINAL : 0));
+				length = prepend(bytes, length, END);
+			}
+			for (int i = state.tail.length() - 1; i >= 0; i--) {
+				length = prepend(bytes, length, CHAR + state.tail.charAt(i));
+			}
+			offsets[s] = length;
+			edges += end.size;
+		}
+		arena = new byte[length];
+		for (int i = 0; i < length; i++) {
+			arena[i] = bytes[length - 1 - i];
+		}
+		root = length - offsets[list.size() - 1];
+		states = list.size();
+		transitions = edges;
+		heaviest = new BlockMaxIndex(weights);
+	}
+
+	/**
+	 * Return all terms that start with the given prefix, in descending order of
+	 * weight.
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @return array of matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix) {
+		return allMatches(prefix, numberOfMatches(prefix));
+	}
+
+	/**
+	 * Return the k heaviest terms that start with the given prefix, in
+	 * descending order of weight.
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @param k
+	 *            maximum number of terms to return
+	 * @return array of at most k matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix, int k) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		List<int[]> ranges = new ArrayList<int[]>();
+		collectRanges(prefix, 0, root, 0, ranges);
+		int[] lo = new int[ranges.size()];
+		int[] hi = new int[ranges.size()];
+		for (int i = 0; i < lo.length; i++) {
+			lo[i] = ranges.get(i)[0];
+			hi[i] = ranges.get(i)[1];
+		}
+
+		int[] top = heaviest.topK(lo, hi, k);
+		Term[] matches = new Term[top.length];
+		for (int i = 0; i < matches.length; i++) {
+			matches[i] = new Term(queryOf(top[i]), heaviest.weight(top[i]));
+		}
+		return matches;
+	}
+
+	/**
+	 * Return the number of terms that start with the given prefix.
+	 * 
+	 * @param prefix
+	 * @return number of terms with matching prefix
+	 */
+	public int numberOfMatches(String prefix) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		List<int[]> ranges = new ArrayList<int[]>();
+		collectRanges(prefix, 0, root, 0, ranges);
+		int count = 0;
+		for (int[] range : ranges) {
+			count += range[1] - range[0] + 1;
+		}
+		return count;
+	}
+
+	/**
+	 * Return the number of terms in the dictionary.
+	 * 
+	 * @return number of terms
+	 */
+	public int size() {
+		return heaviest.size();
+	}
+
+	/**
+	 * Return the number of states of the automaton.
+	 * 
+	 * @return number of states
+	 */
+	public int states() {
+		return states;
+	}
+
+	/**
+	 * Return the number of transitions of the automaton.
+	 * 
+	 * @return number of transitions
+	 */
+	public int transitions() {
+		return transitions;
+	}
+
+	/**
+	 * Follow every spelling of prefix[d..] that differs only in case from
+	 * state s, whose queries start at rank, and record the rank range of
+	 * each state the full prefix reaches.
+	 */
+	private void collectRanges(String prefix, int d, int s, int rank, List<int[]> ranges) {
+		Reader in = new Reader(s);
+		for (int c; d < prefix.length() && (c = in.nextChar()) >= 0; d++) {
+			if (Term.compareIgnoreCase(prefix.charAt(d), (char) c) != 0) {
+				return;
+			}
+		}
+		if (d == prefix.length()) {
+			int count = count(in.at);
+			if (count > 0) {
+				ranges.add(new int[] { rank, rank + count - 1 });
+			}
+			return;
+		}
+		int header = in.next();
+		int size = in.transitions(header);
+		rank += in.finals(header);
+		char c = Term.foldCase(prefix.charAt(d));
+		for (int e = 0; e < size; e++) {
+			char label = (char) in.next();
+			int target = in.next();
+			target += in.at;
+			if (Term.foldCase(label) == c) {
+				collectRanges(prefix, d + 1, target, rank, ranges);
+			}
+			if (size > 1) {
+				rank += in.next();
+			}
+		}
+	}
+
+	// spell out the query with the given rank
+	private String queryOf(int rank) {
+		StringBuilder query = new StringBuilder();
+		Reader in = new Reader(root);
+		while (true) {
+			for (int c = in.nextChar(); c >= 0; c = in.nextChar()) {
+				query.append((char) c);
+			}
+			int header = in.next();
+			int size = in.transitions(header);
+			int finals = in.finals(header);
+			if (rank < finals) {
+				return query.toString();
+			}
+			rank -= finals;
+			// the transition whose queries the rank falls among; a single
+			// one holds them all
+			while (true) {
+				char label = (char) in.next();
+				int target = in.next();
+				target += in.at;
+				int count = size > 1 ? in.next() : rank + 1;
+				if (rank < count) {
+					query.append(label);
+					in.at = target;
+					break;
+				}
+				rank -= count;
+			}
+		}
+	}
+
+	// number of queries accepted from state s, duplicates included
+	private int count(int s) {
+		int count = 0;
+		Reader in = new Reader(s);
+		while (true) {
+			while (in.nextChar() >= 0) {
+				// only the branch at the end of the run counts
+			}
+			int header = in.next();
+			int size = in.transitions(header);
+			count += in.finals(header);
+			if (size != 1) {
+				for (int e = 0; e < size; e++) {
+					in.next();
+					in.next();
+					count += in.next();
+				}
+				return count;
+			}
+			in.next();
+			int target = in.next();
+			in.at += target;
+		}
+	}
+
+	// reads the varints of a state out of the arena, from a given offset on
+	private final class Reader {
+		private int at;
+
+		private Reader(int at) {
+			this.at = at;
+		}
+
+		private int next() {
+			int value = 0;
+			for (int shift = 0;; shift += 7) {
+				byte b = arena[at++];
+				value |= (b & 0x7F) << shift;
+				if (b >= 0) {
+					return value;
+				}
+			}
+		}
+
+		// the next character of the run, following jumps, or -1 at its END
+		private int nextChar() {
+			while (true) {
+				int value = next();
+				if (value == END) {
+					return -1;
+				}
+				if (value < JUMP) {
+					return value - CHAR;
+				}
+				at += value - JUMP;
+			}
+		}
+
+		// the number of transitions, read on from the header
+		private int transitions(int header) {
+			int size = header >>> TRANSITIONS_SHIFT & MANY;
+			return size == MANY ? size + next() : size;
+		}
+
+		// the number of queries ending at the state, read on from there
+		private int finals(int header) {
+			return (header & FINAL) != 0 ? next() : 0;
+		}
+	}
+
+	// put value as a varint in front of the length bytes written back to
+	// front into bytes, returning the new length
+	private static int prepend(byte[] bytes, int length, int value) {
+		int size = 1;
+		for (int rest = value >>> 7; rest != 0; rest >>>= 7) {
+			size++;
+		}
+		for (int i = 0; i < size; i++) {
+			int group = value >>> (7 * (size - 1 - i)) & 0x7F;
+			bytes[length++] = (byte) (i == 0 ? group : group | 0x80);
+		}
+		return length;
+	}
+
+	/**
+	 * A state of the automaton while it is being built.
+	 */
+	private static class State {
+		private char[] labels = new char[2];
+		private State[] targets = new State[2];
+		private int size;
+		private int finals;
+		private int id = -1;
+		// filled in by Builder.finish: number of transitions into this state,
+		// the characters of the single-transition run starting here and the
+		// state the run ends at
+		private int indegree;
+		private String tail;
+		private State end;
+
+		private void add(char label, State target) {
+			if (size == labels.length) {
+				labels = Arrays.copyOf(labels, 2 * size);
+				targets = Arrays.copyOf(targets, 2 * size);
+			}
+			labels[size] = label;
+			targets[size++] = target;
+		}
+
+		// two states are equivalent when they are final the same number of
+		// times and have the same transitions to the same registered states
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof State)) {
+				return false;
+			}
+			State that = (State) other;
+			if (finals != that.finals || size != that.size) {
+				return false;
+			}
+			for (int i = 0; i < size; i++) {
+				if (labels[i] != that.labels[i] || targets[i] != that.targets[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = finals;
+			for (int i = 0; i < size; i++) {
+				hash = 31 * (31 * hash + labels[i]) + System.identityHashCode(targets[i]);
+			}
+			return hash;
+		}
+	}
+
+	/**
+	 * Builds the minimal automaton from queries added in sorted order. The
+	 * path of the last query is kept unregistered; when the next query
+	 * branches off it, the part of the path below the branch is final and is
+	 * replaced by equivalent registered states.
+	 */
+	private static class Builder {
+		private final Map<State, State> register = new HashMap<State, State>();
+		private final State start = new State();
+		// path[i] is the state reached by the first i characters of previous
+		private final List<State> path = new ArrayList<State>();
+		private String previous = "";
+
+		private Builder() {
+			path.add(start);
+		}
+
+		private void add(String query) {
+			if (query.compareTo(previous) < 0) {
+				throw new IllegalArgumentException("queries must be added in sorted order");
+			}
+			int common = 0;
+			int max = Math.min(query.length(), previous.length());
+			while (common < max && query.charAt(common) == previous.charAt(common)) {
+				common++;
+			}
+			minimize(common);
+			for (int i = common; i < query.length(); i++) {
+				State next = new State();
+				path.get(i).add(query.charAt(i), next);
+				path.add(next);
+			}
+			path.get(query.length()).finals++;
+			previous = query;
+		}
+
+		// replace path[depth + 1..] by registered equivalents, deepest first
+		private void minimize(int depth) {
+			for (int i = path.size() - 1; i > depth; i--) {
+				State child = path.remove(i);
+				State parent = path.get(i - 1);
+				State registered = register.get(child);
+				if (registered == null) {
+					register.put(child, child);
+				} else {
+					parent.targets[parent.size - 1] = registered;
+				}
+			}
+		}
+
+		// fold single-transition runs into tails and number the remaining
+		// states children first; the start state comes last
+		private List<State> finish() {
+			minimize(0);
+			countIndegrees(start);
+			List<State> states = new ArrayList<State>();
+			number(start, states);
+			return states;
+		}
+
+		private void countIndegrees(State state) {
+			for (int i = 0; i < state.size; i++) {
+				if (state.targets[i].indegree++ == 0) {
+					countIndegrees(state.targets[i]);
+				}
+			}
+		}
+
+		private void number(State state, List<State> states) {
+			if (state.id >= 0) {
+				return;
+			}
+			StringBuilder tail = new StringBuilder();
+			State end = state;
+			while (end.finals == 0 && end.size == 1 && end.targets[0].indegree == 1) {
+				tail.append(end.labels[0]);
+				end = end.targets[0];
+			}
+			state.tail = tail.toString();
+			state.end = end;
+			for (int i = 0; i < end.size; i++) {
+				number(end.targets[i], states);
+			}
+			state.id = states.size();
+			states.add(state);
+		}
+	}
+}
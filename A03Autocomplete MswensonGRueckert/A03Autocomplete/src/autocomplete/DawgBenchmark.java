@@ -0,0 +1,107 @@
+package autocomplete;
+
+import java.util.Random;
+
+/**
+ * Class DawgBenchmark reports the retained heap of DawgAutocomplete against
+ * the bare Term[] that Autocomplete holds and against all of Autocomplete,
+ * and the query time of both. Besides
+ * HailSatan.txt it uses a synthetic corpus of "artist - title (year)"
+ * phrases, since random letter strings have no suffixes to share.
+ * 
+ * Usage: java autocomplete.DawgBenchmark [syntheticTerms] [k]
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class DawgBenchmark {
+
+	// n phrases of 1-3 artist words and 1-4 title words from a made up vocabulary
+	private static Term[] phraseTerms(int n) {
+		Random random = new Random(2420);
+		String[] words = new String[5000];
+		for (int i = 0; i < words.length; i++) {
+			char[] word = new char[3 + random.nextInt(7)];
+			word[0] = (char) ('A' + random.nextInt(26));
+			for (int j = 1; j < word.length; j++) {
+				word[j] = (char) ('a' + random.nextInt(26));
+			}
+			words[i] = new String(word);
+		}
+		Term[] terms = new Term[n];
+		StringBuilder phrase = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			phrase.setLength(0);
+			int artist = 1 + random.nextInt(3);
+			for (int j = 0; j < artist; j++) {
+				phrase.append(words[random.nextInt(300)]).append(' ');
+			}
+			phrase.append('-');
+			int title = 1 + random.nextInt(4);
+			for (int j = 0; j < title; j++) {
+				phrase.append(' ').append(words[random.nextInt(words.length)]);
+			}
+			phrase.append(" (").append(1960 + random.nextInt(60)).append(')');
+			terms[i] = new Term(phrase.toString(), 1 + random.nextInt(100_000));
+		}
+		return terms;
+	}
+
+	/**
+	 * Creates a fresh copy of a corpus, so that each index is charged for
+	 * exactly the objects it keeps alive.
+	 */
+	private interface Corpus {
+		Term[] create();
+	}
+
+	private static void compare(String label, Corpus corpus, String[] prefixes, final int k) {
+		long base = AutocompleteBenchmark.usedHeap();
+		Term[] terms = corpus.create();
+		long termBytes = AutocompleteBenchmark.usedHeap() - base;
+		terms = null;
+
+		base = AutocompleteBenchmark.usedHeap();
+		final Autocomplete auto = new Autocomplete(corpus.create());
+		long autoBytes = AutocompleteBenchmark.usedHeap() - base;
+
+		base = AutocompleteBenchmark.usedHeap();
+		final DawgAutocomplete dawg = new DawgAutocomplete(corpus.create());
+		long dawgBytes = AutocompleteBenchmark.usedHeap() - base;
+		int n = dawg.size();
+
+		double autoTopK = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return auto.allMatches(prefix, k).length;
+			}
+		});
+		double dawgTopK = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return dawg.allMatches(prefix, k).length;
+			}
+		});
+		System.out.printf("%s: %d terms, %d states, %d transitions%n", label, dawg.size(), dawg.states(),
+				dawg.transitions());
+		System.out.printf("  retained heap     Term[] %8.1f bytes/term   dawg %8.1f bytes/term   %4.1fx%n",
+				termBytes / (double) n, dawgBytes / (double) n, termBytes / (double) dawgBytes);
+		System.out.printf("                    Autocomplete %8.1f bytes/term         %4.1fx%n", autoBytes / (double) n,
+				autoBytes / (double) dawgBytes);
+		System.out.printf("  allMatches(p, %d) Term[] %8.2f us         dawg %8.2f us%n", k, autoTopK, dawgTopK);
+	}
+
+	public static void main(String[] args) {
+		final int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+		int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		compare("HailSatan", new Corpus() {
+			public Term[] create() {
+				return AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA);
+			}
+		}, new String[] { "M", "Metallica - M", "Opeth - B" }, k);
+		compare("synthetic phrases", new Corpus() {
+			public Term[] create() {
+				return phraseTerms(n);
+			}
+		}, new String[] { "A", "K", "Ba", "Mo" }, k);
+	}
+}
@@ -0,0 +1,93 @@
+package autocomplete;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Class EytzingerBenchmark times firstIndexOf on a sorted int[] with
+ * BinarySearchDeluxe against EytzingerIndex, for arrays from a few KB, well
+ * inside L1, up to several hundred MB, far beyond the last level cache.
+ * Keys are drawn at random, half of them present, and each search is timed
+ * on the int probes directly.
+ *
+ * Usage: java -Xmx3g autocomplete.EytzingerBenchmark [largest log2 size]
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class EytzingerBenchmark {
+	private static final int PROBES = 1 << 14;
+	private static final long WARMUP_NANOS = 500_000_000L;
+	private static final long MEASURED_NANOS = 1_000_000_000L;
+
+	interface Search {
+		int firstIndexOf(int key);
+	}
+
+	/**
+	 * Runs the search over every probe repeatedly, first to warm up the JIT
+	 * and then for about a second of measurement, the way
+	 * AutocompleteBenchmark.time does for prefixes, and returns the average
+	 * time of one search in nanoseconds.
+	 *
+	 * @param probes
+	 *            keys to search for
+	 * @param search
+	 *            search to time
+	 * @return average nanoseconds per search
+	 */
+	static double time(int[] probes, Search search) {
+		long sink = 0;
+		long start = System.nanoTime();
+		while (System.nanoTime() - start < WARMUP_NANOS) {
+			for (int probe : probes) {
+				sink += search.firstIndexOf(probe);
+			}
+		}
+		long searches = 0;
+		start = System.nanoTime();
+		long elapsed;
+		do {
+			for (int probe : probes) {
+				sink += search.firstIndexOf(probe);
+			}
+			searches += probes.length;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < MEASURED_NANOS);
+		if (sink == 42) {
+			System.out.print("");
+		}
+		return (double) elapsed / searches;
+	}
+
+	public static void main(String[] args) {
+		int largest = args.length > 0 ? Integer.parseInt(args[0]) : 27;
+		Random random = new Random(24);
+
+		System.out.printf("%10s %10s %12s %12s %8s%n", "keys", "bytes", "binary ns", "eytzinger ns", "speedup");
+		for (int log = 10; log <= largest; log += log < 16 ? 3 : 2) {
+			int n = 1 << log;
+			final int[] sorted = new int[n];
+			for (int i = 0; i < n; i++) {
+				sorted[i] = random.nextInt(2 * n);
+			}
+			Arrays.sort(sorted);
+			final EytzingerIndex eytzinger = new EytzingerIndex(sorted);
+			int[] probes = new int[PROBES];
+			for (int i = 0; i < PROBES; i++) {
+				probes[i] = i % 2 == 0 ? sorted[random.nextInt(n)] : random.nextInt(2 * n);
+			}
+			double binary = time(probes, new Search() {
+				public int firstIndexOf(int key) {
+					return BinarySearchDeluxe.firstIndexOf(sorted, key);
+				}
+			});
+			double layout = time(probes, new Search() {
+				public int firstIndexOf(int key) {
+					return eytzinger.firstIndexOf(key);
+				}
+			});
+			System.out.printf("%10d %10d %12.1f %12.1f %7.2fx%n", n, 4L * n, binary, layout, binary / layout);
+		}
+	}
+}
@@ -0,0 +1,166 @@
+package autocomplete;
+
+/**
+ * Class EytzingerIndex answers the same firstIndexOf and lastIndexOf
+ * questions as BinarySearchDeluxe on a sorted int[], but keeps the keys in
+ * Eytzinger order: the array is an implicit binary search tree laid out
+ * breadth first, keys[1] the root and keys[2k], keys[2k + 1] the children of
+ * keys[k].
+ *
+ * A plain binary search of a large array jumps around it, so nearly every
+ * probe after the first few misses cache, and the next probe cannot start
+ * until the comparison decides which half to take. Here the first levels of
+ * the tree share a handful of cache lines that stay hot between searches,
+ * and the four levels below node k sit next to each other at
+ * keys[16k..16k + 15], so one line fetch serves several probes. The descent
+ * is k = 2k + (keys[k] < key), which has no unpredictable branch; the CPU
+ * can run ahead on the loads while the loop only depends on the address.
+ *
+ * Building costs O(n) and no extra space; the index of a key in the sorted
+ * array is worked out from its tree position.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class EytzingerIndex {
+	// keeps 2k + 1 from overflowing during the descent
+	static final int MAX_SIZE = (1 << 30) - 1;
+	// a sum the look-ahead loads are all but certain never to add up to
+	private static final int UNLIKELY_SUM = 0x5eed1e55;
+
+	private final int n;
+	// depth of the last, possibly partial, level of the tree
+	private final int height;
+	// number of keys on the last level
+	private final int lastLevel;
+	// keys[k] for the tree positions 1..n, keys[0] unused
+	private final int[] keys;
+	// loads made only to pull a line into cache, kept so they are not
+	// removed; written only on the rare UNLIKELY_SUM, so queries on several
+	// threads do not fight over its cache line
+	private int lookahead;
+
+	/**
+	 * Lays out the given sorted keys. The array is not kept.
+	 *
+	 * @param sorted
+	 *            keys in ascending order
+	 * @throws IllegalArgumentException
+	 *             if the keys are not sorted, or more than MAX_SIZE
+	 */
+	public EytzingerIndex(int[] sorted) {
+		if (sorted == null) {
+			throw new NullPointerException();
+		}
+		if (sorted.length > MAX_SIZE) {
+			throw new IllegalArgumentException("too many keys: " + sorted.length);
+		}
+		for (int i = 1; i < sorted.length; i++) {
+			if (sorted[i - 1] > sorted[i]) {
+				throw new IllegalArgumentException("keys not sorted at " + i);
+			}
+		}
+		this.n = sorted.length;
+		this.height = 31 - Integer.numberOfLeadingZeros(Math.max(1, n));
+		this.lastLevel = n - ((1 << height) - 1);
+		this.keys = new int[n + 1];
+		fill(sorted, 0, 1);
+	}
+
+	// an in-order walk of the tree visits positions in sorted order
+	private int fill(int[] sorted, int i, int k) {
+		if (k <= n) {
+			i = fill(sorted, i, 2 * k);
+			keys[k] = sorted[i];
+			i = fill(sorted, i + 1, 2 * k + 1);
+		}
+		return i;
+	}
+
+	/**
+	 * Return the number of keys.
+	 *
+	 * @return number of keys
+	 */
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * Return the index in the sorted array of the first key that equals key,
+	 * or -1 if none.
+	 *
+	 * @param key
+	 *            value to be found
+	 * @return -1 if not present, first index of key if present
+	 */
+	public int firstIndexOf(int key) {
+		int k = descend(key, false);
+		return k != 0 && keys[k] == key ? rank(k) : -1;
+	}
+
+	/**
+	 * Return the index in the sorted array of the last key that equals key,
+	 * or -1 if none.
+	 *
+	 * @param key
+	 *            value to be found
+	 * @return -1 if not present, last index of key if present
+	 */
+	public int lastIndexOf(int key) {
+		if (firstIndexOf(key) == -1) {
+			return -1;
+		}
+		int k = descend(key, true);
+		return k == 0 ? n - 1 : rank(k) - 1;
+	}
+
+	/*
+	 * Return the tree position of the first key not less than key (or
+	 * greater than key, if past is set), 0 if there is none. The descent
+	 * records a right turn as a 1 bit; the answer is the node where the last
+	 * left turn was taken, found by dropping the trailing right turns and
+	 * that left turn.
+	 *
+	 * Java has no prefetch instruction, so each step also loads keys[16k],
+	 * the first of the 16 great-great-grandchildren. Nothing waits on that
+	 * load, so the line is in flight four levels before the descent needs it.
+	 */
+	private int descend(int key, boolean past) {
+		int prefetchLimit = n >>> 4;
+		int touched = 0;
+		int k = 1;
+		if (past) {
+			while (k <= n) {
+				touched += keys[Math.min(k, prefetchLimit) << 4];
+				k = 2 * k + (keys[k] <= key ? 1 : 0);
+			}
+		} else {
+			while (k <= n) {
+				touched += keys[Math.min(k, prefetchLimit) << 4];
+				k = 2 * k + (keys[k] < key ? 1 : 0);
+			}
+		}
+		if (touched == UNLIKELY_SUM) {
+			lookahead = touched;
+		}
+		return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+	}
+
+	/*
+	 * Return the index in the sorted array of tree position k. Above the
+	 * last level the tree is perfect, and node j of level d comes after
+	 * (2j + 1) 2^(height - 1 - d) - 1 of those nodes in order, and after as
+	 * many of the last level's keys as lie under or left of its left subtree.
+	 * Key j of the last level comes after j keys of the level above it.
+	 */
+	private int rank(int k) {
+		int depth = 31 - Integer.numberOfLeadingZeros(k);
+		int j = k - (1 << depth);
+		if (depth == height) {
+			return 2 * j;
+		}
+		int before = (2 * j + 1) << (height - 1 - depth);
+		return before - 1 + Math.min(lastLevel, before);
+	}
+}
@@ -0,0 +1,83 @@
+package autocomplete;
+
+import java.util.Random;
+
+/**
+ * Class FuzzyBenchmark compares the latency of TrieAutocomplete.fuzzyMatches
+ * at edit distance 1 and 2 on misspelled prefixes with exact top-k lookups
+ * of the intended prefixes on the same trie, on HailSatan.txt and on a large
+ * synthetic corpus. The synthetic intended prefixes are cut from terms of the
+ * corpus, so the exact lookup has matches to rank, and typed with the two
+ * letters before the last swapped, two edits away.
+ * 
+ * Usage: java autocomplete.FuzzyBenchmark [syntheticTerms] [k]
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class FuzzyBenchmark {
+
+	private static void compare(String label, Term[] terms, String[] intended, String[] typed, final int k) {
+		final TrieAutocomplete trie = new TrieAutocomplete(terms);
+		AutocompleteBenchmark.Query[] fuzzy = new AutocompleteBenchmark.Query[TrieAutocomplete.MAX_DISTANCE + 1];
+		for (int d = 1; d <= TrieAutocomplete.MAX_DISTANCE; d++) {
+			final int distance = d;
+			fuzzy[d] = new AutocompleteBenchmark.Query() {
+				public int run(String prefix) {
+					return trie.fuzzyMatches(prefix, distance, k).length;
+				}
+			};
+			// the recursive walk takes a while to compile, which on a
+			// machine with few cores skews the first measurement
+			AutocompleteBenchmark.time(typed, fuzzy[d]);
+		}
+		double exact = AutocompleteBenchmark.time(intended, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return trie.allMatches(prefix, k).length;
+			}
+		});
+		System.out.println(label);
+		System.out.printf("  exact, intended prefix %10.2f us%n", exact);
+		for (int d = 1; d <= TrieAutocomplete.MAX_DISTANCE; d++) {
+			double time = AutocompleteBenchmark.time(typed, fuzzy[d]);
+			System.out.printf("  distance %d, typo       %10.2f us   %6.1f x exact%n", d, time, time / exact);
+		}
+	}
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		Term[] metal = AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA);
+		compare("HailSatan", metal, new String[] { "metallica", "Opeth - B", "iron maiden", "megadeth" },
+				new String[] { "metalica", "Opth - B", "iron maden", "megadteh" }, k);
+
+		Term[] synthetic = AutocompleteBenchmark.syntheticTerms(n);
+		for (int length : new int[] { 5, 8 }) {
+			String[] intended = prefixesOf(synthetic, length, 4);
+			String[] typed = new String[intended.length];
+			for (int i = 0; i < intended.length; i++) {
+				char[] letters = intended[i].toCharArray();
+				char swapped = letters[length - 3];
+				letters[length - 3] = letters[length - 2];
+				letters[length - 2] = swapped;
+				typed[i] = new String(letters);
+			}
+			compare("synthetic, " + length + " letters", synthetic, intended, typed, k);
+		}
+	}
+
+	// the first length letters of count terms at least that long, whose
+	// swapped letters differ so the typo is a real one
+	private static String[] prefixesOf(Term[] terms, int length, int count) {
+		Random random = new Random(17);
+		String[] prefixes = new String[count];
+		for (int i = 0; i < count;) {
+			String query = terms[random.nextInt(terms.length)].getQuery();
+			if (query.length() >= length && query.charAt(length - 3) != query.charAt(length - 2)) {
+				prefixes[i++] = query.substring(0, length);
+			}
+		}
+		return prefixes;
+	}
+}
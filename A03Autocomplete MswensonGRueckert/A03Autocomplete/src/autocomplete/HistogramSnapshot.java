@@ -0,0 +1,77 @@
+package autocomplete;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Class HistogramSnapshot is the summary of a LogHistogram at one moment.
+ * JMX shows it as a composite attribute with one item per getter.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public final class HistogramSnapshot {
+	private final long count;
+	private final double mean;
+	private final long p50;
+	private final long p90;
+	private final long p99;
+	private final long max;
+
+	/**
+	 * Create a summary.
+	 *
+	 * @param count
+	 *            number of values
+	 * @param mean
+	 *            mean value
+	 * @param p50
+	 *            median
+	 * @param p90
+	 *            90th percentile
+	 * @param p99
+	 *            99th percentile
+	 * @param max
+	 *            largest value
+	 */
+	@ConstructorProperties({ "count", "mean", "p50", "p90", "p99", "max" })
+	public HistogramSnapshot(long count, double mean, long p50, long p90, long p99, long max) {
+		this.count = count;
+		this.mean = mean;
+		this.p50 = p50;
+		this.p90 = p90;
+		this.p99 = p99;
+		this.max = max;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public long getP50() {
+		return p50;
+	}
+
+	public long getP90() {
+		return p90;
+	}
+
+	public long getP99() {
+		return p99;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Return the summary in the form "count 120, mean 3.5, p50 3, p90 7, p99
+	 * 15, max 22".
+	 */
+	public String toString() {
+		return String.format("count %d, mean %.1f, p50 %d, p90 %d, p99 %d, max %d", count, mean, p50, p90, p99, max);
+	}
+}
@@ -0,0 +1,157 @@
+package autocomplete;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class IndexFile saves a sorted term index to a versioned binary file that
+ * MappedAutocomplete can memory-map and query without rebuilding anything.
+ * 
+ * Layout, little endian, every section starting on an 8 byte boundary:
+ * 
+ * <pre>
+ * header   int MAGIC, int VERSION, int n, int number of query chars
+ * offsets  int[n + 1]   query i is chars[offsets[i]..offsets[i + 1])
+ * weights  double[n]
+ * tree     int[2n]      RangeMaxIndex over the weights
+ * chars    char[]       all queries in lexicographic order
+ * </pre>
+ * 
+ * Each section is mapped on its own, so none of them may exceed 2 GB.
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class IndexFile {
+	static final int MAGIC = 0x41434958; // "ACIX"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 16;
+	static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	/**
+	 * Conventional file name extension of an index file.
+	 */
+	public static final String EXTENSION = ".idx";
+
+	private static final int CHUNK_BYTES = 1 << 20;
+
+	private IndexFile() {
+	}
+
+	/**
+	 * Sorts the terms and saves them as an index file.
+	 * 
+	 * @param terms
+	 *            terms to save
+	 * @param filename
+	 *            file to create or overwrite
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public static void write(Term[] terms, String filename) throws IOException {
+		write(new PackedAutocomplete(terms), filename);
+	}
+
+	/**
+	 * Saves a packed index as an index file.
+	 * 
+	 * @param index
+	 *            index to save
+	 * @param filename
+	 *            file to create or overwrite
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public static void write(PackedAutocomplete index, String filename) throws IOException {
+		if (index == null || filename == null) {
+			throw new NullPointerException();
+		}
+		int n = index.size();
+		int[] tree = new int[2 * n];
+		index.heaviest().copyTreeTo(IntBuffer.wrap(tree));
+
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ORDER);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(index.chars().length);
+
+			for (int offset : index.offsets()) {
+				ensure(channel, buffer, 4);
+				buffer.putInt(offset);
+			}
+			align(channel, buffer);
+			for (double weight : index.weights()) {
+				ensure(channel, buffer, 8);
+				buffer.putDouble(weight);
+			}
+			for (int node : tree) {
+				ensure(channel, buffer, 4);
+				buffer.putInt(node);
+			}
+			for (char c : index.chars()) {
+				ensure(channel, buffer, 2);
+				buffer.putChar(c);
+			}
+			align(channel, buffer);
+			flush(channel, buffer);
+			channel.force(false);
+		}
+	}
+
+	/**
+	 * Return the position of the section after a section of the given size
+	 * that starts at position, rounded up to 8 bytes.
+	 */
+	static long next(long position, long bytes) {
+		return (position + bytes + 7) & ~7L;
+	}
+
+	// make room for bytes more bytes in buffer
+	private static void ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush(channel, buffer);
+		}
+	}
+
+	// pad with zeros up to the next 8 byte boundary of the file
+	private static void align(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while ((channel.position() + buffer.position()) % 8 != 0) {
+			ensure(channel, buffer, 1);
+			buffer.put((byte) 0);
+		}
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Converts a term file into an index file.
+	 * 
+	 * Usage: java autocomplete.IndexFile terms.txt terms.idx
+	 * 
+	 * @param args
+	 *            the term file to read and the index file to write
+	 * @throws IOException
+	 *             if either file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: java autocomplete.IndexFile terms.txt terms" + EXTENSION);
+			System.exit(2);
+		}
+		// built straight from the file, so no Term[] of it is ever held
+		PackedAutocomplete index = PackedAutocomplete.load(args[0]);
+		write(index, args[1]);
+		System.out.println("Wrote " + index.size() + " terms to " + args[1]);
+	}
+}
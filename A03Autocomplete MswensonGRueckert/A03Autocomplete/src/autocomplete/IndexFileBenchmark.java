@@ -0,0 +1,57 @@
+package autocomplete;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Class IndexFileBenchmark compares cold start from a term text file
+ * (parse every line, then sort in the Autocomplete constructor) with
+ * opening a memory-mapped index file and answering the first query.
+ * 
+ * Usage: java autocomplete.IndexFileBenchmark [syntheticTerms]
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class IndexFileBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+		Term[] terms = AutocompleteBenchmark.syntheticTerms(n);
+
+		File text = File.createTempFile("terms", ".txt");
+		File index = File.createTempFile("terms", IndexFile.EXTENSION);
+		text.deleteOnExit();
+		index.deleteOnExit();
+		try (PrintWriter out = new PrintWriter(text, "UTF-8")) {
+			out.println(n);
+			for (Term term : terms) {
+				out.println((long) term.getWeight() + "\t" + term.getQuery());
+			}
+		}
+		long start = System.nanoTime();
+		IndexFile.write(terms, index.getPath());
+		double write = (System.nanoTime() - start) / 1e6;
+		terms = null;
+
+		start = System.nanoTime();
+		Autocomplete auto = new Autocomplete(AutocompleteBenchmark.readTerms(text.getPath()));
+		int found = auto.allMatches("m", 10).length;
+		double parse = (System.nanoTime() - start) / 1e6;
+		auto = null;
+
+		start = System.nanoTime();
+		MappedAutocomplete mapped = new MappedAutocomplete(index.getPath());
+		found += mapped.allMatches("m", 10).length;
+		double map = (System.nanoTime() - start) / 1e6;
+
+		System.out.printf("%d terms, text %.1f MB, index %.1f MB, index written in %.1f ms%n", n,
+				text.length() / 1e6, index.length() / 1e6, write);
+		System.out.printf("parse text + sort + first query   %10.1f ms%n", parse);
+		System.out.printf("map index + first query           %10.1f ms%n", map);
+		if (found == 0) {
+			System.out.println("no matches");
+		}
+	}
+}
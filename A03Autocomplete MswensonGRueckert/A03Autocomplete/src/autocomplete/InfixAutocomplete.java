@@ -0,0 +1,244 @@
+package autocomplete;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Class InfixAutocomplete matches a prefix against the start of every word
+ * of a query, not only the start of the query, so "puppets" finds
+ * "Metallica - Master Of Puppets (1986)". It is a sparse suffix array: one
+ * suffix per word start, where a word starts at a letter or digit that does
+ * not follow one, plus the start of the query. The suffixes are sorted by
+ * their SearchKey, so a prefix search is the same equal range search over
+ * the suffixes that Autocomplete does over whole queries, and a prefix may
+ * run on across words ("master of p").
+ *
+ * A term can match at several of its words, so every search deduplicates
+ * its hits per term. The k heaviest are pulled from a RangeMaxIndex over
+ * the suffix weights, skipping suffixes of terms already returned.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class InfixAutocomplete implements AutocompleteEngine {
+	private final Term[] terms;
+	// every suffix that starts a word, sorted by key
+	private final Suffix[] suffixes;
+	private final RangeMaxIndex heaviest;
+
+	/**
+	 * A word start: the search key of a term from offset on.
+	 */
+	private static class Suffix {
+		private final String key;
+		private final int offset;
+		private final int term;
+
+		private Suffix(String key, int offset, int term) {
+			this.key = key;
+			this.offset = offset;
+			this.term = term;
+		}
+	}
+
+	/**
+	 * Compares suffixes on their first r characters. A suffix shorter than r
+	 * characters sorts before any longer suffix it is a prefix of.
+	 */
+	private static class SuffixOrder implements Comparator<Suffix> {
+		private final int r;
+
+		private SuffixOrder(int r) {
+			this.r = r;
+		}
+
+		public int compare(Suffix s1, Suffix s2) {
+			int n1 = Math.min(r, s1.key.length() - s1.offset);
+			int n2 = Math.min(r, s2.key.length() - s2.offset);
+			int n = Math.min(n1, n2);
+			for (int i = 0; i < n; i++) {
+				int cmp = s1.key.charAt(s1.offset + i) - s2.key.charAt(s2.offset + i);
+				if (cmp != 0) {
+					return cmp;
+				}
+			}
+			return n1 - n2;
+		}
+	}
+
+	/**
+	 * Initialize the data structure from the given array of terms.
+	 *
+	 * @param terms
+	 *            list of terms to be indexed
+	 */
+	public InfixAutocomplete(Term[] terms) {
+		if (terms == null) {
+			throw new IllegalArgumentException();
+		}
+		this.terms = terms.clone();
+
+		int count = 0;
+		String[] keys = new String[terms.length];
+		for (int t = 0; t < terms.length; t++) {
+			keys[t] = SearchKey.of(terms[t].getQuery(), false);
+			count += wordStarts(keys[t]);
+		}
+		suffixes = new Suffix[count];
+		int next = 0;
+		for (int t = 0; t < keys.length; t++) {
+			String key = keys[t];
+			for (int i = 0; i < key.length() || i == 0; i++) {
+				if (startsWord(key, i)) {
+					suffixes[next++] = new Suffix(key, i, t);
+				}
+			}
+		}
+		Arrays.sort(suffixes, new SuffixOrder(Integer.MAX_VALUE));
+
+		double[] weights = new double[count];
+		for (int i = 0; i < count; i++) {
+			weights[i] = this.terms[suffixes[i].term].getWeight();
+		}
+		heaviest = new RangeMaxIndex(weights);
+	}
+
+	// the start of the key and every letter or digit that follows neither
+	private static boolean startsWord(String key, int i) {
+		return i == 0 || Character.isLetterOrDigit(key.charAt(i)) && !Character.isLetterOrDigit(key.charAt(i - 1));
+	}
+
+	private static int wordStarts(String key) {
+		int count = 1;
+		for (int i = 1; i < key.length(); i++) {
+			if (startsWord(key, i)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return all terms with a word that starts with the given prefix, in
+	 * descending order of weight.
+	 *
+	 * @param prefix
+	 *            the prefix entered
+	 * @return array of matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix) {
+		int[] matched = matchedTerms(range(prefix));
+		Term[] matches = new Term[matched.length];
+		for (int i = 0; i < matched.length; i++) {
+			matches[i] = terms[matched[i]];
+		}
+		Arrays.sort(matches, Term.byReverseWeightOrder());
+		return matches;
+	}
+
+	/**
+	 * Return the k heaviest terms with a word that starts with the given
+	 * prefix, in descending order of weight. Suffixes are taken heaviest
+	 * first from the range of the prefix, and each term is returned once.
+	 *
+	 * @param prefix
+	 *            the prefix entered
+	 * @param k
+	 *            maximum number of terms to return
+	 * @return array of at most k matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix, int k) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		int[] range = range(prefix);
+		if (range[0] == -1 || k == 0) {
+			return new Term[0];
+		}
+		// each entry is {lo, hi, argMax(lo, hi)}, heaviest argMax first
+		PriorityQueue<int[]> pieces = new PriorityQueue<int[]>(11, new Comparator<int[]>() {
+			public int compare(int[] r1, int[] r2) {
+				int cmp = Double.compare(weight(r2[2]), weight(r1[2]));
+				return cmp != 0 ? cmp : Integer.compare(r1[2], r2[2]);
+			}
+		});
+		pieces.add(new int[] { range[0], range[1], heaviest.argMax(range[0], range[1]) });
+		Set<Integer> taken = new HashSet<Integer>();
+		// no more terms than suffixes in the range, however large k is
+		Term[] matches = new Term[Math.min(k, range[1] - range[0] + 1)];
+		int count = 0;
+		while (count < matches.length && !pieces.isEmpty()) {
+			int[] piece = pieces.poll();
+			int best = piece[2];
+			if (taken.add(suffixes[best].term)) {
+				matches[count++] = terms[suffixes[best].term];
+			}
+			if (piece[0] < best) {
+				pieces.add(new int[] { piece[0], best - 1, heaviest.argMax(piece[0], best - 1) });
+			}
+			if (best < piece[1]) {
+				pieces.add(new int[] { best + 1, piece[1], heaviest.argMax(best + 1, piece[1]) });
+			}
+		}
+		return Arrays.copyOf(matches, count);
+	}
+
+	/**
+	 * Return the number of terms with a word that starts with the given
+	 * prefix.
+	 *
+	 * @param prefix
+	 *            the prefix entered
+	 * @return number of terms with matching prefix
+	 */
+	public int numberOfMatches(String prefix) {
+		return matchedTerms(range(prefix)).length;
+	}
+
+	/**
+	 * Return the number of word-start suffixes indexed.
+	 *
+	 * @return number of suffixes
+	 */
+	public int suffixes() {
+		return suffixes.length;
+	}
+
+	private double weight(int suffix) {
+		return terms[suffixes[suffix].term].getWeight();
+	}
+
+	// the indices of the terms with a suffix in range, each once
+	private int[] matchedTerms(int[] range) {
+		if (range[0] == -1) {
+			return new int[0];
+		}
+		int[] matched = new int[range[1] - range[0] + 1];
+		for (int i = 0; i < matched.length; i++) {
+			matched[i] = suffixes[range[0] + i].term;
+		}
+		Arrays.sort(matched);
+		int distinct = 0;
+		for (int i = 0; i < matched.length; i++) {
+			if (i == 0 || matched[i] != matched[i - 1]) {
+				matched[distinct++] = matched[i];
+			}
+		}
+		return Arrays.copyOf(matched, distinct);
+	}
+
+	// first and last suffix starting with prefix, or {-1, -1}
+	private int[] range(String prefix) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		String key = SearchKey.of(prefix, false);
+		return BinarySearchDeluxe.equalRange(suffixes, new Suffix(key, 0, -1), new SuffixOrder(key.length()));
+	}
+}
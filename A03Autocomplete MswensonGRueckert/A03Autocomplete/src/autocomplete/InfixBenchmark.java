@@ -0,0 +1,65 @@
+package autocomplete;
+
+/**
+ * Class InfixBenchmark reports what matching every word start costs compared
+ * to matching the start of the query only: build time, retained heap per
+ * term, and the time of a top-k query, on HailSatan.txt and on synthetic
+ * three word terms.
+ *
+ * Usage: java autocomplete.InfixBenchmark [k]
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class InfixBenchmark {
+
+	// n terms of three synthetic words each
+	private static Term[] threeWordTerms(int n) {
+		Term[] words = AutocompleteBenchmark.syntheticTerms(3 * n);
+		Term[] terms = new Term[n];
+		for (int i = 0; i < n; i++) {
+			terms[i] = new Term(words[3 * i].getQuery() + " " + words[3 * i + 1].getQuery() + " - "
+					+ words[3 * i + 2].getQuery(), words[3 * i].getWeight());
+		}
+		return terms;
+	}
+
+	private static void compare(String label, Term[] terms, String[] prefixes, final int k) {
+		long base = AutocompleteBenchmark.usedHeap();
+		long start = System.nanoTime();
+		final Autocomplete auto = new Autocomplete(terms);
+		double autoMillis = (System.nanoTime() - start) / 1e6;
+		long autoBytes = AutocompleteBenchmark.usedHeap() - base;
+
+		base = AutocompleteBenchmark.usedHeap();
+		start = System.nanoTime();
+		final InfixAutocomplete infix = new InfixAutocomplete(terms);
+		double infixMillis = (System.nanoTime() - start) / 1e6;
+		long infixBytes = AutocompleteBenchmark.usedHeap() - base;
+
+		double autoMicros = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return auto.allMatches(prefix, k).length;
+			}
+		});
+		double infixMicros = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return infix.allMatches(prefix, k).length;
+			}
+		});
+
+		System.out.printf("%-20s %8d terms, %.2f word starts per term%n", label, terms.length,
+				infix.suffixes() / (double) terms.length);
+		System.out.printf("  build      prefix %8.1f ms          infix %8.1f ms%n", autoMillis, infixMillis);
+		System.out.printf("  heap       prefix %8.1f bytes/term  infix %8.1f bytes/term%n",
+				autoBytes / (double) terms.length, infixBytes / (double) terms.length);
+		System.out.printf("  top %-3d    prefix %8.2f us          infix %8.2f us%n", k, autoMicros, infixMicros);
+	}
+
+	public static void main(String[] args) {
+		int k = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		String[] prefixes = BatchBenchmark.shortPrefixes(2);
+		compare("HailSatan.txt", AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA), prefixes, k);
+		compare("three word synthetic", threeWordTerms(500_000), prefixes, k);
+	}
+}
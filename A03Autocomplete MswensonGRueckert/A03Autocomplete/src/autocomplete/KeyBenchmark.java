@@ -0,0 +1,92 @@
+package autocomplete;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Class KeyBenchmark compares prefix search over precomputed SearchKeys with
+ * the old way of folding the case of both sides in every comparison, on
+ * mixed-case terms where every query has an upper case letter and so needs a
+ * key of its own. It also reports the time spent computing the keys during
+ * the build and the heap the keys take.
+ *
+ * Usage: java autocomplete.KeyBenchmark
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class KeyBenchmark {
+
+	// the synthetic terms with the first letter of every query capitalized
+	private static Term[] mixedCaseTerms(int n) {
+		Term[] terms = AutocompleteBenchmark.syntheticTerms(n);
+		for (int i = 0; i < n; i++) {
+			String query = terms[i].getQuery();
+			terms[i] = new Term(Character.toUpperCase(query.charAt(0)) + query.substring(1), terms[i].getWeight());
+		}
+		return terms;
+	}
+
+	// one to four letter prefixes in random case
+	private static String[] mixedCasePrefixes(int count) {
+		Random random = new Random(18);
+		String[] prefixes = new String[count];
+		for (int i = 0; i < count; i++) {
+			char[] prefix = new char[1 + random.nextInt(4)];
+			for (int j = 0; j < prefix.length; j++) {
+				char c = (char) ('a' + random.nextInt(26));
+				prefix[j] = random.nextBoolean() ? Character.toUpperCase(c) : c;
+			}
+			prefixes[i] = new String(prefix);
+		}
+		return prefixes;
+	}
+
+	private static void compare(String label, Term[] terms, String[] prefixes) {
+		// the old layout: terms sorted and searched with per-char folding
+		long start = System.nanoTime();
+		final Term[] folded = terms.clone();
+		Arrays.sort(folded, Term.byPrefixOrder(Integer.MAX_VALUE));
+		double foldedSortMillis = (System.nanoTime() - start) / 1e6;
+
+		final Autocomplete keyed = new Autocomplete(terms);
+		BuildTimes times = keyed.buildTimes();
+
+		double foldedMicros = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				int[] range = BinarySearchDeluxe.equalRange(folded, new Term(prefix, 0),
+						Term.byPrefixOrder(prefix.length()));
+				return range[0] == -1 ? 0 : range[1] - range[0] + 1;
+			}
+		});
+		double keyedMicros = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return keyed.numberOfMatches(prefix);
+			}
+		});
+
+		System.out.printf("%-22s %8d terms%n", label, terms.length);
+		System.out.printf("  search   folding %8.3f us   keys %8.3f us%n", foldedMicros, keyedMicros);
+		System.out.printf("  build    folding sort %8.1f ms   keys %8.1f ms + sort %8.1f ms%n", foldedSortMillis,
+				times.getKeyNanos() / 1e6, times.getSortNanos() / 1e6);
+	}
+
+	// retained heap of the keys of n mixed-case terms
+	private static void keyFootprint(int n) {
+		Term[] terms = mixedCaseTerms(n);
+		long base = AutocompleteBenchmark.usedHeap();
+		String[] keys = new String[n];
+		for (int i = 0; i < n; i++) {
+			keys[i] = SearchKey.of(terms[i].getQuery(), false);
+		}
+		long used = AutocompleteBenchmark.usedHeap() - base;
+		System.out.printf("key footprint  %8d mixed-case terms   %6.1f bytes/term%n", keys.length, used / (double) n);
+	}
+
+	public static void main(String[] args) {
+		String[] prefixes = mixedCasePrefixes(1000);
+		compare("HailSatan.txt", AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA), prefixes);
+		compare("synthetic mixed case", mixedCaseTerms(1_000_000), prefixes);
+		keyFootprint(1_000_000);
+	}
+}
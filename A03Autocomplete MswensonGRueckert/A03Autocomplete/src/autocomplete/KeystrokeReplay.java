@@ -0,0 +1,195 @@
+package autocomplete;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Class KeystrokeReplay types recorded keystroke sequences into the Swing
+ * event thread and measures how long that thread is blocked, first with the
+ * lookup done inline on every keystroke, the way AutocompleteGUI used to,
+ * and then through a SuggestionPipeline.
+ *
+ * A recording is a text file with one typed sequence per line; every
+ * character is a keystroke and '&lt;' is a backspace. Without a recording a
+ * few built-in sequences are used. The lookup is a session top-k query with
+ * the results formatted to strings, as the GUI does.
+ *
+ * For each mode it reports the time the event thread spent on the
+ * keystrokes and the results, the longest single block, and the input lag:
+ * how long a keystroke waited before the event thread got to it.
+ *
+ * Usage: java autocomplete.KeystrokeReplay [terms.txt|-] [recording.txt]
+ * [millis between keys] [k]
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class KeystrokeReplay {
+	private static final String[] DEFAULT_RECORDING = { "metallica", "iron maiden<<<<<<<<<rn", "opeth - bl", "zz<<ab",
+			"slayer - reign" };
+
+	/**
+	 * Where the event thread's time went in one replay.
+	 */
+	private static class Stats {
+		private long busyNanos;
+		private long maxBlockNanos;
+		private long maxLagNanos;
+		private long totalLagNanos;
+		private int keystrokes;
+
+		// called on the event thread only
+		private void block(long nanos) {
+			busyNanos += nanos;
+			maxBlockNanos = Math.max(maxBlockNanos, nanos);
+		}
+
+		private void print(String label, String extra) {
+			System.out.printf("  %-9s EDT busy %9.1f ms   longest block %8.2f ms   lag avg %7.2f ms  max %8.2f ms%s%n",
+					label, busyNanos / 1e6, maxBlockNanos / 1e6, totalLagNanos / 1e6 / keystrokes, maxLagNanos / 1e6,
+					extra);
+		}
+	}
+
+	/**
+	 * What to run on the event thread for each keystroke.
+	 */
+	private interface Handler {
+		void keystroke(String text);
+	}
+
+	// the texts of the field after each keystroke of a recorded line
+	static List<String> texts(String line) {
+		List<String> texts = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		for (char c : line.toCharArray()) {
+			if (c == '<') {
+				if (field.length() > 0) {
+					field.setLength(field.length() - 1);
+				}
+			} else {
+				field.append(c);
+			}
+			texts.add(field.toString());
+		}
+		return texts;
+	}
+
+	// the top k of the session, formatted the way the drop-down shows them
+	private static SuggestionPipeline.Query<String[]> lookup(final AutocompleteSession session, final int k) {
+		return new SuggestionPipeline.Query<String[]>() {
+			public String[] run(String text) {
+				session.update(text);
+				Term[] matches = session.allMatches(k);
+				String[] formatted = new String[matches.length];
+				for (int i = 0; i < matches.length; i++) {
+					String next = matches[i].toString();
+					int tab = next.indexOf('\t');
+					formatted[i] = "<html><table><tr><td align=left>" + next.substring(tab + 1)
+							+ "<td align=right>" + next.substring(0, tab) + "</table></html>";
+				}
+				return formatted;
+			}
+		};
+	}
+
+	// type every recorded line into the event thread, one key every delay
+	private static Stats replay(String[] recording, long delayMillis, final Handler handler)
+			throws InterruptedException {
+		final Stats stats = new Stats();
+		for (String line : recording) {
+			for (final String text : texts(line)) {
+				final long posted = System.nanoTime();
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						long start = System.nanoTime();
+						stats.totalLagNanos += start - posted;
+						stats.maxLagNanos = Math.max(stats.maxLagNanos, start - posted);
+						stats.keystrokes++;
+						handler.keystroke(text);
+						stats.block(System.nanoTime() - start);
+					}
+				});
+				Thread.sleep(delayMillis);
+			}
+		}
+		return stats;
+	}
+
+	// wait until the event thread has run everything posted so far
+	private static void drainEventThread() throws InterruptedException {
+		final CountDownLatch done = new CountDownLatch(1);
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				done.countDown();
+			}
+		});
+		done.await();
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Term[] terms = args.length > 0 && !args[0].equals("-") ? TermLoader.load(args[0])
+				: AutocompleteBenchmark.syntheticTerms(2_000_000);
+		String[] recording = args.length > 1
+				? Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8).toArray(new String[0])
+				: DEFAULT_RECORDING;
+		long delayMillis = args.length > 2 ? Long.parseLong(args[2]) : 30;
+		int k = args.length > 3 ? Integer.parseInt(args[3]) : 3000;
+
+		Autocomplete auto = new Autocomplete(terms, true);
+		System.out.printf("%d terms, top %d, a key every %d ms, %d keystrokes%n", terms.length, k, delayMillis,
+				texts(String.join("", recording)).size());
+
+		// the JIT compiles the lookup before either mode is timed
+		SuggestionPipeline.Query<String[]> warmUp = lookup(auto.session(), k);
+		for (int i = 0; i < 20; i++) {
+			for (String line : recording) {
+				for (String text : texts(line)) {
+					warmUp.run(text);
+				}
+			}
+		}
+
+		final SuggestionPipeline.Query<String[]> inline = lookup(auto.session(), k);
+		// what the drop-down would show, so the results are not optimized away
+		final String[][] shown = new String[1][];
+		Stats blocking = replay(recording, delayMillis, new Handler() {
+			public void keystroke(String text) {
+				shown[0] = inline.run(text);
+			}
+		});
+		drainEventThread();
+		blocking.print("inline", "");
+
+		final Stats piped = new Stats();
+		final SuggestionPipeline<String[]> pipeline = new SuggestionPipeline<String[]>(lookup(auto.session(), k),
+				new SuggestionPipeline.Publisher<String[]>() {
+					public void publish(String text, String[] result) {
+						long start = System.nanoTime();
+						shown[0] = result;
+						piped.block(System.nanoTime() - start);
+					}
+				});
+		Stats typing = replay(recording, delayMillis, new Handler() {
+			public void keystroke(String text) {
+				pipeline.submit(text);
+			}
+		});
+		// let the last lookup finish and be published
+		TimeUnit.MILLISECONDS.sleep(SuggestionPipeline.DEFAULT_DEBOUNCE_MILLIS + 500);
+		drainEventThread();
+		typing.busyNanos += piped.busyNanos;
+		typing.maxBlockNanos = Math.max(typing.maxBlockNanos, piped.maxBlockNanos);
+		typing.print("pipeline",
+				String.format("   published %d, stale %d", pipeline.published(), pipeline.dropped()));
+		pipeline.close();
+	}
+}
@@ -0,0 +1,114 @@
+package autocomplete;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class LogHistogram counts non-negative values, such as latencies in
+ * nanoseconds or range sizes, in buckets that double in width: bucket 0
+ * holds 0 and bucket b holds [2^(b-1), 2^b). Recording is lock free and
+ * touches one striped counter per bucket, so threads recording at once
+ * rarely contend. Percentiles are exact to within a factor of two, which is
+ * plenty to tell a 2 us query from a 2 ms one.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class LogHistogram {
+	private static final int BUCKETS = 64;
+
+	private final LongAdder[] counts = new LongAdder[BUCKETS];
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Create an empty histogram.
+	 */
+	public LogHistogram() {
+		for (int b = 0; b < BUCKETS; b++) {
+			counts[b] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Count a value. Negative values, such as a clock going backwards,
+	 * count as 0.
+	 *
+	 * @param value
+	 *            the value
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts[BUCKETS - Long.numberOfLeadingZeros(value)].increment();
+		sum.add(value);
+		long seen = max.get();
+		while (value > seen && !max.compareAndSet(seen, value)) {
+			seen = max.get();
+		}
+	}
+
+	/**
+	 * Return the number of values recorded.
+	 *
+	 * @return count
+	 */
+	public long count() {
+		long count = 0;
+		for (LongAdder bucket : counts) {
+			count += bucket.sum();
+		}
+		return count;
+	}
+
+	/**
+	 * Return the counts of every bucket, bucket b holding the values in
+	 * [2^(b-1), 2^b).
+	 *
+	 * @return the bucket counts
+	 */
+	public long[] buckets() {
+		long[] buckets = new long[BUCKETS];
+		for (int b = 0; b < BUCKETS; b++) {
+			buckets[b] = counts[b].sum();
+		}
+		return buckets;
+	}
+
+	/**
+	 * Return a consistent-enough view of the histogram: count, mean, 50th,
+	 * 90th and 99th percentile and maximum. A percentile is the upper end of
+	 * the bucket it falls in, but never more than the maximum.
+	 *
+	 * @return the summary
+	 */
+	public HistogramSnapshot snapshot() {
+		long[] buckets = buckets();
+		long count = 0;
+		for (long bucket : buckets) {
+			count += bucket;
+		}
+		long largest = max.get();
+		double mean = count == 0 ? 0 : sum.sum() / (double) count;
+		return new HistogramSnapshot(count, mean, percentile(buckets, count, 0.5, largest),
+				percentile(buckets, count, 0.9, largest), percentile(buckets, count, 0.99, largest), largest);
+	}
+
+	private static long percentile(long[] buckets, long count, double fraction, long largest) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(fraction * count);
+		long seen = 0;
+		for (int b = 0; b < buckets.length; b++) {
+			seen += buckets[b];
+			if (seen >= rank) {
+				// (1L << 63) - 1 wraps around to Long.MAX_VALUE, the top of the last bucket
+				long upper = b == 0 ? 0 : (1L << b) - 1;
+				return Math.min(upper, largest);
+			}
+		}
+		return largest;
+	}
+}
@@ -0,0 +1,197 @@
+package autocomplete;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Class MappedAutocomplete answers queries straight from an index file
+ * written by IndexFile. The file is memory-mapped read-only and searched in
+ * place: nothing is parsed, sorted or copied at startup, so opening even a
+ * large index only costs the page faults of the pages that queries touch.
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class MappedAutocomplete implements AutocompleteEngine {
+	private final IntBuffer offsets;
+	private final DoubleBuffer weights;
+	private final CharBuffer chars;
+	private final RangeMaxIndex heaviest;
+
+	/**
+	 * Map the given index file.
+	 * 
+	 * @param filename
+	 *            index file written by IndexFile
+	 * @throws IOException
+	 *             if the file cannot be read or is not a supported index file
+	 */
+	public MappedAutocomplete(String filename) throws IOException {
+		if (filename == null) {
+			throw new NullPointerException();
+		}
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			ByteBuffer header = map(channel, 0, IndexFile.HEADER_BYTES);
+			if (header.getInt(0) != IndexFile.MAGIC) {
+				throw new IOException(filename + " is not an index file");
+			}
+			if (header.getInt(4) != IndexFile.VERSION) {
+				throw new IOException(filename + " has unsupported index version " + header.getInt(4));
+			}
+			int n = header.getInt(8);
+			int charCount = header.getInt(12);
+			if (n < 0 || charCount < 0) {
+				throw new IOException(filename + " is corrupt: " + n + " terms, " + charCount + " chars");
+			}
+
+			long position = IndexFile.HEADER_BYTES;
+			offsets = map(channel, position, 4L * (n + 1)).asIntBuffer();
+			position = IndexFile.next(position, 4L * (n + 1));
+			weights = map(channel, position, 8L * n).asDoubleBuffer();
+			position = IndexFile.next(position, 8L * n);
+			IntBuffer tree = map(channel, position, 8L * n).asIntBuffer();
+			position = IndexFile.next(position, 8L * n);
+			chars = map(channel, position, 2L * charCount).asCharBuffer();
+			heaviest = new RangeMaxIndex(weights, tree);
+		}
+	}
+
+	private static ByteBuffer map(FileChannel channel, long position, long bytes) throws IOException {
+		if (bytes > Integer.MAX_VALUE) {
+			throw new IOException("index section of " + bytes + " bytes is too large to map");
+		}
+		if (position + bytes > channel.size()) {
+			throw new IOException("index file is truncated");
+		}
+		return channel.map(MapMode.READ_ONLY, position, bytes).order(IndexFile.ORDER);
+	}
+
+	/**
+	 * Return all terms that start with the given prefix, in descending order of
+	 * weight.
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @return array of matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		int[] range = range(prefix);
+		int first = range[0];
+		if (first == -1) {
+			return new Term[0];
+		}
+		int last = range[1];
+
+		Term[] matches = new Term[last - first + 1];
+		for (int i = 0; i < matches.length; i++) {
+			matches[i] = termAt(first + i);
+		}
+		Arrays.sort(matches, Term.byReverseWeightOrder());
+		return matches;
+	}
+
+	/**
+	 * Return the k heaviest terms that start with the given prefix, in
+	 * descending order of weight.
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @param k
+	 *            maximum number of terms to return
+	 * @return array of at most k matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix, int k) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		int[] range = range(prefix);
+		int first = range[0];
+		if (first == -1 || k == 0) {
+			return new Term[0];
+		}
+		int last = range[1];
+
+		int[] top = heaviest.topK(first, last, k);
+		Term[] matches = new Term[top.length];
+		for (int i = 0; i < matches.length; i++) {
+			matches[i] = termAt(top[i]);
+		}
+		return matches;
+	}
+
+	/**
+	 * Return the number of terms that start with the given prefix.
+	 * 
+	 * @param prefix
+	 * @return number of terms with matching prefix
+	 */
+	public int numberOfMatches(String prefix) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		int[] range = range(prefix);
+		return range[0] == -1 ? 0 : range[1] - range[0] + 1;
+	}
+
+	/**
+	 * Return the number of terms in the index.
+	 * 
+	 * @return number of terms
+	 */
+	public int size() {
+		return weights.limit();
+	}
+
+	/**
+	 * Return the i-th term in lexicographic order.
+	 * 
+	 * @param i
+	 *            index of the term
+	 * @return a new Term read from the mapped file
+	 */
+	public Term termAt(int i) {
+		int start = offsets.get(i);
+		char[] query = new char[offsets.get(i + 1) - start];
+		for (int j = 0; j < query.length; j++) {
+			query[j] = chars.get(start + j);
+		}
+		return new Term(new String(query), weights.get(i));
+	}
+
+	// first and last index whose query starts with prefix, or {-1, -1}
+	private int[] range(final String prefix) {
+		return BinarySearchDeluxe.equalRange(0, size() - 1, new BinarySearchDeluxe.IndexComparator() {
+			public int compareTo(int i) {
+				return comparePrefix(prefix, i);
+			}
+		});
+	}
+
+	// Term.byPrefixOrder(prefix.length()) applied to the prefix and query i
+	private int comparePrefix(String prefix, int i) {
+		int start = offsets.get(i);
+		int r = prefix.length();
+		int length = Math.min(r, offsets.get(i + 1) - start);
+		for (int j = 0; j < length; j++) {
+			int cmp = Term.compareIgnoreCase(prefix.charAt(j), chars.get(start + j));
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return r - length;
+	}
+}
@@ -0,0 +1,162 @@
+package autocomplete;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Class Matches walks the terms that start with a prefix in descending order
+ * of weight, in the order allMatches returns them, without sorting the
+ * range first: each term is pulled from the range maximum index in
+ * O(log n). A page of k terms costs O(k log n) however many terms match.
+ *
+ * cursor returns an opaque string for the position reached, and
+ * Autocomplete.matches(prefix, cursor) carries on from it, so the next page
+ * does not walk the earlier ones again. A cursor holds the ranges not yet
+ * walked with the heaviest index of each, at most one more range than the
+ * terms walked, and only works with the prefix and terms it came from.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class Matches implements Iterator<Term> {
+	private static final byte VERSION = 1;
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private final Term[] terms;
+	// range of the prefix in terms, {-1, -1} if nothing matches
+	private final int first;
+	private final int last;
+	private final RangeMaxIndex.Walk walk;
+
+	private Matches(Term[] terms, int first, int last, RangeMaxIndex.Walk walk) {
+		this.terms = terms;
+		this.first = first;
+		this.last = last;
+		this.walk = walk;
+	}
+
+	/**
+	 * Start at the heaviest term of terms[first..last].
+	 *
+	 * @param terms
+	 *            terms in search order
+	 * @param heaviest
+	 *            range maximum index over their weights
+	 * @param first
+	 *            first index of the prefix, or -1 for none
+	 * @param last
+	 *            last index of the prefix
+	 * @return matches from the heaviest
+	 */
+	static Matches start(Term[] terms, RangeMaxIndex heaviest, int first, int last) {
+		if (first == -1) {
+			return new Matches(terms, first, last, heaviest.walk(new int[0], new int[0]));
+		}
+		return new Matches(terms, first, last, heaviest.walk(first, last));
+	}
+
+	/**
+	 * Carry on from a cursor given out by matches over the same prefix range.
+	 *
+	 * @param terms
+	 *            terms in search order
+	 * @param heaviest
+	 *            range maximum index over their weights
+	 * @param first
+	 *            first index of the prefix, or -1 for none
+	 * @param last
+	 *            last index of the prefix
+	 * @param cursor
+	 *            the cursor
+	 * @return matches from where the cursor was taken
+	 * @throws IllegalArgumentException
+	 *             if the cursor is malformed or from another prefix or terms
+	 */
+	static Matches resume(Term[] terms, RangeMaxIndex heaviest, int first, int last, String cursor) {
+		if (cursor == null) {
+			throw new NullPointerException();
+		}
+		try {
+			ByteBuffer in = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor));
+			if (in.get() != VERSION || in.getInt() != terms.length || in.getInt() != first
+					|| in.getInt() != last) {
+				throw new IllegalArgumentException("cursor is not for this prefix");
+			}
+			int count = in.getInt();
+			if (count < 0 || count > in.remaining() / 12) {
+				throw new IllegalArgumentException("bad cursor");
+			}
+			int[][] frontier = new int[count][];
+			// ranges must be inside the prefix, in order and disjoint
+			int previous = first - 1;
+			for (int i = 0; i < count; i++) {
+				frontier[i] = new int[] { in.getInt(), in.getInt(), in.getInt() };
+				if (frontier[i][0] <= previous || frontier[i][1] > last) {
+					throw new IllegalArgumentException("bad cursor");
+				}
+				previous = frontier[i][1];
+			}
+			if (in.hasRemaining()) {
+				throw new IllegalArgumentException("bad cursor");
+			}
+			return new Matches(terms, first, last, heaviest.resume(frontier));
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("bad cursor", e);
+		} catch (IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("bad cursor", e);
+		}
+	}
+
+	public boolean hasNext() {
+		return walk.hasNext();
+	}
+
+	/**
+	 * Return the heaviest match not yet returned.
+	 *
+	 * @throws NoSuchElementException
+	 *             if every match has been returned
+	 */
+	public Term next() {
+		return terms[walk.nextInt()];
+	}
+
+	/**
+	 * Return the next k matches, or fewer if fewer are left.
+	 *
+	 * @param k
+	 *            maximum number of terms to return
+	 * @return at most k terms sorted by weight
+	 */
+	public Term[] next(int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		Term[] page = new Term[first == -1 ? 0 : Math.min(k, last - first + 1)];
+		int count = 0;
+		while (count < page.length && walk.hasNext()) {
+			page[count++] = next();
+		}
+		return count == page.length ? page : Arrays.copyOf(page, count);
+	}
+
+	/**
+	 * Return an opaque cursor for the position reached, to carry on from
+	 * with Autocomplete.matches(prefix, cursor).
+	 *
+	 * @return the cursor
+	 */
+	public String cursor() {
+		int[][] remaining = walk.remaining();
+		ByteBuffer out = ByteBuffer.allocate(1 + 4 * 4 + 12 * remaining.length);
+		out.put(VERSION).putInt(terms.length).putInt(first).putInt(last).putInt(remaining.length);
+		for (int[] range : remaining) {
+			out.putInt(range[0]).putInt(range[1]).putInt(range[2]);
+		}
+		return ENCODER.encodeToString(out.array());
+	}
+}
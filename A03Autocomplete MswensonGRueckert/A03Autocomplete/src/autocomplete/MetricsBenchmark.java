@@ -0,0 +1,74 @@
+package autocomplete;
+
+/**
+ * Class MetricsBenchmark checks what QueryMetrics costs. Top-k and
+ * numberOfMatches queries are timed three ways on the same index: through
+ * the package-private range and topK steps, which is the query without any
+ * instrumentation; through the public methods with metrics off; and with
+ * metrics on. With metrics off the public methods should be as fast as the
+ * bare steps.
+ *
+ * Usage: java autocomplete.MetricsBenchmark [terms] [k]
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class MetricsBenchmark {
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		final int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		final Autocomplete auto = new Autocomplete(AutocompleteBenchmark.syntheticTerms(n));
+		String[] prefixes = BatchBenchmark.shortPrefixes(3);
+
+		AutocompleteBenchmark.Query bareTopK = new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				int[] range = auto.range(prefix);
+				return auto.topK(range[0], range[1], k).length;
+			}
+		};
+		AutocompleteBenchmark.Query topK = new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return auto.allMatches(prefix, k).length;
+			}
+		};
+		AutocompleteBenchmark.Query bareCount = new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				int[] range = auto.range(prefix);
+				return range[0] == -1 ? 0 : range[1] - range[0] + 1;
+			}
+		};
+		AutocompleteBenchmark.Query count = new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return auto.numberOfMatches(prefix);
+			}
+		};
+
+		// every variant runs once before any is measured, so none of them
+		// is timed while the others are still being compiled
+		for (AutocompleteBenchmark.Query query : new AutocompleteBenchmark.Query[] { bareTopK, topK, bareCount,
+				count }) {
+			AutocompleteBenchmark.time(prefixes, query);
+		}
+
+		double bareTopKMicros = AutocompleteBenchmark.time(prefixes, bareTopK);
+		double offTopKMicros = AutocompleteBenchmark.time(prefixes, topK);
+		double bareCountMicros = AutocompleteBenchmark.time(prefixes, bareCount);
+		double offCountMicros = AutocompleteBenchmark.time(prefixes, count);
+		QueryMetrics metrics = new QueryMetrics();
+		auto.setMetrics(metrics);
+		double onTopKMicros = AutocompleteBenchmark.time(prefixes, topK);
+		double onCountMicros = AutocompleteBenchmark.time(prefixes, count);
+		auto.setMetrics(null);
+
+		System.out.printf("%d terms, %d prefixes of one to three letters%n", n, prefixes.length);
+		System.out.printf("  top %-3d          bare %8.3f us   metrics off %8.3f us (%+5.1f%%)   on %8.3f us (%+5.1f%%)%n",
+				k, bareTopKMicros, offTopKMicros, 100 * (offTopKMicros / bareTopKMicros - 1), onTopKMicros,
+				100 * (onTopKMicros / bareTopKMicros - 1));
+		System.out.printf("  numberOfMatches  bare %8.3f us   metrics off %8.3f us (%+5.1f%%)   on %8.3f us (%+5.1f%%)%n",
+				bareCountMicros, offCountMicros, 100 * (offCountMicros / bareCountMicros - 1), onCountMicros,
+				100 * (onCountMicros / bareCountMicros - 1));
+		System.out.println();
+		System.out.print(metrics);
+	}
+}
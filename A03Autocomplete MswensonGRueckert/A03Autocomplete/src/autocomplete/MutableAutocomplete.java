@@ -0,0 +1,495 @@
+package autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Class MutableAutocomplete is an Autocomplete that takes new terms, removals
+ * and weight changes without re-sorting everything. It is a small log
+ * structured merge: writes go into a sorted delta, queries merge the delta
+ * with an immutable sorted base, and once the delta reaches the merge
+ * threshold it is merged into a new base in one linear pass.
+ *
+ * Terms are identified by their exact query, matching case. Writes take a
+ * lock and publish a new state, the base with a copy of the delta, through
+ * a volatile field, the way SnapshotAutocomplete swaps engines; queries read
+ * the state once and never lock. A merge builds the new base outside the
+ * write lock, so writes keep landing in the delta while it runs and are
+ * carried over into the state it publishes.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class MutableAutocomplete implements AutocompleteEngine {
+	/**
+	 * Number of pending writes at which the delta is merged by default.
+	 */
+	public static final int DEFAULT_MERGE_THRESHOLD = 4096;
+
+	private static final Comparator<Term> REVERSE_WEIGHT = Term.byReverseWeightOrder();
+
+	private final int mergeThreshold;
+	// held by put, remove and adjustWeight and to publish a merge
+	private final Object writeLock = new Object();
+	// held for a whole merge, so only one runs at a time
+	private final ReentrantLock mergeLock = new ReentrantLock();
+	private volatile State state;
+
+	/**
+	 * Where a query sits in the delta: search key order first, the same
+	 * order as the base, so every prefix match is one run of queries, then
+	 * the exact query. The key is folded once, not on every comparison.
+	 */
+	private static class DeltaKey implements Comparable<DeltaKey> {
+		private final String key;
+		private final String query;
+
+		private DeltaKey(String query) {
+			this(SearchKey.of(query, false), query);
+		}
+
+		private DeltaKey(String key, String query) {
+			this.key = key;
+			this.query = query;
+		}
+
+		public int compareTo(DeltaKey that) {
+			int cmp = key.compareTo(that.key);
+			return cmp != 0 ? cmp : query.compareTo(that.query);
+		}
+	}
+
+	/**
+	 * A pending write: the new term, or null if the query was removed.
+	 */
+	private static class Write {
+		private final DeltaKey at;
+		private final String key;
+		private final Term term;
+		private final boolean inBase;
+
+		private Write(DeltaKey at, Term term, boolean inBase) {
+			this.at = at;
+			this.key = at.key;
+			this.term = term;
+			this.inBase = inBase;
+		}
+	}
+
+	/**
+	 * A base and the writes pending against it. A state is never changed
+	 * once published; a write copies the delta, which the merge threshold
+	 * keeps small.
+	 */
+	private static class State {
+		private final Autocomplete base;
+		// in DeltaKey order
+		private final Write[] delta;
+
+		private State(Autocomplete base, Write[] delta) {
+			this.base = base;
+			this.delta = delta;
+		}
+
+		// index of the write at the given position, or -(insertion point) - 1
+		private int indexOf(DeltaKey at) {
+			int lo = 0;
+			int hi = delta.length - 1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				int cmp = delta[mid].at.compareTo(at);
+				if (cmp < 0) {
+					lo = mid + 1;
+				} else if (cmp > 0) {
+					hi = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -lo - 1;
+		}
+
+		private boolean written(String query) {
+			return indexOf(new DeltaKey(query)) >= 0;
+		}
+
+		// the state with the write at its position added, replaced, or
+		// removed if write is null
+		private State with(DeltaKey at, Write write) {
+			int i = indexOf(at);
+			Write[] next;
+			if (i >= 0 && write != null) {
+				next = delta.clone();
+				next[i] = write;
+			} else if (i >= 0) {
+				next = new Write[delta.length - 1];
+				System.arraycopy(delta, 0, next, 0, i);
+				System.arraycopy(delta, i + 1, next, i, next.length - i);
+			} else if (write != null) {
+				i = -i - 1;
+				next = new Write[delta.length + 1];
+				System.arraycopy(delta, 0, next, 0, i);
+				next[i] = write;
+				System.arraycopy(delta, i, next, i + 1, delta.length - i);
+			} else {
+				return this;
+			}
+			return new State(base, next);
+		}
+
+		// current weight of the query, or -1 if there is no such term
+		private double weightOf(String query) {
+			if (query == null) {
+				throw new NullPointerException();
+			}
+			int w = indexOf(new DeltaKey(query));
+			if (w >= 0) {
+				return delta[w].term == null ? -1 : delta[w].term.getWeight();
+			}
+			int i = base.indexOf(query);
+			return i < 0 ? -1 : base.terms()[i].getWeight();
+		}
+
+		// pending writes whose query starts with prefix, ignoring case; they
+		// are one run in key order, found from where the prefix's key would go
+		private List<Write> pending(String prefix) {
+			String key = SearchKey.of(prefix, false);
+			Comparator<String> byPrefix = SearchKey.byPrefixOrder(key.length());
+			int at = indexOf(new DeltaKey(key, prefix));
+			int i = at >= 0 ? at : -at - 1;
+			int first = i;
+			while (first > 0 && byPrefix.compare(delta[first - 1].key, key) == 0) {
+				first--;
+			}
+			List<Write> writes = new ArrayList<Write>();
+			for (int j = first; j < delta.length && byPrefix.compare(delta[j].key, key) == 0; j++) {
+				writes.add(delta[j]);
+			}
+			return writes;
+		}
+	}
+
+	/**
+	 * Initialize the data structure from the given array of terms, merging
+	 * writes every DEFAULT_MERGE_THRESHOLD writes.
+	 *
+	 * @param terms
+	 *            initial terms
+	 */
+	public MutableAutocomplete(Term[] terms) {
+		this(terms, DEFAULT_MERGE_THRESHOLD);
+	}
+
+	/**
+	 * Initialize the data structure from the given array of terms.
+	 *
+	 * @param terms
+	 *            initial terms
+	 * @param mergeThreshold
+	 *            number of pending writes that triggers a merge
+	 */
+	public MutableAutocomplete(Term[] terms, int mergeThreshold) {
+		if (mergeThreshold < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.state = new State(new Autocomplete(terms), new Write[0]);
+		this.mergeThreshold = mergeThreshold;
+	}
+
+	/**
+	 * Add a term, or replace the weight of the term with the same query.
+	 *
+	 * @param query
+	 *            the query
+	 * @param weight
+	 *            its new weight
+	 */
+	public void put(String query, double weight) {
+		Term term = new Term(query, weight);
+		synchronized (writeLock) {
+			write(query, term);
+		}
+		mergeIfFull();
+	}
+
+	/**
+	 * Remove the term with the given query.
+	 *
+	 * @param query
+	 *            the query
+	 * @return true if there was such a term
+	 */
+	public boolean remove(String query) {
+		synchronized (writeLock) {
+			if (state.weightOf(query) < 0) {
+				return false;
+			}
+			write(query, null);
+		}
+		mergeIfFull();
+		return true;
+	}
+
+	/**
+	 * Add delta to the weight of the term with the given query.
+	 *
+	 * @param query
+	 *            the query
+	 * @param delta
+	 *            amount to add, may be negative
+	 * @return the new weight
+	 * @throws NoSuchElementException
+	 *             if there is no term with the query
+	 * @throws IllegalArgumentException
+	 *             if the new weight would be negative
+	 */
+	public double adjustWeight(String query, double delta) {
+		Term term;
+		synchronized (writeLock) {
+			double weight = state.weightOf(query);
+			if (weight < 0) {
+				throw new NoSuchElementException(query);
+			}
+			term = new Term(query, weight + delta);
+			write(query, term);
+		}
+		mergeIfFull();
+		return term.getWeight();
+	}
+
+	/**
+	 * Return the number of writes that have not been merged yet.
+	 *
+	 * @return pending writes
+	 */
+	public int pendingWrites() {
+		return state.delta.length;
+	}
+
+	/**
+	 * Merge the pending writes into the sorted base now. Queries are served
+	 * from the old base until the new one is published, and writes made
+	 * meanwhile stay pending against the new base.
+	 */
+	public void merge() {
+		mergeLock.lock();
+		try {
+			State merging = state;
+			if (merging.delta.length == 0) {
+				return;
+			}
+			Autocomplete merged = merge(merging.base, merging.delta);
+			synchronized (writeLock) {
+				state = new State(merged, carryOver(merging.delta, state.delta, merged));
+			}
+		} finally {
+			mergeLock.unlock();
+		}
+	}
+
+	// the base with the writes applied, in one pass since both are in key order
+	private static Autocomplete merge(Autocomplete base, Write[] delta) {
+		Set<String> written = new HashSet<String>();
+		for (Write write : delta) {
+			written.add(write.at.query);
+		}
+		Term[] terms = base.terms();
+		String[] keys = base.keys();
+		List<Term> mergedTerms = new ArrayList<Term>(terms.length + delta.length);
+		List<String> mergedKeys = new ArrayList<String>(terms.length + delta.length);
+		int i = 0;
+		for (Write write : delta) {
+			for (; i < terms.length && keys[i].compareTo(write.key) <= 0; i++) {
+				if (!written.contains(terms[i].getQuery())) {
+					mergedTerms.add(terms[i]);
+					mergedKeys.add(keys[i]);
+				}
+			}
+			if (write.term != null) {
+				mergedTerms.add(write.term);
+				mergedKeys.add(write.key);
+			}
+		}
+		for (; i < terms.length; i++) {
+			if (!written.contains(terms[i].getQuery())) {
+				mergedTerms.add(terms[i]);
+				mergedKeys.add(keys[i]);
+			}
+		}
+		return Autocomplete.ofSorted(mergedTerms.toArray(new Term[mergedTerms.size()]),
+				mergedKeys.toArray(new String[mergedKeys.size()]));
+	}
+
+	// the writes in now that were made after merged was built from the writes
+	// in before, pending against merged. A query in before but gone from now
+	// was removed, and was in neither base.
+	private static Write[] carryOver(Write[] before, Write[] now, Autocomplete merged) {
+		List<Write> pending = new ArrayList<Write>();
+		int i = 0;
+		int j = 0;
+		while (i < before.length || j < now.length) {
+			int cmp = i == before.length ? 1 : j == now.length ? -1 : before[i].at.compareTo(now[j].at);
+			if (cmp == 0 && before[i] == now[j]) {
+				i++;
+				j++;
+				continue;
+			}
+			DeltaKey at = cmp <= 0 ? before[i].at : now[j].at;
+			Term term = cmp < 0 ? null : now[j].term;
+			boolean inBase = merged.indexOf(at.query) >= 0;
+			if (term != null || inBase) {
+				pending.add(new Write(at, term, inBase));
+			}
+			if (cmp <= 0) {
+				i++;
+			}
+			if (cmp >= 0) {
+				j++;
+			}
+		}
+		return pending.toArray(new Write[pending.size()]);
+	}
+
+	/**
+	 * Return all the terms that start with the given prefix, in descending
+	 * order of weight: the base's matches that no pending write replaces or
+	 * removes, and the pending terms.
+	 *
+	 * @param prefix
+	 *            the prefix entered
+	 * @return array of all matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		State current = state;
+		List<Term> matches = new ArrayList<Term>();
+		for (Term term : current.base.allMatches(prefix)) {
+			if (!current.written(term.getQuery())) {
+				matches.add(term);
+			}
+		}
+		for (Write write : current.pending(prefix)) {
+			if (write.term != null) {
+				matches.add(write.term);
+			}
+		}
+		Term[] sorted = matches.toArray(new Term[matches.size()]);
+		Arrays.sort(sorted, REVERSE_WEIGHT);
+		return sorted;
+	}
+
+	/**
+	 * Return the k heaviest terms that start with the given prefix, in
+	 * descending order of weight. The base is asked for extra terms to make up
+	 * for the ones the pending writes replace or remove, and the survivors are
+	 * merged with the pending terms.
+	 *
+	 * @param prefix
+	 *            the prefix entered
+	 * @param k
+	 *            maximum number of terms to return
+	 * @return array of at most k matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix, int k) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		State current = state;
+		List<Write> writes = current.pending(prefix);
+		List<Term> added = new ArrayList<Term>();
+		for (Write write : writes) {
+			if (write.term != null) {
+				added.add(write.term);
+			}
+		}
+		Collections.sort(added, REVERSE_WEIGHT);
+
+		// most pending writes are not among the heaviest matches, so start
+		// with a little slack and grow only if too many results were hidden
+		List<Term> kept = new ArrayList<Term>();
+		int wanted = k + Math.min(k, writes.size());
+		while (true) {
+			Term[] top = current.base.allMatches(prefix, wanted);
+			kept.clear();
+			for (Term term : top) {
+				if (!current.written(term.getQuery())) {
+					kept.add(term);
+				}
+			}
+			if (kept.size() >= k || top.length < wanted) {
+				break;
+			}
+			wanted = wanted > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : 2 * wanted;
+		}
+
+		Term[] matches = new Term[Math.min(k, kept.size() + added.size())];
+		int i = 0;
+		int j = 0;
+		for (int m = 0; m < matches.length; m++) {
+			if (j == added.size() || i < kept.size() && REVERSE_WEIGHT.compare(kept.get(i), added.get(j)) <= 0) {
+				matches[m] = kept.get(i++);
+			} else {
+				matches[m] = added.get(j++);
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Return the number of terms that start with the given prefix: the base's
+	 * count, corrected by the pending writes that add a term the base lacks
+	 * or remove one it has.
+	 *
+	 * @param prefix
+	 *            the prefix entered
+	 * @return number of matching terms
+	 */
+	public int numberOfMatches(String prefix) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		State current = state;
+		int count = current.base.numberOfMatches(prefix);
+		for (Write write : current.pending(prefix)) {
+			if (write.term != null && !write.inBase) {
+				count++;
+			} else if (write.term == null && write.inBase) {
+				count--;
+			}
+		}
+		return count;
+	}
+
+	// publish the write; the caller holds writeLock
+	private void write(String query, Term term) {
+		State current = state;
+		DeltaKey at = new DeltaKey(query);
+		int i = current.indexOf(at);
+		boolean inBase = i >= 0 ? current.delta[i].inBase : current.base.indexOf(query) >= 0;
+		state = current.with(at, term == null && !inBase ? null : new Write(at, term, inBase));
+	}
+
+	// merge once the delta is full, unless a merge is already running; that
+	// one leaves the writes made meanwhile for the next
+	private void mergeIfFull() {
+		if (state.delta.length >= mergeThreshold && mergeLock.tryLock()) {
+			try {
+				merge();
+			} finally {
+				mergeLock.unlock();
+			}
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package autocomplete;
+
+import java.util.Random;
+
+/**
+ * Class MutableBenchmark measures the cost of weight updates on
+ * MutableAutocomplete, merges included, against rebuilding an Autocomplete
+ * from scratch, and the query cost of a full delta.
+ * 
+ * Usage: java autocomplete.MutableBenchmark [syntheticTerms] [updates]
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class MutableBenchmark {
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int updates = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+		Term[] terms = AutocompleteBenchmark.syntheticTerms(n);
+
+		long start = System.nanoTime();
+		new Autocomplete(terms);
+		double rebuild = (System.nanoTime() - start) / 1e6;
+
+		final MutableAutocomplete mutable = new MutableAutocomplete(terms);
+		Random random = new Random(11);
+		start = System.nanoTime();
+		for (int i = 0; i < updates; i++) {
+			Term term = terms[random.nextInt(n)];
+			mutable.adjustWeight(term.getQuery(), random.nextInt(100));
+		}
+		double updateMicros = (System.nanoTime() - start) / 1e3 / updates;
+
+		start = System.nanoTime();
+		mutable.merge();
+		double merge = (System.nanoTime() - start) / 1e6;
+
+		for (int i = 0; i < MutableAutocomplete.DEFAULT_MERGE_THRESHOLD - 1; i++) {
+			mutable.put(terms[random.nextInt(n)].getQuery(), random.nextInt(1000));
+		}
+		String[] prefixes = { "a", "m", "q", "abc", "mno" };
+		double query = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return mutable.allMatches(prefix, 10).length;
+			}
+		});
+
+		System.out.printf("%d terms, %d updates%n", n, updates);
+		System.out.printf("  full rebuild            %10.1f ms%n", rebuild);
+		System.out.printf("  adjustWeight, amortized %10.2f us%n", updateMicros);
+		System.out.printf("  one merge               %10.1f ms%n", merge);
+		System.out.printf("  allMatches(p, 10), %d pending %8.2f us%n", mutable.pendingWrites(), query);
+	}
+}
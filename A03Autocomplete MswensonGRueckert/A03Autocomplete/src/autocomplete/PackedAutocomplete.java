@@ -0,0 +1,331 @@
+package autocomplete;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Class PackedAutocomplete answers the same queries as Autocomplete but
+ * stores the terms as a struct of arrays instead of a Term[]. All queries
+ * are laid end to end in one char arena, an int[] holds where each query
+ * starts, and a parallel double[] holds the weights. That removes the
+ * Term, String and char array headers of every entry. Term objects are only
+ * created for the results that are returned.
+ * 
+ * The arena is a single char[], so the total length of all queries must be
+ * below 2^31 characters.
+ * 
+ * Sorting is done on the packed arrays through an int[] permutation, so a
+ * build never holds more than the caller's terms and about two copies of
+ * the packed arrays. load builds straight from a term file without any
+ * Term[], for indexes whose terms would not fit in the heap as objects.
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class PackedAutocomplete implements AutocompleteEngine {
+	private final char[] chars;
+	// query i is chars[offsets[i]..offsets[i + 1])
+	private final int[] offsets;
+	private final double[] weights;
+	private final RangeMaxIndex heaviest;
+
+	/**
+	 * Initialize the data structure from the given array of terms.
+	 * 
+	 * @param terms
+	 *            list of terms to be sorted and packed
+	 */
+	public PackedAutocomplete(Term[] terms) {
+		this(Packer.of(terms).sorted());
+	}
+
+	private PackedAutocomplete(Packer sorted) {
+		chars = sorted.chars;
+		offsets = sorted.offsets;
+		weights = sorted.weights;
+		heaviest = new RangeMaxIndex(weights);
+	}
+
+	/**
+	 * Build the index straight from a term file, or a classpath resource if
+	 * no such file exists. Terms are packed as they are read and never held
+	 * as objects, so the peak heap is about twice the packed index rather
+	 * than a Term[] of the whole file.
+	 * 
+	 * @param filename
+	 *            term file in the format TermLoader reads
+	 * @return the index of the file's terms
+	 * @throws IOException
+	 *             if the file cannot be read or is malformed
+	 */
+	public static PackedAutocomplete load(String filename) throws IOException {
+		Packer packer = new Packer();
+		TermLoader.stream(filename, packer);
+		return new PackedAutocomplete(packer.sorted());
+	}
+
+	/**
+	 * Packed arrays as they are filled, in the order the terms arrive.
+	 */
+	private static class Packer implements TermLoader.TermSink {
+		private char[] chars = new char[16];
+		private int[] offsets = new int[1];
+		private double[] weights = new double[0];
+		private int n;
+		private int length;
+
+		static Packer of(Term[] terms) {
+			if (terms == null) {
+				throw new IllegalArgumentException();
+			}
+			long totalLength = 0;
+			for (Term term : terms) {
+				totalLength += term.getQuery().length();
+			}
+			checkLength(totalLength);
+			Packer packer = new Packer();
+			packer.chars = new char[(int) totalLength];
+			packer.expect(terms.length);
+			for (Term term : terms) {
+				packer.accept(term.getQuery(), term.getWeight());
+			}
+			return packer;
+		}
+
+		private static void checkLength(long totalLength) {
+			if (totalLength > Integer.MAX_VALUE - 8) {
+				throw new IllegalArgumentException("queries too long to pack: " + totalLength + " chars");
+			}
+		}
+
+		public void expect(int count) {
+			offsets = Arrays.copyOf(offsets, count + 1);
+			weights = Arrays.copyOf(weights, count);
+		}
+
+		public void accept(String query, double weight) {
+			if (n == weights.length) {
+				expect(Math.max(16, 2 * n));
+			}
+			if (query.length() > chars.length - length) {
+				long needed = (long) length + query.length();
+				checkLength(needed);
+				chars = Arrays.copyOf(chars, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, 2L * chars.length)));
+			}
+			query.getChars(0, query.length(), chars, length);
+			offsets[n] = length;
+			weights[n] = weight;
+			length += query.length();
+			n++;
+		}
+
+		/**
+		 * Return the terms packed exactly in the order comparePrefix searches,
+		 * ignoring case, so that "iron maiden" and "Iron Maiden" land in one
+		 * run. Equal queries keep the order they arrived in.
+		 */
+		Packer sorted() {
+			offsets[n] = length;
+			int[] order = new int[n];
+			for (int i = 0; i < n; i++) {
+				order[i] = i;
+			}
+			mergeSort(order, new int[n], 0, n);
+
+			Packer sorted = new Packer();
+			sorted.chars = new char[length];
+			sorted.offsets = new int[n + 1];
+			sorted.weights = new double[n];
+			for (int i = 0; i < n; i++) {
+				int j = order[i];
+				int start = offsets[j];
+				int queryLength = offsets[j + 1] - start;
+				System.arraycopy(chars, start, sorted.chars, sorted.length, queryLength);
+				sorted.offsets[i] = sorted.length;
+				sorted.weights[i] = weights[j];
+				sorted.length += queryLength;
+			}
+			sorted.n = n;
+			sorted.offsets[n] = sorted.length;
+			return sorted;
+		}
+
+		// stable sort of order[lo..hi) by the queries the entries name
+		private void mergeSort(int[] order, int[] scratch, int lo, int hi) {
+			if (hi - lo <= 16) {
+				for (int i = lo + 1; i < hi; i++) {
+					int entry = order[i];
+					int j = i;
+					for (; j > lo && compare(order[j - 1], entry) > 0; j--) {
+						order[j] = order[j - 1];
+					}
+					order[j] = entry;
+				}
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			mergeSort(order, scratch, lo, mid);
+			mergeSort(order, scratch, mid, hi);
+			if (compare(order[mid - 1], order[mid]) <= 0) {
+				return;
+			}
+			System.arraycopy(order, lo, scratch, lo, hi - lo);
+			for (int i = lo, left = lo, right = mid; i < hi; i++) {
+				if (right == hi || (left < mid && compare(scratch[left], scratch[right]) <= 0)) {
+					order[i] = scratch[left++];
+				} else {
+					order[i] = scratch[right++];
+				}
+			}
+		}
+
+		// Term.byPrefixOrder(Integer.MAX_VALUE) applied to queries i and j
+		private int compare(int i, int j) {
+			int start1 = offsets[i];
+			int start2 = offsets[j];
+			int length1 = offsets[i + 1] - start1;
+			int length2 = offsets[j + 1] - start2;
+			int common = Math.min(length1, length2);
+			for (int c = 0; c < common; c++) {
+				int cmp = Term.compareIgnoreCase(chars[start1 + c], chars[start2 + c]);
+				if (cmp != 0) {
+					return cmp;
+				}
+			}
+			return length1 - length2;
+		}
+	}
+
+	/**
+	 * Return all terms that start with the given prefix, in descending order of
+	 * weight.
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @return array of matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		int[] range = range(prefix);
+		int first = range[0];
+		if (first == -1) {
+			return new Term[0];
+		}
+		int last = range[1];
+
+		Term[] matches = new Term[last - first + 1];
+		for (int i = 0; i < matches.length; i++) {
+			matches[i] = termAt(first + i);
+		}
+		Arrays.sort(matches, Term.byReverseWeightOrder());
+		return matches;
+	}
+
+	/**
+	 * Return the k heaviest terms that start with the given prefix, in
+	 * descending order of weight.
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @param k
+	 *            maximum number of terms to return
+	 * @return array of at most k matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix, int k) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		int[] range = range(prefix);
+		int first = range[0];
+		if (first == -1 || k == 0) {
+			return new Term[0];
+		}
+		int last = range[1];
+
+		int[] top = heaviest.topK(first, last, k);
+		Term[] matches = new Term[top.length];
+		for (int i = 0; i < matches.length; i++) {
+			matches[i] = termAt(top[i]);
+		}
+		return matches;
+	}
+
+	/**
+	 * Return the number of terms that start with the given prefix.
+	 * 
+	 * @param prefix
+	 * @return number of terms with matching prefix
+	 */
+	public int numberOfMatches(String prefix) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		int[] range = range(prefix);
+		return range[0] == -1 ? 0 : range[1] - range[0] + 1;
+	}
+
+	/**
+	 * Return the number of terms stored.
+	 * 
+	 * @return number of terms
+	 */
+	public int size() {
+		return weights.length;
+	}
+
+	/**
+	 * Return the i-th term in lexicographic order.
+	 * 
+	 * @param i
+	 *            index of the term
+	 * @return a new Term for the packed entry
+	 */
+	public Term termAt(int i) {
+		return new Term(new String(chars, offsets[i], offsets[i + 1] - offsets[i]), weights[i]);
+	}
+
+	// the packed arrays, for IndexFile
+	char[] chars() {
+		return chars;
+	}
+
+	int[] offsets() {
+		return offsets;
+	}
+
+	double[] weights() {
+		return weights;
+	}
+
+	RangeMaxIndex heaviest() {
+		return heaviest;
+	}
+
+	// first and last index whose query starts with prefix, or {-1, -1}
+	private int[] range(final String prefix) {
+		return BinarySearchDeluxe.equalRange(0, weights.length - 1, new BinarySearchDeluxe.IndexComparator() {
+			public int compareTo(int i) {
+				return comparePrefix(prefix, i);
+			}
+		});
+	}
+
+	// Term.byPrefixOrder(prefix.length()) applied to the prefix and query i
+	private int comparePrefix(String prefix, int i) {
+		int start = offsets[i];
+		int r = prefix.length();
+		int length = Math.min(r, offsets[i + 1] - start);
+		for (int j = 0; j < length; j++) {
+			int cmp = Term.compareIgnoreCase(prefix.charAt(j), chars[start + j]);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return r - length;
+	}
+}
@@ -0,0 +1,62 @@
+package autocomplete;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class PageBenchmark times "show more" pagination over short prefixes,
+ * whose ranges are large. Each page of k suggestions is fetched three
+ * ways: by sorting every match with allMatches(prefix) and slicing out the
+ * page, by asking allMatches(prefix, page * k) for everything up to the
+ * page, and by resuming Matches from the cursor the page before left.
+ *
+ * Usage: java autocomplete.PageBenchmark [terms] [k] [pages]
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class PageBenchmark {
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		final int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int pages = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+		final Autocomplete auto = new Autocomplete(AutocompleteBenchmark.syntheticTerms(n));
+		String[] prefixes = BatchBenchmark.shortPrefixes(2);
+
+		System.out.printf("%d terms, %d prefixes, %d per page, us per page%n", n, prefixes.length, k);
+		System.out.printf("%6s %12s %12s %12s%n", "page", "full sort", "top k", "cursor");
+		// cursors.get(prefix) is where the page before this one stopped
+		final Map<String, String> cursors = new HashMap<String, String>();
+		for (int page = 1; page <= pages; page++) {
+			final int from = (page - 1) * k;
+			final int to = page * k;
+			double sorted = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+				public int run(String prefix) {
+					Term[] all = auto.allMatches(prefix);
+					return Math.max(0, Math.min(to, all.length) - from);
+				}
+			});
+			double topK = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+				public int run(String prefix) {
+					Term[] top = auto.allMatches(prefix, to);
+					return Math.max(0, top.length - from);
+				}
+			});
+			double cursor = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+				public int run(String prefix) {
+					String before = cursors.get(prefix);
+					Matches matches = before == null ? auto.matches(prefix) : auto.matches(prefix, before);
+					return matches.next(k).length;
+				}
+			});
+			System.out.printf("%6d %12.2f %12.2f %12.2f%n", page, sorted, topK, cursor);
+			for (String prefix : prefixes) {
+				String before = cursors.get(prefix);
+				Matches matches = before == null ? auto.matches(prefix) : auto.matches(prefix, before);
+				matches.next(k);
+				cursors.put(prefix, matches.cursor());
+			}
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package autocomplete;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Class QueryMetrics records where the time of Autocomplete queries goes.
+ * Every query adds its latency to a histogram for each phase:
+ *
+ * <pre>
+ * search   the binary search for the range of the prefix
+ * copy     copying the range out (allMatches), or pulling the k heaviest
+ *          from the range maximum index (top k)
+ * sort     sorting the copied range by weight (allMatches only)
+ * total    the whole query
+ * </pre>
+ *
+ * together with the size of the matched range and a count of each kind of
+ * query. Counters and histograms are striped and lock free, so recording
+ * from many threads does not serialize them.
+ *
+ * Metrics are off unless Autocomplete.setMetrics is given a QueryMetrics;
+ * until then a query pays one volatile read. The same metrics can be shared
+ * by several engines, shown over JMX with register, and printed
+ * periodically with dumpEvery.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class QueryMetrics implements QueryMetricsMXBean {
+	private static final ScheduledExecutorService DUMPER = Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable task) {
+					Thread thread = new Thread(task, "query-metrics");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private final LongAdder allMatchesQueries = new LongAdder();
+	private final LongAdder topKQueries = new LongAdder();
+	private final LongAdder numberOfMatchesQueries = new LongAdder();
+	private final LogHistogram total = new LogHistogram();
+	private final LogHistogram search = new LogHistogram();
+	private final LogHistogram copy = new LogHistogram();
+	private final LogHistogram sort = new LogHistogram();
+	private final LogHistogram rangeSizes = new LogHistogram();
+
+	// an allMatches query: search, copy and sort, in nanoseconds
+	void recordAllMatches(long searchNanos, long copyNanos, long sortNanos, int rangeSize) {
+		allMatchesQueries.increment();
+		search.record(searchNanos);
+		copy.record(copyNanos);
+		sort.record(sortNanos);
+		total.record(searchNanos + copyNanos + sortNanos);
+		rangeSizes.record(rangeSize);
+	}
+
+	// a top k query: search and pulling the heaviest, in nanoseconds
+	void recordTopK(long searchNanos, long copyNanos, int rangeSize) {
+		topKQueries.increment();
+		search.record(searchNanos);
+		copy.record(copyNanos);
+		total.record(searchNanos + copyNanos);
+		rangeSizes.record(rangeSize);
+	}
+
+	// a numberOfMatches query: the search only, in nanoseconds
+	void recordNumberOfMatches(long searchNanos, int rangeSize) {
+		numberOfMatchesQueries.increment();
+		search.record(searchNanos);
+		total.record(searchNanos);
+		rangeSizes.record(rangeSize);
+	}
+
+	public long getAllMatchesQueries() {
+		return allMatchesQueries.sum();
+	}
+
+	public long getTopKQueries() {
+		return topKQueries.sum();
+	}
+
+	public long getNumberOfMatchesQueries() {
+		return numberOfMatchesQueries.sum();
+	}
+
+	public HistogramSnapshot getTotalNanos() {
+		return total.snapshot();
+	}
+
+	public HistogramSnapshot getSearchNanos() {
+		return search.snapshot();
+	}
+
+	public HistogramSnapshot getCopyNanos() {
+		return copy.snapshot();
+	}
+
+	public HistogramSnapshot getSortNanos() {
+		return sort.snapshot();
+	}
+
+	public HistogramSnapshot getRangeSizes() {
+		return rangeSizes.snapshot();
+	}
+
+	/**
+	 * Show these metrics in the platform MBean server under
+	 * autocomplete:type=QueryMetrics,name=name.
+	 *
+	 * @param name
+	 *            name telling these metrics apart from others
+	 * @return the name registered, for unregistering
+	 * @throws JMException
+	 *             if the name is malformed or already taken
+	 */
+	public ObjectName register(String name) throws JMException {
+		ObjectName objectName = new ObjectName("autocomplete:type=QueryMetrics,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		return objectName;
+	}
+
+	/**
+	 * Print the metrics to out every period, on a daemon thread, until the
+	 * returned future is cancelled.
+	 *
+	 * @param period
+	 *            time between dumps
+	 * @param unit
+	 *            unit of period
+	 * @param out
+	 *            where the dumps go
+	 * @return the future to cancel to stop dumping
+	 */
+	public ScheduledFuture<?> dumpEvery(long period, TimeUnit unit, final PrintStream out) {
+		if (out == null) {
+			throw new NullPointerException();
+		}
+		return DUMPER.scheduleAtFixedRate(new Runnable() {
+			public void run() {
+				out.print(QueryMetrics.this);
+				out.flush();
+			}
+		}, period, period, unit);
+	}
+
+	/**
+	 * Return the metrics as a few lines of text, latencies in nanoseconds.
+	 */
+	public String toString() {
+		String newline = System.lineSeparator();
+		return "queries: allMatches " + getAllMatchesQueries() + ", top k " + getTopKQueries()
+				+ ", numberOfMatches " + getNumberOfMatchesQueries() + newline
+				+ "  total ns   " + getTotalNanos() + newline
+				+ "  search ns  " + getSearchNanos() + newline
+				+ "  copy ns    " + getCopyNanos() + newline
+				+ "  sort ns    " + getSortNanos() + newline
+				+ "  range size " + getRangeSizes() + newline;
+	}
+}
@@ -0,0 +1,28 @@
+package autocomplete;
+
+/**
+ * Interface QueryMetricsMXBean is what QueryMetrics shows over JMX, for
+ * example in JConsole under the autocomplete domain. Latencies are in
+ * nanoseconds.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public interface QueryMetricsMXBean {
+
+	long getAllMatchesQueries();
+
+	long getTopKQueries();
+
+	long getNumberOfMatchesQueries();
+
+	HistogramSnapshot getTotalNanos();
+
+	HistogramSnapshot getSearchNanos();
+
+	HistogramSnapshot getCopyNanos();
+
+	HistogramSnapshot getSortNanos();
+
+	HistogramSnapshot getRangeSizes();
+}
@@ -0,0 +1,331 @@
+package autocomplete;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Class RangeMaxIndex is a segment tree over an array of weights that finds
+ * the index of the heaviest weight in any index range in O(log n). It is
+ * used to pull the k heaviest entries of a range in O(k log n), no matter
+ * how large the range is. Ties go to the lower index.
+ * 
+ * Weights and tree are read through buffers so that an index saved by
+ * IndexFile can be used straight from a memory-mapped file.
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class RangeMaxIndex {
+	// smallest tree level worth splitting across threads
+	private static final int PARALLEL_LEVEL = 1 << 14;
+
+	private final DoubleBuffer weights;
+	private final int n;
+	// tree[n + i] = i for the leaves, tree[i] = heavier of tree[2i], tree[2i + 1]
+	private final IntBuffer tree;
+
+	/**
+	 * Builds the index over the given weights. The array is not copied and
+	 * must not be changed afterwards.
+	 * 
+	 * @param weights
+	 *            weights to index
+	 */
+	public RangeMaxIndex(double[] weights) {
+		this(weights, false);
+	}
+
+	/**
+	 * Builds the index over the given weights, optionally filling each level
+	 * of the tree in parallel. The array is not copied and must not be
+	 * changed afterwards.
+	 * 
+	 * @param weights
+	 *            weights to index
+	 * @param parallel
+	 *            whether to build on the common fork-join pool
+	 */
+	public RangeMaxIndex(double[] weights, boolean parallel) {
+		if (weights == null) {
+			throw new NullPointerException();
+		}
+		this.weights = DoubleBuffer.wrap(weights);
+		this.n = weights.length;
+		final int[] nodes = new int[2 * n];
+		for (int i = 0; i < n; i++) {
+			nodes[n + i] = i;
+		}
+		// the children of level [2^d, 2^(d+1)) are all on level d + 1 or leaves
+		for (int levelStart = Integer.highestOneBit(Math.max(1, n - 1)); levelStart > 0; levelStart >>= 1) {
+			int levelEnd = Math.min(2 * levelStart, n);
+			IntStream level = IntStream.range(levelStart, levelEnd);
+			if (parallel && levelEnd - levelStart >= PARALLEL_LEVEL) {
+				level = level.parallel();
+			}
+			level.forEach(new IntConsumer() {
+				public void accept(int i) {
+					nodes[i] = heavier(nodes[2 * i], nodes[2 * i + 1]);
+				}
+			});
+		}
+		this.tree = IntBuffer.wrap(nodes);
+	}
+
+	/**
+	 * Wraps a tree that was built before and saved with copyTreeTo.
+	 * 
+	 * @param weights
+	 *            the weights the tree was built over
+	 * @param tree
+	 *            the saved tree, 2 * weights.limit() entries
+	 */
+	RangeMaxIndex(DoubleBuffer weights, IntBuffer tree) {
+		if (tree.limit() != 2 * weights.limit()) {
+			throw new IllegalArgumentException("tree does not match weights");
+		}
+		this.weights = weights;
+		this.n = weights.limit();
+		this.tree = tree;
+	}
+
+	/**
+	 * Return the index of the heaviest weight in weights[lo..hi].
+	 * 
+	 * @param lo
+	 *            first index of the range
+	 * @param hi
+	 *            last index of the range
+	 * @return index of the maximum weight in the range
+	 */
+	public int argMax(int lo, int hi) {
+		if (lo < 0 || hi >= n || lo > hi) {
+			throw new IndexOutOfBoundsException();
+		}
+		int best = lo;
+		for (int l = lo + n, r = hi + n + 1; l < r; l >>= 1, r >>= 1) {
+			if ((l & 1) == 1) {
+				best = heavier(best, tree.get(l++));
+			}
+			if ((r & 1) == 1) {
+				best = heavier(best, tree.get(--r));
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Return the indices of the k heaviest weights in weights[lo..hi] in
+	 * descending order of weight. Each result splits its range in two and
+	 * only the heaviest entry of each piece is queued, so the work is
+	 * O(k log n) regardless of the size of the range.
+	 * 
+	 * @param lo
+	 *            first index of the range
+	 * @param hi
+	 *            last index of the range
+	 * @param k
+	 *            maximum number of indices to return
+	 * @return indices of the heaviest weights, heaviest first
+	 */
+	public int[] topK(int lo, int hi, int k) {
+		return topK(new int[] { lo }, new int[] { hi }, k);
+	}
+
+	/**
+	 * Return the indices of the k heaviest weights in the union of the
+	 * disjoint ranges weights[lo[i]..hi[i]], heaviest first.
+	 * 
+	 * @param lo
+	 *            first index of each range
+	 * @param hi
+	 *            last index of each range
+	 * @param k
+	 *            maximum number of indices to return
+	 * @return indices of the heaviest weights, heaviest first
+	 */
+	public int[] topK(int[] lo, int[] hi, int k) {
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		long total = 0;
+		for (int i = 0; i < lo.length; i++) {
+			total += Math.max(0, hi[i] - lo[i] + 1);
+		}
+		int count = (int) Math.min(k, total);
+		if (count <= 0) {
+			return new int[0];
+		}
+		int[] result = new int[count];
+		Walk walk = new Walk(lo, hi);
+		for (int i = 0; i < count; i++) {
+			result[i] = walk.nextInt();
+		}
+		return result;
+	}
+
+	/**
+	 * Return the indices of weights[lo..hi] in descending order of weight,
+	 * in the order topK lists them, one at a time. Each index costs
+	 * O(log n), however many came before it.
+	 * 
+	 * @param lo
+	 *            first index of the range
+	 * @param hi
+	 *            last index of the range
+	 * @return the walk over the range
+	 */
+	public Walk walk(int lo, int hi) {
+		return new Walk(new int[] { lo }, new int[] { hi });
+	}
+
+	/**
+	 * Return the indices in the union of the disjoint ranges
+	 * weights[lo[i]..hi[i]] in descending order of weight, one at a time.
+	 * 
+	 * @param lo
+	 *            first index of each range
+	 * @param hi
+	 *            last index of each range
+	 * @return the walk over the ranges
+	 */
+	public Walk walk(int[] lo, int[] hi) {
+		return new Walk(lo, hi);
+	}
+
+	/**
+	 * Carry on a walk from the frontier another walk over these weights
+	 * returned from remaining. The heaviest index saved with each range is
+	 * taken as it is, so resuming costs O(f log f) for f ranges and no
+	 * searching; a frontier that was tampered with may walk out of order,
+	 * but never outside its ranges.
+	 * 
+	 * @param frontier
+	 *            the {lo, hi, argMax(lo, hi)} ranges still to walk
+	 * @return the walk over the ranges
+	 * @throws IndexOutOfBoundsException
+	 *             if a range is empty or outside the weights, or its heaviest
+	 *             index is outside it
+	 */
+	public Walk resume(int[][] frontier) {
+		Walk walk = new Walk(new int[0], new int[0]);
+		for (int[] range : frontier) {
+			if (range[0] < 0 || range[1] >= n || range[0] > range[1] || range[2] < range[0] || range[2] > range[1]) {
+				throw new IndexOutOfBoundsException();
+			}
+			walk.ranges.add(new int[] { range[0], range[1], range[2] });
+		}
+		return walk;
+	}
+
+	/**
+	 * Class Walk is a best-first walk over ranges of the weights. Its
+	 * frontier is the set of ranges not yet walked, each queued under its
+	 * heaviest index; taking an index splits its range in two around it.
+	 * The frontier can be read with remaining and a walk resumed from it
+	 * later, which carries on exactly where this one stopped.
+	 */
+	public class Walk implements PrimitiveIterator.OfInt {
+		// each entry is {lo, hi, argMax(lo, hi)}
+		private final PriorityQueue<int[]> ranges;
+
+		private Walk(int[] lo, int[] hi) {
+			if (lo.length != hi.length) {
+				throw new IllegalArgumentException();
+			}
+			ranges = new PriorityQueue<int[]>(Math.max(1, lo.length), new Comparator<int[]>() {
+				public int compare(int[] r1, int[] r2) {
+					return compareIndices(r2[2], r1[2]);
+				}
+			});
+			for (int i = 0; i < lo.length; i++) {
+				if (lo[i] <= hi[i]) {
+					ranges.add(new int[] { lo[i], hi[i], argMax(lo[i], hi[i]) });
+				}
+			}
+		}
+
+		public boolean hasNext() {
+			return !ranges.isEmpty();
+		}
+
+		/**
+		 * Return the heaviest index not yet walked.
+		 * 
+		 * @throws NoSuchElementException
+		 *             if every index has been walked
+		 */
+		public int nextInt() {
+			int[] range = ranges.poll();
+			if (range == null) {
+				throw new NoSuchElementException();
+			}
+			int best = range[2];
+			if (range[0] < best) {
+				ranges.add(new int[] { range[0], best - 1, argMax(range[0], best - 1) });
+			}
+			if (best < range[1]) {
+				ranges.add(new int[] { best + 1, range[1], argMax(best + 1, range[1]) });
+			}
+			return best;
+		}
+
+		/**
+		 * Return the ranges not yet walked as {lo, hi, argMax(lo, hi)} in
+		 * ascending order. There is at most one more range than indices
+		 * walked.
+		 * 
+		 * @return the frontier of the walk
+		 */
+		public int[][] remaining() {
+			int[][] frontier = new int[ranges.size()][];
+			int i = 0;
+			for (int[] range : ranges) {
+				frontier[i++] = range.clone();
+			}
+			Arrays.sort(frontier, new Comparator<int[]>() {
+				public int compare(int[] r1, int[] r2) {
+					return Integer.compare(r1[0], r2[0]);
+				}
+			});
+			return frontier;
+		}
+	}
+
+	/**
+	 * Return the number of weights indexed.
+	 * 
+	 * @return number of weights
+	 */
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * Copy the tree into out so it can be saved next to the weights.
+	 * 
+	 * @param out
+	 *            buffer with room for 2 * size() ints
+	 */
+	void copyTreeTo(IntBuffer out) {
+		IntBuffer source = tree.duplicate();
+		source.rewind();
+		out.put(source);
+	}
+
+	// positive if index i outranks index j: heavier, or equal and earlier
+	private int compareIndices(int i, int j) {
+		int cmp = Double.compare(weights.get(i), weights.get(j));
+		return cmp != 0 ? cmp : Integer.compare(j, i);
+	}
+
+	private int heavier(int i, int j) {
+		return compareIndices(i, j) >= 0 ? i : j;
+	}
+}
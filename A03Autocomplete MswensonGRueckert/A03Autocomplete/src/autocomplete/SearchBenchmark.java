@@ -0,0 +1,146 @@
+package autocomplete;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Class SearchBenchmark compares the primitive and IndexComparator searches
+ * of BinarySearchDeluxe with the generic Key[] search they replace: int[]
+ * against Integer[], long[] against Long[], double[] against Double[], and
+ * a prefix search over PackedAutocomplete's char arena against the same
+ * search over a Term[]. Before timing, the generic search is run with
+ * several comparators, as it is in a program that searches more than one
+ * kind of array, so its comparator call is not inlined for one of them.
+ *
+ * Usage: java autocomplete.SearchBenchmark [n]
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class SearchBenchmark {
+	private static final int PROBES = 4096;
+
+	// the probes are chosen by the position the query runs at, not its text
+	private static final String[] POSITIONS = new String[PROBES];
+	static {
+		for (int i = 0; i < PROBES; i++) {
+			POSITIONS[i] = Integer.toString(i);
+		}
+	}
+
+	private static void report(String label, double generic, double specialized) {
+		System.out.printf("  %-22s generic %8.1f ns   specialized %8.1f ns   %5.2fx%n", label, generic * 1000,
+				specialized * 1000, generic / specialized);
+	}
+
+	// run the generic search through several comparators
+	private static void polluteProfile(Integer[] ints, Long[] longs, Double[] doubles) {
+		Comparator<Integer> intOrder = Comparator.naturalOrder();
+		Comparator<Long> longOrder = Comparator.naturalOrder();
+		Comparator<Double> doubleOrder = Comparator.naturalOrder();
+		Comparator<Integer> reverse = new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2) {
+				return i2.compareTo(i1);
+			}
+		};
+		long sink = 0;
+		for (int i = 0; i < 200_000; i++) {
+			sink += BinarySearchDeluxe.firstIndexOf(ints, i, intOrder);
+			sink += BinarySearchDeluxe.firstIndexOf(longs, (long) i, longOrder);
+			sink += BinarySearchDeluxe.firstIndexOf(doubles, (double) i, doubleOrder);
+			sink += BinarySearchDeluxe.firstIndexOf(ints, i, reverse);
+			sink += BinarySearchDeluxe.lastIndexOf(ints, i, intOrder);
+		}
+		if (sink == 42) {
+			System.out.print("");
+		}
+	}
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		Random random = new Random(23);
+
+		final int[] ints = new int[n];
+		final long[] longs = new long[n];
+		final double[] doubles = new double[n];
+		for (int i = 0; i < n; i++) {
+			ints[i] = random.nextInt(n);
+			longs[i] = random.nextLong();
+			doubles[i] = random.nextDouble();
+		}
+		Arrays.sort(ints);
+		Arrays.sort(longs);
+		Arrays.sort(doubles);
+		final Integer[] boxedInts = new Integer[n];
+		final Long[] boxedLongs = new Long[n];
+		final Double[] boxedDoubles = new Double[n];
+		for (int i = 0; i < n; i++) {
+			boxedInts[i] = ints[i];
+			boxedLongs[i] = longs[i];
+			boxedDoubles[i] = doubles[i];
+		}
+		final int[] intProbes = new int[PROBES];
+		final long[] longProbes = new long[PROBES];
+		final double[] doubleProbes = new double[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			int at = random.nextInt(n);
+			intProbes[i] = ints[at];
+			longProbes[i] = longs[at];
+			doubleProbes[i] = doubles[at];
+		}
+		polluteProfile(boxedInts, boxedLongs, boxedDoubles);
+
+		final Comparator<Integer> intOrder = Comparator.naturalOrder();
+		final Comparator<Long> longOrder = Comparator.naturalOrder();
+		final Comparator<Double> doubleOrder = Comparator.naturalOrder();
+		System.out.printf("%d elements, first index of a present key%n", n);
+		report("int[]", AutocompleteBenchmark.time(POSITIONS, new AutocompleteBenchmark.Query() {
+			public int run(String position) {
+				return BinarySearchDeluxe.firstIndexOf(boxedInts, intProbes[Integer.parseInt(position)], intOrder);
+			}
+		}), AutocompleteBenchmark.time(POSITIONS, new AutocompleteBenchmark.Query() {
+			public int run(String position) {
+				return BinarySearchDeluxe.firstIndexOf(ints, intProbes[Integer.parseInt(position)]);
+			}
+		}));
+		report("long[]", AutocompleteBenchmark.time(POSITIONS, new AutocompleteBenchmark.Query() {
+			public int run(String position) {
+				return BinarySearchDeluxe.firstIndexOf(boxedLongs, longProbes[Integer.parseInt(position)], longOrder);
+			}
+		}), AutocompleteBenchmark.time(POSITIONS, new AutocompleteBenchmark.Query() {
+			public int run(String position) {
+				return BinarySearchDeluxe.firstIndexOf(longs, longProbes[Integer.parseInt(position)]);
+			}
+		}));
+		report("double[]", AutocompleteBenchmark.time(POSITIONS, new AutocompleteBenchmark.Query() {
+			public int run(String position) {
+				return BinarySearchDeluxe.firstIndexOf(boxedDoubles, doubleProbes[Integer.parseInt(position)],
+						doubleOrder);
+			}
+		}), AutocompleteBenchmark.time(POSITIONS, new AutocompleteBenchmark.Query() {
+			public int run(String position) {
+				return BinarySearchDeluxe.firstIndexOf(doubles, doubleProbes[Integer.parseInt(position)]);
+			}
+		}));
+
+		// prefix ranges: Term[] with Term.byPrefixOrder against the packed arena
+		Term[] terms = AutocompleteBenchmark.syntheticTerms(n);
+		final Term[] sorted = terms.clone();
+		Arrays.sort(sorted, Term.byPrefixOrder(Integer.MAX_VALUE));
+		final PackedAutocomplete packed = new PackedAutocomplete(terms);
+		String[] prefixes = BatchBenchmark.shortPrefixes(3);
+		report("prefix range", AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				int[] range = BinarySearchDeluxe.equalRange(sorted, new Term(prefix, 0),
+						Term.byPrefixOrder(prefix.length()));
+				return range[0] == -1 ? 0 : range[1] - range[0] + 1;
+			}
+		}), AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return packed.numberOfMatches(prefix);
+			}
+		}));
+		System.out.println("(both sides include parsing the probe position, about the same for each)");
+	}
+}
@@ -0,0 +1,116 @@
+package autocomplete;
+
+import java.text.Normalizer;
+import java.util.Comparator;
+
+/**
+ * Class SearchKey computes the normalized form of a query that sorting and
+ * prefix search work on: every character folded the way matching ignores
+ * case, and optionally accents stripped so that "Motorhead" finds
+ * "Mot&ouml;rhead". Keys are computed once per term when an index is built, so
+ * searching compares plain chars and never folds case again, and because
+ * the terms are sorted by the same keys they are searched by, the sort
+ * order always agrees with the search order.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+final class SearchKey {
+	// comparators for the prefix lengths users actually type
+	private static final PrefixComparator[] PREFIX_COMPARATORS = new PrefixComparator[64];
+	static {
+		for (int r = 0; r < PREFIX_COMPARATORS.length; r++) {
+			PREFIX_COMPARATORS[r] = new PrefixComparator(r);
+		}
+	}
+
+	private SearchKey() {
+	}
+
+	/**
+	 * Return the search key of a query or prefix. A query that is already
+	 * in normal form is returned as is, so it shares its chars with its key.
+	 *
+	 * @param text
+	 *            the query or prefix
+	 * @param stripAccents
+	 *            whether to drop accents and other combining marks
+	 * @return the key
+	 */
+	static String of(String text, boolean stripAccents) {
+		if (stripAccents && !isAscii(text)) {
+			String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+			StringBuilder stripped = new StringBuilder(decomposed.length());
+			for (int i = 0; i < decomposed.length(); i++) {
+				char c = decomposed.charAt(i);
+				if (Character.getType(c) != Character.NON_SPACING_MARK) {
+					stripped.append(c);
+				}
+			}
+			text = stripped.toString();
+		}
+		int i = 0;
+		while (i < text.length() && Term.foldCase(text.charAt(i)) == text.charAt(i)) {
+			i++;
+		}
+		if (i == text.length()) {
+			return text;
+		}
+		char[] folded = text.toCharArray();
+		for (; i < folded.length; i++) {
+			folded[i] = Term.foldCase(folded[i]);
+		}
+		return new String(folded);
+	}
+
+	private static boolean isAscii(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (text.charAt(i) >= 0x80) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compare keys on their first r characters. A key shorter than r
+	 * characters sorts before any longer key it is a prefix of.
+	 *
+	 * @param r
+	 *            number of characters in the prefix
+	 * @return comparator on the first r characters
+	 */
+	static Comparator<String> byPrefixOrder(int r) {
+		if (r < 0) {
+			throw new IllegalArgumentException();
+		}
+		if (r < PREFIX_COMPARATORS.length) {
+			return PREFIX_COMPARATORS[r];
+		}
+		return new PrefixComparator(r);
+	}
+
+	/**
+	 * Compares keys on their first r characters.
+	 */
+	private static class PrefixComparator implements Comparator<String> {
+		private final int r;
+
+		private PrefixComparator(int r) {
+			this.r = r;
+		}
+
+		public int compare(String k1, String k2) {
+			int n1 = Math.min(r, k1.length());
+			int n2 = Math.min(r, k2.length());
+			int n = Math.min(n1, n2);
+			for (int i = 0; i < n; i++) {
+				int cmp = k1.charAt(i) - k2.charAt(i);
+				if (cmp != 0) {
+					return cmp;
+				}
+			}
+			return n1 - n2;
+		}
+	}
+}
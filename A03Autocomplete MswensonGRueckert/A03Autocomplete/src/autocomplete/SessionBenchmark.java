@@ -0,0 +1,51 @@
+package autocomplete;
+
+/**
+ * Class SessionBenchmark types a few words one keystroke at a time into an
+ * AutocompleteSession and into plain Autocomplete.allMatches, at several
+ * corpus sizes, to show how much of the per-keystroke cost depends on the
+ * size of the corpus.
+ * 
+ * Usage: java autocomplete.SessionBenchmark [k]
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class SessionBenchmark {
+	private static final String[] WORDS = { "abcdef", "mnopqr", "qwerty", "zyxwvu" };
+
+	public static void main(String[] args) {
+		final int k = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		System.out.println("us per keystroke, typing and then deleting each word");
+		for (int n = 10_000; n <= 4_000_000; n *= 20) {
+			final Autocomplete auto = new Autocomplete(AutocompleteBenchmark.syntheticTerms(n));
+			final AutocompleteSession session = auto.session();
+			double scratch = AutocompleteBenchmark.time(WORDS, new AutocompleteBenchmark.Query() {
+				public int run(String word) {
+					int found = 0;
+					for (int i = 1; i <= word.length(); i++) {
+						found += auto.allMatches(word.substring(0, i), k).length;
+					}
+					for (int i = word.length() - 1; i >= 0; i--) {
+						found += auto.allMatches(word.substring(0, i), k).length;
+					}
+					return found;
+				}
+			}) / (2 * WORDS[0].length());
+			double narrowed = AutocompleteBenchmark.time(WORDS, new AutocompleteBenchmark.Query() {
+				public int run(String word) {
+					int found = 0;
+					for (int i = 0; i < word.length(); i++) {
+						session.append(word.charAt(i));
+						found += session.allMatches(k).length;
+					}
+					while (session.backspace()) {
+						found += session.allMatches(k).length;
+					}
+					return found;
+				}
+			}) / (2 * WORDS[0].length());
+			System.out.printf("  %8d terms   allMatches %8.2f   session %8.2f%n", n, scratch, narrowed);
+		}
+	}
+}
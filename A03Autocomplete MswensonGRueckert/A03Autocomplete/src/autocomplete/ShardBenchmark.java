@@ -0,0 +1,74 @@
+package autocomplete;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class ShardBenchmark measures ShardedAutocomplete at several shard counts:
+ * the latency of one top-k query from a single caller, and the throughput
+ * of several callers querying at once. The shard queries run on a fixed
+ * pool with one thread per core, and one shard is the unsharded baseline
+ * plus the cost of going through the merge.
+ *
+ * Usage: java autocomplete.ShardBenchmark [terms] [k] [callers]
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class ShardBenchmark {
+
+	// queries per second from the given number of threads over the given time
+	private static double throughput(final ShardedAutocomplete sharded, final String[] prefixes, final int k,
+			int callers, long nanos) throws InterruptedException {
+		final AtomicLong queries = new AtomicLong();
+		final long deadline = System.nanoTime() + nanos;
+		Thread[] threads = new Thread[callers];
+		long start = System.nanoTime();
+		for (int c = 0; c < callers; c++) {
+			final int offset = c;
+			threads[c] = new Thread(new Runnable() {
+				public void run() {
+					long count = 0;
+					for (int i = offset; System.nanoTime() < deadline; i++) {
+						sharded.allMatches(prefixes[i % prefixes.length], k);
+						count++;
+					}
+					queries.addAndGet(count);
+				}
+			});
+			threads[c].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		return queries.get() / ((System.nanoTime() - start) / 1e9);
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+		final int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int callers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+		int cores = Runtime.getRuntime().availableProcessors();
+		Term[] terms = AutocompleteBenchmark.syntheticTerms(n);
+		String[] prefixes = BatchBenchmark.shortPrefixes(2);
+
+		ExecutorService pool = Executors.newFixedThreadPool(cores);
+		System.out.printf("%d terms, top %d, %d cores, %d callers for throughput%n", n, k, cores, callers);
+		for (int shardCount = 1; shardCount <= 16; shardCount *= 2) {
+			final ShardedAutocomplete sharded = new ShardedAutocomplete(terms, shardCount, pool);
+			double micros = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+				public int run(String prefix) {
+					return sharded.allMatches(prefix, k).length;
+				}
+			});
+			// the first run lets the callers' threads and the pool settle
+			throughput(sharded, prefixes, k, callers, 1_000_000_000L);
+			System.out.printf("  %2d shards   latency %8.2f us   throughput %10.0f queries/s%n", shardCount, micros,
+					throughput(sharded, prefixes, k, callers, 2_000_000_000L));
+		}
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.MINUTES);
+	}
+}
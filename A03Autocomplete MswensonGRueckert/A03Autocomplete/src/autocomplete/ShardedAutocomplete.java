@@ -0,0 +1,236 @@
+package autocomplete;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Class ShardedAutocomplete partitions the terms into shards by the hash of
+ * their search key, each shard an Autocomplete of its own. Every shard holds
+ * matches for every prefix, so a query fans out to all shards on an
+ * executor, each shard finds its own top k, and the per-shard results are
+ * merged k ways by weight. The calling thread answers the first shard
+ * itself instead of waiting idle.
+ *
+ * Sharding lets one query use several cores and keeps every sorted array a
+ * fraction of the term count, at the cost of a task hand-off per shard.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class ShardedAutocomplete implements AutocompleteEngine {
+	private static final Comparator<Term> REVERSE_WEIGHT = Term.byReverseWeightOrder();
+
+	private final Autocomplete[] shards;
+	private final Executor executor;
+
+	/**
+	 * A shard's results and how far the merge has taken them.
+	 */
+	private static class Cursor {
+		private final Term[] matches;
+		private final int list;
+		private int next;
+
+		private Cursor(Term[] matches, int list) {
+			this.matches = matches;
+			this.list = list;
+		}
+	}
+
+	/**
+	 * Partition the terms into the given number of shards, fanning queries
+	 * out on the common fork-join pool.
+	 *
+	 * @param terms
+	 *            list of terms to be sharded
+	 * @param shardCount
+	 *            number of shards
+	 */
+	public ShardedAutocomplete(Term[] terms, int shardCount) {
+		this(terms, shardCount, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Partition the terms into the given number of shards, fanning queries
+	 * out on the given executor. The shards are built on the executor too.
+	 *
+	 * @param terms
+	 *            list of terms to be sharded
+	 * @param shardCount
+	 *            number of shards
+	 * @param executor
+	 *            executor running the shard queries
+	 */
+	public ShardedAutocomplete(Term[] terms, int shardCount, Executor executor) {
+		if (terms == null) {
+			throw new IllegalArgumentException();
+		}
+		if (shardCount < 1) {
+			throw new IllegalArgumentException("shard count must be positive: " + shardCount);
+		}
+		if (executor == null) {
+			throw new NullPointerException();
+		}
+		this.executor = executor;
+
+		List<List<Term>> partitions = new ArrayList<List<Term>>(shardCount);
+		for (int s = 0; s < shardCount; s++) {
+			partitions.add(new ArrayList<Term>(terms.length / shardCount + 1));
+		}
+		for (Term term : terms) {
+			int hash = SearchKey.of(term.getQuery(), false).hashCode();
+			partitions.get((hash & 0x7fffffff) % shardCount).add(term);
+		}
+
+		List<CompletableFuture<Autocomplete>> builds = new ArrayList<CompletableFuture<Autocomplete>>(shardCount);
+		for (final List<Term> partition : partitions) {
+			builds.add(CompletableFuture.supplyAsync(new Supplier<Autocomplete>() {
+				public Autocomplete get() {
+					return new Autocomplete(partition.toArray(new Term[partition.size()]));
+				}
+			}, executor));
+		}
+		this.shards = new Autocomplete[shardCount];
+		for (int s = 0; s < shardCount; s++) {
+			shards[s] = join(builds.get(s));
+		}
+	}
+
+	/**
+	 * Return the number of shards.
+	 *
+	 * @return shard count
+	 */
+	public int shards() {
+		return shards.length;
+	}
+
+	/**
+	 * Return all terms that start with the given prefix, in descending order
+	 * of weight.
+	 *
+	 * @param prefix
+	 *            the prefix entered
+	 * @return array of matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		return fanOut(prefix, -1);
+	}
+
+	/**
+	 * Return the k heaviest terms that start with the given prefix, in
+	 * descending order of weight: the merge of the top k of every shard.
+	 *
+	 * @param prefix
+	 *            the prefix entered
+	 * @param k
+	 *            maximum number of terms to return
+	 * @return array of at most k matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix, int k) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		return fanOut(prefix, k);
+	}
+
+	/**
+	 * Return the number of terms that start with the given prefix. Counting
+	 * is a pair of binary searches per shard, cheaper than a hand-off, so it
+	 * runs on the calling thread.
+	 *
+	 * @param prefix
+	 *            the prefix entered
+	 * @return number of terms with matching prefix
+	 */
+	public int numberOfMatches(String prefix) {
+		int count = 0;
+		for (Autocomplete shard : shards) {
+			count += shard.numberOfMatches(prefix);
+		}
+		return count;
+	}
+
+	// the top k of every shard merged, k = -1 for all matches
+	private Term[] fanOut(final String prefix, final int k) {
+		List<CompletableFuture<Term[]>> pending = new ArrayList<CompletableFuture<Term[]>>(shards.length - 1);
+		for (int s = 1; s < shards.length; s++) {
+			final Autocomplete shard = shards[s];
+			pending.add(CompletableFuture.supplyAsync(new Supplier<Term[]>() {
+				public Term[] get() {
+					return k < 0 ? shard.allMatches(prefix) : shard.allMatches(prefix, k);
+				}
+			}, executor));
+		}
+		Term[][] results = new Term[shards.length][];
+		results[0] = k < 0 ? shards[0].allMatches(prefix) : shards[0].allMatches(prefix, k);
+		for (int s = 1; s < shards.length; s++) {
+			results[s] = join(pending.get(s - 1));
+		}
+		return merge(results, k);
+	}
+
+	/**
+	 * Merge lists that are each in descending order of weight into the k
+	 * heaviest of them all, in descending order of weight. Equal weights
+	 * keep the order of the lists.
+	 *
+	 * @param lists
+	 *            lists sorted by descending weight
+	 * @param k
+	 *            maximum number of terms to return, -1 for all
+	 * @return the merged terms
+	 */
+	static Term[] merge(Term[][] lists, int k) {
+		int total = 0;
+		PriorityQueue<Cursor> heads = new PriorityQueue<Cursor>(Math.max(1, lists.length), new Comparator<Cursor>() {
+			public int compare(Cursor c1, Cursor c2) {
+				int cmp = REVERSE_WEIGHT.compare(c1.matches[c1.next], c2.matches[c2.next]);
+				return cmp != 0 ? cmp : c1.list - c2.list;
+			}
+		});
+		for (int l = 0; l < lists.length; l++) {
+			total += lists[l].length;
+			if (lists[l].length > 0) {
+				heads.add(new Cursor(lists[l], l));
+			}
+		}
+		Term[] merged = new Term[k < 0 ? total : Math.min(k, total)];
+		for (int i = 0; i < merged.length; i++) {
+			Cursor head = heads.poll();
+			merged[i] = head.matches[head.next++];
+			if (head.next < head.matches.length) {
+				heads.add(head);
+			}
+		}
+		return merged;
+	}
+
+	// the value of a shard task, with its own exception rethrown
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package autocomplete;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Class SnapshotAutocomplete serves queries from an immutable engine that
+ * can be replaced while queries are running. The engine is published through
+ * an AtomicReference: every query reads the reference once and runs against
+ * that snapshot, so readers never take a lock and never see a half-built
+ * index, and a rebuilt engine is swapped in with a single atomic write.
+ *
+ * Queries that must agree with each other, such as a count followed by the
+ * matches, should call current() once and query the returned snapshot.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class SnapshotAutocomplete implements AutocompleteEngine {
+	private final AtomicReference<AutocompleteEngine> snapshot;
+	private final AtomicLong swaps = new AtomicLong();
+
+	/**
+	 * Serve queries from the given engine until another is published.
+	 *
+	 * @param engine
+	 *            the first snapshot
+	 */
+	public SnapshotAutocomplete(AutocompleteEngine engine) {
+		if (engine == null) {
+			throw new NullPointerException();
+		}
+		this.snapshot = new AtomicReference<AutocompleteEngine>(engine);
+	}
+
+	/**
+	 * Return the snapshot queries are served from right now.
+	 *
+	 * @return the current engine
+	 */
+	public AutocompleteEngine current() {
+		return snapshot.get();
+	}
+
+	/**
+	 * Publish a new snapshot. Queries already running finish against the
+	 * old one; every query started afterwards sees the new one.
+	 *
+	 * @param engine
+	 *            the new engine, which must not be changed afterwards
+	 * @return the snapshot it replaced
+	 */
+	public AutocompleteEngine swap(AutocompleteEngine engine) {
+		if (engine == null) {
+			throw new NullPointerException();
+		}
+		AutocompleteEngine previous = snapshot.getAndSet(engine);
+		swaps.incrementAndGet();
+		return previous;
+	}
+
+	/**
+	 * Build an Autocomplete from the given terms on the calling thread,
+	 * using the parallel build, and publish it. Queries keep running against
+	 * the current snapshot for the whole build.
+	 *
+	 * @param terms
+	 *            the new terms
+	 * @return the snapshot that was replaced
+	 */
+	public AutocompleteEngine rebuild(Term[] terms) {
+		return swap(new Autocomplete(terms, true));
+	}
+
+	/**
+	 * Return the number of snapshots published since construction.
+	 *
+	 * @return swaps
+	 */
+	public long swaps() {
+		return swaps.get();
+	}
+
+	public Term[] allMatches(String prefix) {
+		return snapshot.get().allMatches(prefix);
+	}
+
+	public Term[] allMatches(String prefix, int k) {
+		return snapshot.get().allMatches(prefix, k);
+	}
+
+	public int numberOfMatches(String prefix) {
+		return snapshot.get().numberOfMatches(prefix);
+	}
+}
@@ -0,0 +1,80 @@
+package autocomplete;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Class SnapshotBenchmark measures top-k query throughput through a
+ * SnapshotAutocomplete with 1 to 2 x cores reader threads, while a
+ * background thread keeps rebuilding the index from re-weighted terms and
+ * swapping it in. The readers run on virtual threads when the JVM has them.
+ * 
+ * Usage: java autocomplete.SnapshotBenchmark [syntheticTerms] [seconds]
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class SnapshotBenchmark {
+	private static final String[] PREFIXES = { "a", "m", "q", "abc", "mno", "zz", "hello", "qw" };
+
+	public static void main(String[] args) throws InterruptedException, ExecutionException {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		final long nanos = (args.length > 1 ? Long.parseLong(args[1]) : 2) * 1_000_000_000L;
+		final Term[] terms = AutocompleteBenchmark.syntheticTerms(n);
+		final SnapshotAutocomplete auto = new SnapshotAutocomplete(new Autocomplete(terms, true));
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.printf("%d terms, %d cores, %s threads%n", n, cores,
+				ThreadSupport.hasVirtualThreads() ? "virtual" : "platform");
+
+		for (int readers = 1; readers <= 2 * cores; readers *= 2) {
+			final AtomicBoolean running = new AtomicBoolean(true);
+			long swapsBefore = auto.swaps();
+			Thread rebuilder = ThreadSupport.start(new Runnable() {
+				public void run() {
+					Random random = new Random(17);
+					Term[] reweighted = new Term[terms.length];
+					while (running.get()) {
+						for (int i = 0; i < terms.length; i++) {
+							reweighted[i] = new Term(terms[i].getQuery(), random.nextInt(1000));
+						}
+						auto.rebuild(reweighted);
+					}
+				}
+			});
+
+			ExecutorService executor = ThreadSupport.newThreadPerTaskExecutor();
+			List<Future<Long>> results = new ArrayList<Future<Long>>();
+			final long start = System.nanoTime();
+			for (int r = 0; r < readers; r++) {
+				final int offset = r;
+				results.add(executor.submit(new Callable<Long>() {
+					public Long call() {
+						long queries = 0;
+						while (System.nanoTime() - start < nanos) {
+							auto.allMatches(PREFIXES[(int) (queries + offset) % PREFIXES.length], 10);
+							queries++;
+						}
+						return queries;
+					}
+				}));
+			}
+			long queries = 0;
+			for (Future<Long> result : results) {
+				queries += result.get();
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			running.set(false);
+			rebuilder.join();
+			executor.shutdown();
+
+			System.out.printf("  %3d readers %12.0f queries/s   %d swaps%n", readers, queries / seconds,
+					auto.swaps() - swapsBefore);
+		}
+	}
+}
@@ -0,0 +1,268 @@
+package autocomplete;
+
+import java.io.Closeable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Class SuggestionPipeline moves the suggestion lookup for a text field off
+ * the Swing event thread. Every keystroke submits the new text; the lookup
+ * runs on a background thread once no keystroke has come for the debounce
+ * delay, and its result is handed back to the event thread to be shown.
+ *
+ * Every submission takes the next sequence number. A lookup that has not
+ * started when a newer text comes in is cancelled, and a result whose
+ * sequence number is no longer the latest when it is done, or when the
+ * event thread gets to it, is dropped, so only the result for the latest
+ * text is ever published. Lookups run one at a time on a single thread, so
+ * a query may keep state between calls, such as an AutocompleteSession.
+ * A lookup that throws is reported to the pipeline thread's uncaught
+ * exception handler, and the thread goes on with the next text.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ * @param <R>
+ *            the result of a lookup, ready to be shown
+ */
+public class SuggestionPipeline<R> implements Closeable {
+	/**
+	 * Debounce delay used when none is given, in milliseconds. Shorter than
+	 * the gap between keystrokes of a fast typist, so a pause is noticed.
+	 */
+	public static final long DEFAULT_DEBOUNCE_MILLIS = 40;
+
+	/**
+	 * The lookup: runs on the background thread.
+	 *
+	 * @param <R>
+	 *            the result of a lookup
+	 */
+	public interface Query<R> {
+		R run(String text);
+	}
+
+	/**
+	 * Shows a result: runs on the publishing executor, the event thread by
+	 * default.
+	 *
+	 * @param <R>
+	 *            the result of a lookup
+	 */
+	public interface Publisher<R> {
+		void publish(String text, R result);
+	}
+
+	private static final Executor EVENT_THREAD = new Executor() {
+		public void execute(Runnable task) {
+			SwingUtilities.invokeLater(task);
+		}
+	};
+
+	private final Query<R> query;
+	private final Publisher<R> publisher;
+	private final Executor publishOn;
+	private final long debounceMillis;
+	private final ScheduledExecutorService worker;
+	private final AtomicLong sequence = new AtomicLong();
+	private final AtomicLong published = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private Lookup scheduled;
+
+	/**
+	 * One submitted text. Either the pipeline thread claims it and runs it,
+	 * or a newer submission claims it and cancels it, never both.
+	 */
+	private class Lookup implements Runnable {
+		private final String text;
+		private final long ticket;
+		private final AtomicBoolean claimed = new AtomicBoolean();
+		private ScheduledFuture<?> future;
+
+		private Lookup(String text, long ticket) {
+			this.text = text;
+			this.ticket = ticket;
+		}
+
+		public void run() {
+			if (!claimed.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				lookUp(text, ticket);
+			} catch (RuntimeException e) {
+				// report it, but keep the thread for the next keystroke
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+			}
+		}
+
+		private void cancel() {
+			if (claimed.compareAndSet(false, true)) {
+				future.cancel(false);
+				dropped.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Create a pipeline that publishes on the Swing event thread with the
+	 * default debounce delay.
+	 *
+	 * @param query
+	 *            the lookup
+	 * @param publisher
+	 *            shows the results
+	 */
+	public SuggestionPipeline(Query<R> query, Publisher<R> publisher) {
+		this(query, publisher, DEFAULT_DEBOUNCE_MILLIS, EVENT_THREAD);
+	}
+
+	/**
+	 * Create a pipeline.
+	 *
+	 * @param query
+	 *            the lookup
+	 * @param publisher
+	 *            shows the results
+	 * @param debounceMillis
+	 *            how long the text must stay unchanged before it is looked
+	 *            up, 0 to look up every text
+	 * @param publishOn
+	 *            executor the publisher runs on
+	 */
+	public SuggestionPipeline(Query<R> query, Publisher<R> publisher, long debounceMillis, Executor publishOn) {
+		this(query, publisher, debounceMillis, publishOn, null);
+	}
+
+	/**
+	 * Create a pipeline that reports failed lookups to the given handler.
+	 *
+	 * @param query
+	 *            the lookup
+	 * @param publisher
+	 *            shows the results
+	 * @param debounceMillis
+	 *            how long the text must stay unchanged before it is looked
+	 *            up, 0 to look up every text
+	 * @param publishOn
+	 *            executor the publisher runs on
+	 * @param onFailure
+	 *            gets the exceptions lookups throw, or null for the thread
+	 *            group's handler, which prints them
+	 */
+	public SuggestionPipeline(Query<R> query, Publisher<R> publisher, long debounceMillis, Executor publishOn,
+			final Thread.UncaughtExceptionHandler onFailure) {
+		if (query == null || publisher == null || publishOn == null) {
+			throw new NullPointerException();
+		}
+		if (debounceMillis < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.query = query;
+		this.publisher = publisher;
+		this.publishOn = publishOn;
+		this.debounceMillis = debounceMillis;
+		this.worker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "suggestions");
+				thread.setDaemon(true);
+				if (onFailure != null) {
+					thread.setUncaughtExceptionHandler(onFailure);
+				}
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Look up the given text once it has stayed unchanged for the debounce
+	 * delay, replacing any lookup still waiting.
+	 *
+	 * @param text
+	 *            the text now in the field
+	 */
+	public synchronized void submit(String text) {
+		if (text == null) {
+			throw new NullPointerException();
+		}
+		Lookup lookup = new Lookup(text, cancelPending());
+		lookup.future = worker.schedule(lookup, debounceMillis, TimeUnit.MILLISECONDS);
+		scheduled = lookup;
+	}
+
+	/**
+	 * Drop the lookup that is waiting or running, so that nothing is
+	 * published until the next submit. Used when the field is cleared.
+	 */
+	public synchronized void cancel() {
+		cancelPending();
+	}
+
+	// the ticket of the next submission; every older one is now stale
+	private long cancelPending() {
+		if (scheduled != null) {
+			// a lookup already running is dropped when it is done
+			scheduled.cancel();
+		}
+		scheduled = null;
+		return sequence.incrementAndGet();
+	}
+
+	private void lookUp(final String text, final long ticket) {
+		if (ticket != sequence.get()) {
+			dropped.incrementAndGet();
+			return;
+		}
+		final R result = query.run(text);
+		if (ticket != sequence.get()) {
+			dropped.incrementAndGet();
+			return;
+		}
+		publishOn.execute(new Runnable() {
+			public void run() {
+				// a keystroke may have come in while this waited its turn
+				if (ticket != sequence.get()) {
+					dropped.incrementAndGet();
+					return;
+				}
+				published.incrementAndGet();
+				publisher.publish(text, result);
+			}
+		});
+	}
+
+	/**
+	 * Return the number of results published.
+	 *
+	 * @return published results
+	 */
+	public long published() {
+		return published.get();
+	}
+
+	/**
+	 * Return the number of lookups cancelled or results dropped because a
+	 * newer text came in.
+	 *
+	 * @return stale lookups
+	 */
+	public long dropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * Stop the background thread. Nothing is published afterwards.
+	 */
+	public void close() {
+		cancel();
+		worker.shutdownNow();
+	}
+}
@@ -12,6 +12,14 @@ public class Term implements Comparable<Term> {
 	private String query;
 	private double weight;
 
+	// comparators for the prefix lengths users actually type
+	private static final PrefixComparator[] PREFIX_COMPARATORS = new PrefixComparator[64];
+	static {
+		for (int r = 0; r < PREFIX_COMPARATORS.length; r++) {
+			PREFIX_COMPARATORS[r] = new PrefixComparator(r);
+		}
+	}
+
 	/**
 	 * Initialize a term with the given query string and weight.
 	 * 
@@ -29,6 +37,24 @@ public class Term implements Comparable<Term> {
 		this.weight = weight;
 	}
 
+	/**
+	 * Return the query string of this term.
+	 * 
+	 * @return the query
+	 */
+	String getQuery() {
+		return query;
+	}
+
+	/**
+	 * Return the weight of this term.
+	 * 
+	 * @return the weight
+	 */
+	double getWeight() {
+		return weight;
+	}
+
 	/**
 	 * Compare the terms in descending order by weight.
 	 * 
@@ -49,34 +75,91 @@ public class Term implements Comparable<Term> {
 
 	/**
      * Compare the terms in lexicographic order but using only the first r 
-     * characters of each query.
+     * characters of each query. The comparators are stateless apart from r
+     * and are cached, so repeated calls for short prefixes return the same
+     * object.
      * @param r number of characters in the prefix
-     * @return
+     * @return comparator on the first r characters, ignoring case
      */
 	public static Comparator<Term> byPrefixOrder(int r) {
 		if (r < 0) {
-			throw new NullPointerException();
+			throw new IllegalArgumentException();
 		}
+		if (r < PREFIX_COMPARATORS.length) {
+			return PREFIX_COMPARATORS[r];
+		}
+		return new PrefixComparator(r);
+	}
 
-		final int numberOfCharactersToRead = r;
-		return new Comparator<Term>() {
+	/**
+	 * Compares terms on the first r characters of their queries, ignoring case.
+	 */
+	private static class PrefixComparator implements Comparator<Term> {
+		private final int r;
 
-			@Override
-			public int compare(Term t1, Term t2) {
-				int t1Length = t1.query.length();
-				int t2Length = t2.query.length();
+		private PrefixComparator(int r) {
+			this.r = r;
+		}
 
-				int smallestString = t1Length < t2Length ? t1Length : t2Length;
+		public int compare(Term t1, Term t2) {
+			return comparePrefix(t1.query, t2.query, r);
+		}
+	}
 
-				if (numberOfCharactersToRead <= smallestString) {
-					return t1.query.substring(0, numberOfCharactersToRead)
-							.compareToIgnoreCase(t2.query.substring(0, numberOfCharactersToRead));
-				} else {
-					return t1.query.substring(0, smallestString)
-							.compareToIgnoreCase(t2.query.substring(0, smallestString));
-				}
+	/**
+	 * Compare the first r characters of two strings, ignoring case, the same
+	 * way String.compareToIgnoreCase does but in place. A string shorter than
+	 * r characters sorts before any longer string it is a prefix of.
+	 * 
+	 * @param s1
+	 *            first string
+	 * @param s2
+	 *            second string
+	 * @param r
+	 *            number of characters to compare
+	 * @return negative, zero or positive as s1 is less than, equal to or
+	 *         greater than s2 on the first r characters
+	 */
+	static int comparePrefix(String s1, String s2, int r) {
+		int n1 = Math.min(r, s1.length());
+		int n2 = Math.min(r, s2.length());
+		int n = Math.min(n1, n2);
+		for (int i = 0; i < n; i++) {
+			int cmp = compareIgnoreCase(s1.charAt(i), s2.charAt(i));
+			if (cmp != 0) {
+				return cmp;
 			}
-		};
+		}
+		return n1 - n2;
+	}
+
+	/**
+	 * Compare two characters ignoring case, with the same folding as
+	 * String.compareToIgnoreCase.
+	 * 
+	 * @param c1
+	 *            first character
+	 * @param c2
+	 *            second character
+	 * @return difference of the folded characters
+	 */
+	static int compareIgnoreCase(char c1, char c2) {
+		if (c1 == c2) {
+			return 0;
+		}
+		return foldCase(c1) - foldCase(c2);
+	}
+
+	/**
+	 * Fold a character to the form String.compareToIgnoreCase compares:
+	 * upper case first, then lower case.
+	 * 
+	 * @param c
+	 *            character to fold
+	 * @return the folded character
+	 */
+	static char foldCase(char c) {
+		return Character.toLowerCase(Character.toUpperCase(c));
 	}
 
 	/**
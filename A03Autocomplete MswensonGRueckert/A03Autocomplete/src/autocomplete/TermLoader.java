@@ -0,0 +1,467 @@
+package autocomplete;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class TermLoader reads term files in the format used by AutocompleteGUI:
+ * the number of terms on the first line, then one term per line as the
+ * weight, a tab and the query. Leading and trailing blanks around the
+ * weight, a trailing carriage return and blank lines are ignored.
+ * 
+ * The file is split into segments at line boundaries and the segments are
+ * parsed in parallel on a fork-join pool, each straight from a
+ * memory-mapped region of the file. Weights are parsed from the bytes; the
+ * only object created per line is the Term with its query. Problems are
+ * reported as an IOException naming the line.
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class TermLoader {
+	private static final int MIN_SEGMENT_BYTES = 1 << 20;
+	private static final int MAX_SEGMENT_BYTES = 1 << 28;
+
+	private TermLoader() {
+	}
+
+	/**
+	 * Load the terms of a file, or of a classpath resource if no such file
+	 * exists, using the common fork-join pool.
+	 * 
+	 * @param filename
+	 *            file or classpath resource to read
+	 * @return the terms in file order
+	 * @throws IOException
+	 *             if the file cannot be read or is malformed
+	 */
+	public static Term[] load(String filename) throws IOException {
+		return load(filename, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Load the terms of a file, or of a classpath resource if no such file
+	 * exists, parsing on the given pool.
+	 * 
+	 * @param filename
+	 *            file or classpath resource to read
+	 * @param pool
+	 *            pool the segments are parsed on
+	 * @return the terms in file order
+	 * @throws IOException
+	 *             if the file cannot be read or is malformed
+	 */
+	public static Term[] load(String filename, ForkJoinPool pool) throws IOException {
+		if (filename == null || pool == null) {
+			throw new NullPointerException();
+		}
+		try (Source source = open(filename)) {
+			return parse(source, filename, pool);
+		}
+	}
+
+	/**
+	 * Read the terms of a file, or of a classpath resource if no such file
+	 * exists, one at a time on the calling thread, without keeping any of
+	 * them. This is for building an index whose own storage is smaller than
+	 * a Term[] of the whole file.
+	 * 
+	 * @param filename
+	 *            file or classpath resource to read
+	 * @param sink
+	 *            told the number of terms, then handed each term in file
+	 *            order
+	 * @throws IOException
+	 *             if the file cannot be read or is malformed
+	 */
+	static void stream(String filename, TermSink sink) throws IOException {
+		if (filename == null || sink == null) {
+			throw new NullPointerException();
+		}
+		try (Source source = open(filename)) {
+			int[] header = header(source, filename);
+			int n = header[1];
+			sink.expect(n);
+			long[] bounds = segmentBounds(source, header[0], source.size(), 1);
+			LimitedSink limited = new LimitedSink(sink, n);
+			for (int i = 0; i + 1 < bounds.length && limited.seen < n; i++) {
+				try {
+					parseLines(source.region(bounds[i], bounds[i + 1]), bounds[i], limited);
+				} catch (FormatError e) {
+					throw new IOException(filename + ", line " + lineOf(source, e.offset) + ": " + e.getMessage());
+				}
+			}
+			if (limited.seen < n) {
+				throw new IOException(filename + ": expected " + n + " terms but found " + limited.seen);
+			}
+		}
+	}
+
+	/**
+	 * Receives the terms of a file from stream.
+	 */
+	interface TermSink {
+		/**
+		 * Called once, before any term, with the number of terms the file
+		 * promises.
+		 * 
+		 * @param n
+		 *            number of terms
+		 */
+		void expect(int n);
+
+		/**
+		 * Called for each term in file order.
+		 * 
+		 * @param query
+		 *            the query
+		 * @param weight
+		 *            its weight
+		 */
+		void accept(String query, double weight);
+	}
+
+	// passes on the first n terms only, as load keeps only the first n
+	private static class LimitedSink implements TermSink {
+		private final TermSink sink;
+		private final int n;
+		private int seen;
+
+		private LimitedSink(TermSink sink, int n) {
+			this.sink = sink;
+			this.n = n;
+		}
+
+		public void expect(int n) {
+		}
+
+		public void accept(String query, double weight) {
+			if (seen < n) {
+				seen++;
+				sink.accept(query, weight);
+			}
+		}
+	}
+
+	// collects the terms of one segment
+	private static class TermList implements TermSink {
+		private final List<Term> terms = new ArrayList<Term>();
+
+		public void expect(int n) {
+		}
+
+		public void accept(String query, double weight) {
+			terms.add(new Term(query, weight));
+		}
+	}
+
+	// the file if it exists, otherwise the classpath resource read into memory
+	private static Source open(String filename) throws IOException {
+		Path path = Paths.get(filename);
+		if (Files.isRegularFile(path)) {
+			return new FileSource(FileChannel.open(path, StandardOpenOption.READ));
+		}
+		try (InputStream in = TermLoader.class.getResourceAsStream(filename)) {
+			if (in == null) {
+				throw new IOException("No such file or resource: " + filename);
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1 << 16];
+			for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+				bytes.write(buffer, 0, read);
+			}
+			return new BufferSource(ByteBuffer.wrap(bytes.toByteArray()));
+		}
+	}
+
+	/**
+	 * Parse terms from the given bytes.
+	 * 
+	 * @param data
+	 *            the contents of a term file, from position to limit
+	 * @param pool
+	 *            pool the segments are parsed on
+	 * @return the terms in file order
+	 * @throws IOException
+	 *             if the data is malformed
+	 */
+	public static Term[] parse(ByteBuffer data, ForkJoinPool pool) throws IOException {
+		return parse(new BufferSource(data.slice()), "input", pool);
+	}
+
+	/**
+	 * The bytes of a term file, handed out one region at a time.
+	 */
+	private interface Source extends Closeable {
+		long size() throws IOException;
+
+		ByteBuffer region(long start, long end) throws IOException;
+	}
+
+	private static class FileSource implements Source {
+		private final FileChannel channel;
+
+		private FileSource(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		public long size() throws IOException {
+			return channel.size();
+		}
+
+		public ByteBuffer region(long start, long end) throws IOException {
+			return channel.map(MapMode.READ_ONLY, start, end - start);
+		}
+
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	private static class BufferSource implements Source {
+		private final ByteBuffer data;
+
+		private BufferSource(ByteBuffer data) {
+			this.data = data;
+		}
+
+		public long size() {
+			return data.limit();
+		}
+
+		public ByteBuffer region(long start, long end) {
+			ByteBuffer region = data.duplicate();
+			region.limit((int) end).position((int) start);
+			return region.slice();
+		}
+
+		public void close() {
+		}
+	}
+
+	/**
+	 * A malformed line, found at a byte offset of the file. Turned into an
+	 * IOException with the line number once parsing has stopped.
+	 */
+	private static class FormatError extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		private final long offset;
+
+		private FormatError(long offset, String message) {
+			super(message, null, false, false);
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * Parses segments[lo..hi) of the file, splitting the work in halves.
+	 */
+	private static class ParseTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Source source;
+		private final long[] bounds;
+		private final Term[][] results;
+		private final int lo;
+		private final int hi;
+
+		private ParseTask(Source source, long[] bounds, Term[][] results, int lo, int hi) {
+			this.source = source;
+			this.bounds = bounds;
+			this.results = results;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new ParseTask(source, bounds, results, lo, mid),
+						new ParseTask(source, bounds, results, mid, hi));
+				return;
+			}
+			try {
+				results[lo] = parseSegment(source.region(bounds[lo], bounds[lo + 1]), bounds[lo]);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private static Term[] parse(Source source, String name, ForkJoinPool pool) throws IOException {
+		int[] header = header(source, name);
+		int n = header[1];
+
+		long[] bounds = segmentBounds(source, header[0], source.size(), pool.getParallelism());
+		Term[][] results = new Term[bounds.length - 1][];
+		try {
+			pool.invoke(new ParseTask(source, bounds, results, 0, results.length));
+		} catch (FormatError e) {
+			throw new IOException(name + ", line " + lineOf(source, e.offset) + ": " + e.getMessage());
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		Term[] terms = new Term[n];
+		int filled = 0;
+		for (Term[] segment : results) {
+			int copy = Math.min(segment.length, n - filled);
+			System.arraycopy(segment, 0, terms, filled, copy);
+			filled += copy;
+		}
+		if (filled < n) {
+			throw new IOException(name + ": expected " + n + " terms but found " + filled);
+		}
+		return terms;
+	}
+
+	// {end of the header line, number of terms} from the first line
+	private static int[] header(Source source, String name) throws IOException {
+		long size = source.size();
+		ByteBuffer head = source.region(0, Math.min(size, 64));
+		int headerEnd = -1;
+		long count = 0;
+		boolean digits = false;
+		for (int i = 0; i < head.limit(); i++) {
+			byte b = head.get(i);
+			if (b == '\n') {
+				headerEnd = i + 1;
+				break;
+			} else if (b >= '0' && b <= '9') {
+				count = 10 * count + (b - '0');
+				if (count > Integer.MAX_VALUE) {
+					throw new IOException(name + ", line 1: expected the number of terms");
+				}
+				digits = true;
+			} else if (b != ' ' && b != '\t' && b != '\r') {
+				break;
+			}
+		}
+		if (headerEnd == -1 && head.limit() == size && digits) {
+			headerEnd = (int) size;
+		}
+		if (headerEnd == -1 || !digits) {
+			throw new IOException(name + ", line 1: expected the number of terms");
+		}
+		return new int[] { headerEnd, (int) count };
+	}
+
+	// segment i is [bounds[i], bounds[i + 1]), every bound but the first and
+	// last just after a newline
+	private static long[] segmentBounds(Source source, long start, long end, int parallelism) throws IOException {
+		long target = Math.max(MIN_SEGMENT_BYTES, Math.min(MAX_SEGMENT_BYTES, (end - start) / (4L * parallelism)));
+		List<Long> bounds = new ArrayList<Long>();
+		bounds.add(start);
+		long position = start + target;
+		while (position < end) {
+			ByteBuffer window = source.region(position, Math.min(end, position + 4096));
+			int i = 0;
+			while (i < window.limit() && window.get(i) != '\n') {
+				i++;
+			}
+			if (i == window.limit() && position + i < end) {
+				position += i;
+				continue;
+			}
+			position += i + 1;
+			if (position < end) {
+				bounds.add(position);
+			}
+			position += target;
+		}
+		bounds.add(end);
+		long[] result = new long[bounds.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = bounds.get(i);
+		}
+		return result;
+	}
+
+	// parse the lines of one segment that starts at byte base of the file
+	private static Term[] parseSegment(ByteBuffer segment, long base) {
+		TermList terms = new TermList();
+		parseLines(segment, base, terms);
+		return terms.terms.toArray(new Term[terms.terms.size()]);
+	}
+
+	// hand each line of a segment that starts at byte base to sink
+	private static void parseLines(ByteBuffer segment, long base, TermSink sink) {
+		byte[] query = new byte[256];
+		int limit = segment.limit();
+		int i = 0;
+		while (i < limit) {
+			int lineStart = i;
+			while (i < limit && (segment.get(i) == ' ' || segment.get(i) == '\r')) {
+				i++;
+			}
+			if (i == limit || segment.get(i) == '\n') {
+				i++; // blank line
+				continue;
+			}
+
+			long weight = 0;
+			int digitsStart = i;
+			while (i < limit && segment.get(i) >= '0' && segment.get(i) <= '9') {
+				int d = segment.get(i++) - '0';
+				// checked before it can wrap, since a wrapped sum need not be negative
+				if (weight > (Long.MAX_VALUE - d) / 10) {
+					throw new FormatError(base + lineStart, "weight is too large");
+				}
+				weight = 10 * weight + d;
+			}
+			if (i == digitsStart) {
+				throw new FormatError(base + lineStart, "expected a weight");
+			}
+			while (i < limit && segment.get(i) == ' ') {
+				i++;
+			}
+			if (i == limit || segment.get(i) != '\t') {
+				throw new FormatError(base + lineStart, "no tab character after the weight");
+			}
+			i++;
+
+			int length = 0;
+			while (i < limit && segment.get(i) != '\n') {
+				if (length == query.length) {
+					query = Arrays.copyOf(query, 2 * length);
+				}
+				query[length++] = segment.get(i++);
+			}
+			i++;
+			if (length > 0 && query[length - 1] == '\r') {
+				length--;
+			}
+			sink.accept(new String(query, 0, length, StandardCharsets.UTF_8), weight);
+		}
+	}
+
+	// 1-based line number of the byte at offset
+	private static long lineOf(Source source, long offset) throws IOException {
+		long line = 1;
+		for (long start = 0; start < offset; start += MAX_SEGMENT_BYTES) {
+			ByteBuffer region = source.region(start, Math.min(offset, start + MAX_SEGMENT_BYTES));
+			for (int i = 0; i < region.limit(); i++) {
+				if (region.get(i) == '\n') {
+					line++;
+				}
+			}
+		}
+		return line;
+	}
+}
@@ -0,0 +1,86 @@
+package autocomplete;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ForkJoinPool;
+
+import edu.princeton.cs.algs4.In;
+
+/**
+ * Class TermLoaderBenchmark measures load throughput in MB/s of TermLoader
+ * on one thread and on all cores, against the line-by-line In.readLine
+ * parser AutocompleteGUI used before.
+ * 
+ * Usage: java autocomplete.TermLoaderBenchmark [syntheticTerms]
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class TermLoaderBenchmark {
+	private static final int ROUNDS = 5;
+
+	// the parser AutocompleteGUI used before TermLoader
+	private static Term[] readLines(String filename) {
+		In in = new In(filename);
+		int n = Integer.parseInt(in.readLine().trim());
+		Term[] terms = new Term[n];
+		for (int i = 0; i < n; i++) {
+			String line = in.readLine();
+			int tab = line.indexOf('\t');
+			long weight = Long.parseLong(line.substring(0, tab).trim());
+			terms[i] = new Term(line.substring(tab + 1), weight);
+		}
+		return terms;
+	}
+
+	private interface Load {
+		Term[] run() throws IOException;
+	}
+
+	// best of ROUNDS, in MB/s
+	private static double throughput(File file, Load load) throws IOException {
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			load.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return file.length() / 1e6 / (best / 1e9);
+	}
+
+	public static void main(String[] args) throws IOException {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+		final File file = File.createTempFile("terms", ".txt");
+		file.deleteOnExit();
+		try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+			out.println(n);
+			for (Term term : AutocompleteBenchmark.syntheticTerms(n)) {
+				out.print(String.format("%10d\t%s\r\n", (long) term.getWeight(), term.getQuery()));
+			}
+		}
+
+		final ForkJoinPool single = new ForkJoinPool(1);
+		double lines = throughput(file, new Load() {
+			public Term[] run() {
+				return readLines(file.getPath());
+			}
+		});
+		double one = throughput(file, new Load() {
+			public Term[] run() throws IOException {
+				return TermLoader.load(file.getPath(), single);
+			}
+		});
+		double all = throughput(file, new Load() {
+			public Term[] run() throws IOException {
+				return TermLoader.load(file.getPath());
+			}
+		});
+		single.shutdown();
+
+		System.out.printf("%d terms, %.1f MB%n", n, file.length() / 1e6);
+		System.out.printf("In.readLine                 %8.1f MB/s%n", lines);
+		System.out.printf("TermLoader, 1 thread        %8.1f MB/s%n", one);
+		System.out.printf("TermLoader, parallelism %-3d %8.1f MB/s%n", ForkJoinPool.commonPool().getParallelism(), all);
+	}
+}
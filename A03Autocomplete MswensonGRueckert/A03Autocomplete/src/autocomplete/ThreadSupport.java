@@ -0,0 +1,85 @@
+package autocomplete;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Class ThreadSupport hands out virtual threads when the JVM has them
+ * (Java 21 and later) and ordinary threads otherwise. The code is compiled
+ * for Java 8, so the virtual thread API is looked up by reflection.
+ *
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class ThreadSupport {
+	private static final Method NEW_VIRTUAL_EXECUTOR = lookup(Executors.class, "newVirtualThreadPerTaskExecutor");
+	private static final Method START_VIRTUAL_THREAD = lookup(Thread.class, "startVirtualThread", Runnable.class);
+
+	private ThreadSupport() {
+	}
+
+	private static Method lookup(Class<?> type, String name, Class<?>... parameters) {
+		try {
+			return type.getMethod(name, parameters);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Return whether this JVM supports virtual threads.
+	 *
+	 * @return true on Java 21 and later
+	 */
+	public static boolean hasVirtualThreads() {
+		return NEW_VIRTUAL_EXECUTOR != null;
+	}
+
+	/**
+	 * Return an executor that runs every task on a thread of its own:
+	 * virtual threads if the JVM has them, otherwise a cached pool of daemon
+	 * platform threads.
+	 *
+	 * @return a thread-per-task executor
+	 */
+	public static ExecutorService newThreadPerTaskExecutor() {
+		if (NEW_VIRTUAL_EXECUTOR != null) {
+			try {
+				return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				// fall back to platform threads
+			}
+		}
+		return Executors.newCachedThreadPool(new ThreadFactory() {
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Start the task on a new virtual thread if the JVM has them, otherwise
+	 * on a new daemon platform thread.
+	 *
+	 * @param task
+	 *            the task to run
+	 * @return the started thread
+	 */
+	public static Thread start(Runnable task) {
+		if (START_VIRTUAL_THREAD != null) {
+			try {
+				return (Thread) START_VIRTUAL_THREAD.invoke(null, task);
+			} catch (ReflectiveOperationException e) {
+				// fall back to platform threads
+			}
+		}
+		Thread thread = new Thread(task);
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+}
@@ -0,0 +1,656 @@
+package autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Class TrieAutocomplete answers the same queries as Autocomplete from a
+ * ternary search trie keyed on the case-folded query characters. Finding
+ * the node of a prefix costs O(prefix length) character comparisons
+ * instead of O(log n) string comparisons.
+ * 
+ * Every node caches the heaviest weight and the number of terms below it,
+ * so numberOfMatches is answered at the prefix node and the top k terms
+ * are found best-first: a branch is only expanded while it can still hold
+ * one of the k heaviest completions.
+ * 
+ * fuzzyMatches completes prefixes with typos. It walks the trie with a
+ * Levenshtein automaton for the prefix, run bit-parallel: a branch is
+ * dropped as soon as no prefix of the prefix is within the distance
+ * allowed, and the completions of the strings it accepts are ranked with
+ * the same best-first queue as exact matches. The walk widens one edit at a
+ * time: strings two edits away are only searched for when fewer than k
+ * terms are within one, and then only below the branches the one-edit walk
+ * cut off.
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class TrieAutocomplete implements AutocompleteEngine {
+	/**
+	 * Largest edit distance fuzzyMatches accepts.
+	 */
+	public static final int MAX_DISTANCE = 2;
+
+	private static final Term[] NO_TERMS = new Term[0];
+
+	private Node root;
+	// terms whose query is the empty string
+	private Term[] emptyQueries = NO_TERMS;
+	private final int size;
+
+	private static class Node {
+		private final char c;
+		private Node left;
+		private Node mid;
+		private Node right;
+		// terms ending at this node, heaviest first
+		private Term[] terms = NO_TERMS;
+		// heaviest weight and number of terms in this node's ternary subtree
+		private double max = Double.NEGATIVE_INFINITY;
+		private int count;
+
+		private Node(char c) {
+			this.c = c;
+		}
+	}
+
+	// a subtree or a single term waiting in the best-first queue
+	private static class Candidate {
+		private final double weight;
+		private final Node node;
+		private final Term term;
+
+		private Candidate(double weight, Node node, Term term) {
+			this.weight = weight;
+			this.node = node;
+			this.term = term;
+		}
+	}
+
+	private static final Comparator<Candidate> HEAVIEST_FIRST = new Comparator<Candidate>() {
+		public int compare(Candidate c1, Candidate c2) {
+			return Double.compare(c2.weight, c1.weight);
+		}
+	};
+
+	/**
+	 * Initialize the trie from the given array of terms.
+	 * 
+	 * @param terms
+	 *            list of terms to be inserted
+	 */
+	public TrieAutocomplete(Term[] terms) {
+		if (terms == null) {
+			throw new IllegalArgumentException();
+		}
+		// inserting in median order of the folded keys keeps the trie balanced
+		Term[] sorted = terms.clone();
+		Arrays.sort(sorted, Term.byPrefixOrder(Integer.MAX_VALUE));
+		insertMedianFirst(sorted, 0, sorted.length - 1);
+		this.size = terms.length;
+	}
+
+	/**
+	 * Return all terms that start with the given prefix, in descending order of
+	 * weight.
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @return array of matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix) {
+		return allMatches(prefix, numberOfMatches(prefix));
+	}
+
+	/**
+	 * Return the k heaviest terms that start with the given prefix, in
+	 * descending order of weight.
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @param k
+	 *            maximum number of terms to return
+	 * @return array of at most k matching terms sorted by weight
+	 */
+	public Term[] allMatches(String prefix, int k) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		if (k < 0) {
+			throw new IllegalArgumentException();
+		}
+		PriorityQueue<Candidate> queue = new PriorityQueue<Candidate>(16, HEAVIEST_FIRST);
+		int available;
+		if (prefix.isEmpty()) {
+			offerTerms(queue, emptyQueries);
+			offerSubtree(queue, root);
+			available = size;
+		} else {
+			Node x = find(prefix);
+			if (x == null) {
+				return NO_TERMS;
+			}
+			offerTerms(queue, x.terms);
+			offerSubtree(queue, x.mid);
+			available = completions(x);
+		}
+
+		Term[] matches = new Term[Math.min(k, available)];
+		int found = 0;
+		while (found < matches.length) {
+			Candidate next = queue.poll();
+			matches[found++] = next.term != null ? next.term : heaviest(next.node, queue);
+		}
+		return matches;
+	}
+
+	/**
+	 * Walk down to the heaviest term of x's subtree and queue every branch
+	 * passed on the way. The heaviest part of a node weighs x.max, which is
+	 * at least as much as anything in the queue, so it is followed directly
+	 * instead of going through the queue.
+	 */
+	private static Term heaviest(Node x, PriorityQueue<Candidate> queue) {
+		while (true) {
+			if (x.terms.length > 0 && x.terms[0].getWeight() == x.max) {
+				for (int i = 1; i < x.terms.length; i++) {
+					queue.add(new Candidate(x.terms[i].getWeight(), null, x.terms[i]));
+				}
+				offerSubtree(queue, x.left);
+				offerSubtree(queue, x.mid);
+				offerSubtree(queue, x.right);
+				return x.terms[0];
+			}
+			offerTerms(queue, x.terms);
+			Node next;
+			if (x.left != null && x.left.max == x.max) {
+				next = x.left;
+				offerSubtree(queue, x.mid);
+				offerSubtree(queue, x.right);
+			} else if (x.mid != null && x.mid.max == x.max) {
+				next = x.mid;
+				offerSubtree(queue, x.left);
+				offerSubtree(queue, x.right);
+			} else {
+				next = x.right;
+				offerSubtree(queue, x.left);
+				offerSubtree(queue, x.mid);
+			}
+			x = next;
+		}
+	}
+
+	/**
+	 * Return the k heaviest terms that start with a string within
+	 * maxDistance edits (insertions, deletions or substitutions, ignoring
+	 * case) of the given prefix. Exact matches always come first, then the
+	 * matches one edit away, then two; each group is in descending order of
+	 * weight.
+	 * 
+	 * @param prefix
+	 *            the prefix entered
+	 * @param maxDistance
+	 *            edits allowed, 0 to MAX_DISTANCE
+	 * @param k
+	 *            maximum number of terms to return
+	 * @return array of at most k matching terms
+	 */
+	public Term[] fuzzyMatches(String prefix, int maxDistance, int k) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		if (k < 0 || maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+			throw new IllegalArgumentException();
+		}
+		// exact matches rank first, so a prefix with k of them is done
+		Term[] exact = allMatches(prefix, k);
+		if (exact.length == k || maxDistance == 0) {
+			return exact;
+		}
+
+		char[] folded = new char[prefix.length()];
+		for (int i = 0; i < folded.length; i++) {
+			folded[i] = Term.foldCase(prefix.charAt(i));
+		}
+
+		// a term can sit below anchors of several tiers; it counts in the first
+		List<Term> matches = new ArrayList<Term>(Arrays.asList(exact));
+		Set<Term> seen = Collections.newSetFromMap(new IdentityHashMap<Term, Boolean>());
+		seen.addAll(matches);
+		// a tier is only widened past once it has been ranked in full
+		FuzzyWalk walk = new FuzzyWalk(folded, root, emptyQueries);
+		for (int d = 1; d <= maxDistance && matches.size() < k; d++) {
+			PriorityQueue<Candidate> queue = new PriorityQueue<Candidate>(16, HEAVIEST_FIRST);
+			for (Anchor anchor : walk.widen(d)) {
+				offerTerms(queue, anchor.terms);
+				offerSubtree(queue, anchor.subtree);
+			}
+			while (matches.size() < k && !queue.isEmpty()) {
+				Candidate next = queue.poll();
+				Term term = next.term != null ? next.term : heaviest(next.node, queue);
+				if (seen.add(term)) {
+					matches.add(term);
+				}
+			}
+		}
+		return matches.toArray(new Term[matches.size()]);
+	}
+
+	// the completions of one string within the distance of a fuzzy prefix
+	private static class Anchor {
+		private final Term[] terms;
+		private final Node subtree;
+
+		private Anchor(Term[] terms, Node subtree) {
+			this.terms = terms;
+			this.subtree = subtree;
+		}
+	}
+
+	/**
+	 * A walk of the trie that files the strings within MAX_DISTANCE edits of
+	 * a folded prefix by their distance, as anchors for their completions. A
+	 * string below an anchor is only filed if it is closer than the anchor.
+	 *
+	 * The walk is widened one edit at a time. At radius r it only goes down
+	 * branches that can still hold a string within r edits, and keeps the
+	 * branches it cut off, with their automaton states, to go on from when
+	 * it is widened, so no node is stepped over twice.
+	 *
+	 * The automaton state of a string s holds, for every edit count e up to
+	 * MAX_DISTANCE, the set of lengths i for which s is within e edits of
+	 * prefix[0..i). Only lengths within MAX_DISTANCE of s.length() can be, so
+	 * each set is a band of BAND bits, bit t standing for i = s.length() -
+	 * MAX_DISTANCE + t, and set e is byte e of an int. Stepping to a longer
+	 * string is the bit-parallel NFA of Wu and Manber: keeping to the
+	 * diagonal leaves a bit where it is, so a step takes a few shifts and
+	 * masks per edit count and allocates nothing.
+	 */
+	private static class FuzzyWalk {
+		private static final int BAND = 2 * MAX_DISTANCE + 1;
+		private static final int LEVEL_BITS = 8;
+		private static final int LEVEL_MASK = (1 << LEVEL_BITS) - 1;
+		// distance of a string not within MAX_DISTANCE
+		private static final int FAR = MAX_DISTANCE + 1;
+
+		private final char[] prefix;
+		private final List<List<Anchor>> tiers = new ArrayList<List<Anchor>>();
+		// branches cut off by the walks so far
+		private List<Branch> cut = new ArrayList<Branch>();
+		private int radius;
+
+		/**
+		 * The sibling tree x below a string of the given length and
+		 * automaton state, which the walk will enter once the radius reaches
+		 * needed. Siblings whose character is in the sorted visited array
+		 * have been walked already.
+		 */
+		private static class Branch {
+			private final Node x;
+			private final int state;
+			private final int length;
+			private final int anchored;
+			private final char[] visited;
+			private final int needed;
+
+			private Branch(Node x, int state, int length, int anchored, char[] visited, int needed) {
+				this.x = x;
+				this.state = state;
+				this.length = length;
+				this.anchored = anchored;
+				this.visited = visited;
+				this.needed = needed;
+			}
+		}
+
+		private FuzzyWalk(char[] prefix, Node root, Term[] emptyQueries) {
+			this.prefix = prefix;
+			for (int d = 0; d <= MAX_DISTANCE; d++) {
+				tiers.add(new ArrayList<Anchor>());
+			}
+			// the empty string is prefix.length deletions away
+			int anchored = FAR;
+			if (prefix.length <= MAX_DISTANCE) {
+				tiers.get(prefix.length).add(new Anchor(emptyQueries, root));
+				anchored = prefix.length;
+			}
+			int start = 0;
+			for (int e = 0; e <= MAX_DISTANCE; e++) {
+				for (int i = 0; i <= Math.min(e, prefix.length); i++) {
+					start |= 1 << (LEVEL_BITS * e + MAX_DISTANCE + i);
+				}
+			}
+			cut.add(new Branch(root, start, 0, anchored, null, 0));
+		}
+
+		/**
+		 * Walk out to the given distance and return the anchors exactly that
+		 * many edits from the prefix.
+		 */
+		private List<Anchor> widen(int distance) {
+			radius = distance;
+			List<Branch> branches = cut;
+			cut = new ArrayList<Branch>();
+			for (Branch branch : branches) {
+				if (branch.needed <= radius) {
+					siblings(branch.x, branch.state, branch.length, branch.anchored, branch.visited);
+				} else {
+					cut.add(branch);
+				}
+			}
+			return tiers.get(distance);
+		}
+
+		/*
+		 * Walk the sibling tree x below a string of the given length and
+		 * state, skipping the characters in visited. A sibling whose
+		 * character is not in the band of the prefix gets the same state as
+		 * every other such sibling. If that state is out of reach, a sibling
+		 * can only come within the radius by matching prefix[i - 1] for an i
+		 * whose length the parent is within the radius of, and the sibling
+		 * tree is searched for just those characters.
+		 */
+		private void siblings(Node x, int parent, int length, int anchored, char[] visited) {
+			if (x == null) {
+				return;
+			}
+			int shared = min(step(parent, 0, length + 1));
+			if (shared <= radius) {
+				all(x, parent, length, anchored, visited);
+				return;
+			}
+			char[] wanted = wanted(parent >>> (LEVEL_BITS * radius) & LEVEL_MASK, length + 1, visited);
+			if (shared < FAR) {
+				cut.add(new Branch(x, parent, length, anchored, union(visited, wanted), shared));
+			}
+			some(x, wanted, 0, wanted.length - 1, parent, length, anchored);
+		}
+
+		// every sibling in x's tree but the visited ones
+		private void all(Node x, int parent, int length, int anchored, char[] visited) {
+			while (x != null) {
+				all(x.left, parent, length, anchored, visited);
+				if (visited == null || Arrays.binarySearch(visited, x.c) < 0) {
+					visit(x, parent, length, anchored);
+				}
+				x = x.right;
+			}
+		}
+
+		// the siblings in x's tree whose character is in the sorted wanted[lo..hi]
+		private void some(Node x, char[] wanted, int lo, int hi, int parent, int length, int anchored) {
+			while (x != null && lo <= hi) {
+				int split = lo;
+				while (split <= hi && wanted[split] < x.c) {
+					split++;
+				}
+				some(x.left, wanted, lo, split - 1, parent, length, anchored);
+				if (split <= hi && wanted[split] == x.c) {
+					visit(x, parent, length, anchored);
+				}
+				while (split <= hi && wanted[split] <= x.c) {
+					split++;
+				}
+				lo = split;
+				x = x.right;
+			}
+		}
+
+		/*
+		 * Step the automaton over x's character: file x if its string is
+		 * within MAX_DISTANCE and closer than the anchor above it, and go on
+		 * down while a string below x could still be closer, now if it could
+		 * be within the radius and otherwise once the walk is widened. No
+		 * string below x gets closer than the smallest edit count whose set
+		 * is not empty.
+		 */
+		private void visit(Node x, int parent, int length, int anchored) {
+			int state = step(parent, band(x.c, length + 1), length + 1);
+			int distance = distance(state, length + 1);
+			int below = anchored;
+			if (distance < anchored) {
+				tiers.get(distance).add(new Anchor(x.terms, x.mid));
+				below = distance;
+			}
+			int min = min(state);
+			if (min < below && x.mid != null) {
+				if (min <= radius) {
+					siblings(x.mid, state, length + 1, below, null);
+				} else {
+					cut.add(new Branch(x.mid, state, length + 1, below, null, min));
+				}
+			}
+		}
+
+		// the state after appending a character that matches the prefix
+		// where band has a bit, to a string now of the given length
+		private int step(int state, int band, int length) {
+			int valid = valid(length);
+			int next = 0;
+			int before = 0;
+			int after = 0;
+			for (int e = 0; e <= MAX_DISTANCE; e++) {
+				int old = state >>> (LEVEL_BITS * e) & LEVEL_MASK;
+				int bits = old & band;
+				if (e > 0) {
+					// substitution, insertion into the prefix, deletion from it
+					bits |= before | before >>> 1 | after << 1;
+				}
+				bits &= valid;
+				next |= bits << (LEVEL_BITS * e);
+				before = old;
+				after = bits;
+			}
+			return next;
+		}
+
+		// the bits of the band that stand for a length 0..prefix.length
+		private int valid(int length) {
+			int lo = Math.max(0, MAX_DISTANCE - length);
+			int hi = Math.min(BAND - 1, prefix.length - length + MAX_DISTANCE);
+			return lo > hi ? 0 : (1 << (hi + 1)) - (1 << lo);
+		}
+
+		// bit t set where prefix[i - 1] == c, for the i that bit t stands for
+		private int band(char c, int length) {
+			int bits = 0;
+			for (int t = 0; t < BAND; t++) {
+				int i = length - MAX_DISTANCE + t;
+				if (i >= 1 && i <= prefix.length && prefix[i - 1] == c) {
+					bits |= 1 << t;
+				}
+			}
+			return bits;
+		}
+
+		// the sorted characters prefix[i - 1] for the lengths i that reach
+		// has a bit for, but the visited ones
+		private char[] wanted(int reach, int length, char[] visited) {
+			char[] wanted = new char[BAND];
+			int count = 0;
+			for (int t = 0; t < BAND; t++) {
+				int i = length - MAX_DISTANCE + t;
+				if ((reach >>> t & 1) != 0 && i >= 1 && i <= prefix.length
+						&& (visited == null || Arrays.binarySearch(visited, prefix[i - 1]) < 0)) {
+					// insertion sort, there are at most BAND of them
+					int j = count++;
+					for (; j > 0 && wanted[j - 1] > prefix[i - 1]; j--) {
+						wanted[j] = wanted[j - 1];
+					}
+					wanted[j] = prefix[i - 1];
+				}
+			}
+			return Arrays.copyOf(wanted, count);
+		}
+
+		private static char[] union(char[] visited, char[] wanted) {
+			if (visited == null) {
+				return wanted;
+			}
+			char[] both = new char[visited.length + wanted.length];
+			for (int i = 0, j = 0, n = 0; n < both.length; n++) {
+				both[n] = j == wanted.length || i < visited.length && visited[i] <= wanted[j] ? visited[i++] : wanted[j++];
+			}
+			return both;
+		}
+
+		// distance from a string of the given length to the whole prefix
+		private int distance(int state, int length) {
+			int t = prefix.length - length + MAX_DISTANCE;
+			if (t < 0 || t >= BAND) {
+				return FAR;
+			}
+			for (int e = 0; e <= MAX_DISTANCE; e++) {
+				if ((state >>> (LEVEL_BITS * e + t) & 1) != 0) {
+					return e;
+				}
+			}
+			return FAR;
+		}
+
+		// the smallest edit count whose set is not empty, FAR if none
+		private static int min(int state) {
+			for (int e = 0; e <= MAX_DISTANCE; e++) {
+				if ((state >>> (LEVEL_BITS * e) & LEVEL_MASK) != 0) {
+					return e;
+				}
+			}
+			return FAR;
+		}
+	}
+
+	/**
+	 * Return the number of terms that start with the given prefix.
+	 * 
+	 * @param prefix
+	 * @return number of terms with matching prefix
+	 */
+	public int numberOfMatches(String prefix) {
+		if (prefix == null) {
+			throw new NullPointerException();
+		}
+		if (prefix.isEmpty()) {
+			return size;
+		}
+		Node x = find(prefix);
+		if (x == null) {
+			return 0;
+		}
+		return completions(x);
+	}
+
+	/**
+	 * Return the number of terms in the trie.
+	 * 
+	 * @return number of terms
+	 */
+	public int size() {
+		return size;
+	}
+
+	// number of terms whose key runs through x
+	private static int completions(Node x) {
+		return x.terms.length + (x.mid == null ? 0 : x.mid.count);
+	}
+
+	private static void offerTerms(PriorityQueue<Candidate> queue, Term[] terms) {
+		for (Term term : terms) {
+			queue.add(new Candidate(term.getWeight(), null, term));
+		}
+	}
+
+	private static void offerSubtree(PriorityQueue<Candidate> queue, Node x) {
+		if (x != null) {
+			queue.add(new Candidate(x.max, x, null));
+		}
+	}
+
+	// node of the last character of prefix, or null
+	private Node find(String prefix) {
+		Node x = root;
+		int d = 0;
+		char c = Term.foldCase(prefix.charAt(0));
+		while (x != null) {
+			if (c < x.c) {
+				x = x.left;
+			} else if (c > x.c) {
+				x = x.right;
+			} else if (d < prefix.length() - 1) {
+				x = x.mid;
+				c = Term.foldCase(prefix.charAt(++d));
+			} else {
+				return x;
+			}
+		}
+		return null;
+	}
+
+	private void insertMedianFirst(Term[] sorted, int lo, int hi) {
+		if (lo > hi) {
+			return;
+		}
+		int mid = lo + (hi - lo) / 2;
+		insert(sorted[mid]);
+		insertMedianFirst(sorted, lo, mid - 1);
+		insertMedianFirst(sorted, mid + 1, hi);
+	}
+
+	// every node on the search path has the new term in its subtree
+	private void insert(Term term) {
+		String query = term.getQuery();
+		double weight = term.getWeight();
+		if (query.isEmpty()) {
+			emptyQueries = withTerm(emptyQueries, term);
+			return;
+		}
+		if (root == null) {
+			root = new Node(Term.foldCase(query.charAt(0)));
+		}
+		Node x = root;
+		int d = 0;
+		char c = Term.foldCase(query.charAt(0));
+		while (true) {
+			x.count++;
+			x.max = Math.max(x.max, weight);
+			if (c < x.c) {
+				if (x.left == null) {
+					x.left = new Node(c);
+				}
+				x = x.left;
+			} else if (c > x.c) {
+				if (x.right == null) {
+					x.right = new Node(c);
+				}
+				x = x.right;
+			} else if (d < query.length() - 1) {
+				c = Term.foldCase(query.charAt(++d));
+				if (x.mid == null) {
+					x.mid = new Node(c);
+				}
+				x = x.mid;
+			} else {
+				x.terms = withTerm(x.terms, term);
+				return;
+			}
+		}
+	}
+
+	// terms plus term, kept heaviest first
+	private static Term[] withTerm(Term[] terms, Term term) {
+		Term[] grown = Arrays.copyOf(terms, terms.length + 1);
+		int i = terms.length;
+		while (i > 0 && grown[i - 1].getWeight() < term.getWeight()) {
+			grown[i] = grown[i - 1];
+			i--;
+		}
+		grown[i] = term;
+		return grown;
+	}
+}
@@ -0,0 +1,62 @@
+package autocomplete;
+
+/**
+ * Class TrieBenchmark compares TrieAutocomplete head to head with the
+ * sorted-array Autocomplete (Quick.sort plus BinarySearchDeluxe): build
+ * time, top-k queries and match counts on HailSatan.txt and on a large
+ * synthetic corpus.
+ * 
+ * Usage: java autocomplete.TrieBenchmark [syntheticTerms] [k]
+ * 
+ * @author Michael Swenson, GarretRueckert
+ *
+ */
+public class TrieBenchmark {
+
+	private static void compare(String label, Term[] terms, String[] prefixes, final int k) {
+		long start = System.nanoTime();
+		final Autocomplete auto = new Autocomplete(terms);
+		double autoBuild = (System.nanoTime() - start) / 1e6;
+		start = System.nanoTime();
+		final TrieAutocomplete trie = new TrieAutocomplete(terms);
+		double trieBuild = (System.nanoTime() - start) / 1e6;
+
+		double autoTopK = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return auto.allMatches(prefix, k).length;
+			}
+		});
+		double trieTopK = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return trie.allMatches(prefix, k).length;
+			}
+		});
+		double autoCount = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return auto.numberOfMatches(prefix);
+			}
+		});
+		double trieCount = AutocompleteBenchmark.time(prefixes, new AutocompleteBenchmark.Query() {
+			public int run(String prefix) {
+				return trie.numberOfMatches(prefix);
+			}
+		});
+		System.out.println(label);
+		System.out.printf("  build             array %10.1f ms   trie %10.1f ms%n", autoBuild, trieBuild);
+		System.out.printf("  allMatches(p, %d) array %10.2f us   trie %10.2f us%n", k, autoTopK, trieTopK);
+		System.out.printf("  numberOfMatches   array %10.2f us   trie %10.2f us%n", autoCount, trieCount);
+	}
+
+	public static void main(String[] args) {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+		int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		Term[] metal = AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA);
+		compare("HailSatan short prefixes", metal, new String[] { "M", "T", "B", "S" }, k);
+		compare("HailSatan long prefixes", metal, new String[] { "Metallica - M", "Opeth - B", "Megadeth - R" }, k);
+
+		Term[] synthetic = AutocompleteBenchmark.syntheticTerms(n);
+		compare("synthetic short prefixes", synthetic, new String[] { "a", "m", "q", "z" }, k);
+		compare("synthetic long prefixes", synthetic, new String[] { "abc", "mno", "qrst", "zyx" }, k);
+	}
+}
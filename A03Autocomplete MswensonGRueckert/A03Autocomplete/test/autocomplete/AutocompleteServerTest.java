@@ -0,0 +1,136 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AutocompleteServerTest {
+	private Autocomplete auto;
+
+	@Before
+	public void setUp() {
+		auto = new Autocomplete(new Term[] { new Term("metal", 10), new Term("metallica", 50),
+				new Term("megadeth", 30), new Term("opeth", 20) });
+	}
+
+	@Test
+	public void testAnswer() throws IOException {
+		AutocompleteServer server = new AutocompleteServer(auto, 0, 2);
+		try {
+			StringWriter out = new StringWriter();
+			server.answer("me", out);
+			server.answer("1\tOP", out);
+			server.answer("x\tme", out);
+			server.answer("-1\tme", out);
+			server.answer("5\tzz", out);
+			assertEquals("2\n50.0\tmetallica\n30.0\tmegadeth\n1\n20.0\topeth\n" + "ERR k is not a number\n"
+					+ "ERR k is negative\n0\n", out.toString());
+		} finally {
+			server.close();
+		}
+	}
+
+	@Test
+	public void testAnswer_germanLocale() throws IOException {
+		Locale saved = Locale.getDefault();
+		Locale.setDefault(Locale.GERMANY);
+		AutocompleteServer server = new AutocompleteServer(auto, 0, 2);
+		try {
+			StringWriter out = new StringWriter();
+			server.answer("met", out);
+			assertEquals("2\n50.0\tmetallica\n10.0\tmetal\n", out.toString());
+		} finally {
+			server.close();
+			Locale.setDefault(saved);
+		}
+	}
+
+	@Test
+	public void testPipelinedBatch() throws IOException {
+		AutocompleteServer server = new AutocompleteServer(auto, 0, 10);
+		server.start();
+		Socket socket = new Socket("localhost", server.port());
+		try {
+			OutputStream out = socket.getOutputStream();
+			out.write("3\tme\n1\tmetal\no\n".getBytes(StandardCharsets.UTF_8));
+			out.flush();
+			BufferedReader in = new BufferedReader(
+					new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			assertEquals("3", in.readLine());
+			assertEquals("50.0\tmetallica", in.readLine());
+			assertEquals("30.0\tmegadeth", in.readLine());
+			assertEquals("10.0\tmetal", in.readLine());
+			assertEquals("1", in.readLine());
+			assertEquals("50.0\tmetallica", in.readLine());
+			assertEquals("1", in.readLine());
+			assertEquals("20.0\topeth", in.readLine());
+		} finally {
+			socket.close();
+			server.close();
+		}
+	}
+
+	@Test
+	public void testEngineFailure() throws IOException {
+		AutocompleteEngine broken = new AutocompleteEngine() {
+			public Term[] allMatches(String prefix) {
+				throw new UnsupportedOperationException();
+			}
+
+			public Term[] allMatches(String prefix, int k) {
+				if (prefix.equals("boom")) {
+					throw new IllegalStateException("engine\nfailed");
+				}
+				return auto.allMatches(prefix, k);
+			}
+
+			public int numberOfMatches(String prefix) {
+				return auto.numberOfMatches(prefix);
+			}
+		};
+		AutocompleteServer server = new AutocompleteServer(broken, 0, 1);
+		try {
+			StringWriter out = new StringWriter();
+			server.answer("boom", out);
+			server.answer("op", out);
+			assertEquals("ERR engine failed\n1\n20.0\topeth\n", out.toString());
+		} finally {
+			server.close();
+		}
+	}
+
+	@Test
+	public void testRequestTooLong() throws IOException {
+		AutocompleteServer server = new AutocompleteServer(auto, 0, 10);
+		server.start();
+		Socket socket = new Socket("localhost", server.port());
+		try {
+			StringBuilder batch = new StringBuilder();
+			for (int i = 0; i <= AutocompleteServer.MAX_REQUEST_CHARS; i++) {
+				batch.append('m');
+			}
+			batch.append("\n1\tme\r\n");
+			OutputStream out = socket.getOutputStream();
+			out.write(batch.toString().getBytes(StandardCharsets.UTF_8));
+			out.flush();
+			BufferedReader in = new BufferedReader(
+					new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			assertEquals("ERR request is too long", in.readLine());
+			assertEquals("1", in.readLine());
+			assertEquals("50.0\tmetallica", in.readLine());
+		} finally {
+			socket.close();
+			server.close();
+		}
+	}
+}
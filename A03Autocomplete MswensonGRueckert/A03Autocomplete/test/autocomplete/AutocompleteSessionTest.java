@@ -0,0 +1,80 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AutocompleteSessionTest {
+	private Autocomplete auto;
+	private AutocompleteSession session;
+
+	@Before
+	public void setUp() {
+		auto = new Autocomplete(new Term[] { new Term("meta", 5), new Term("metal", 10), new Term("metallica", 50),
+				new Term("megadeth", 30), new Term("opeth", 20) });
+		session = auto.session();
+	}
+
+	@Test
+	public void testAppendAndBackspace() {
+		assertEquals(5, session.numberOfMatches());
+		session.append('m');
+		session.append('e');
+		session.append('t');
+		assertEquals("met", session.prefix());
+		assertEquals(3, session.numberOfMatches());
+		session.append('a');
+		session.append('l');
+		assertEquals(2, session.numberOfMatches());
+		assertEquals("metallica", session.allMatches(1)[0].getQuery());
+		assertTrue(session.backspace());
+		assertTrue(session.backspace());
+		assertEquals(3, session.numberOfMatches());
+		session.append('x');
+		assertEquals(0, session.numberOfMatches());
+		assertEquals(0, session.allMatches(5).length);
+		assertEquals(0, session.allMatches().length);
+	}
+
+	@Test
+	public void testBackspace_empty() {
+		assertFalse(session.backspace());
+		assertEquals("", session.prefix());
+	}
+
+	@Test
+	public void testUpdate() {
+		session.update("metal");
+		assertEquals(2, session.numberOfMatches());
+		session.update("mega");
+		assertEquals("mega", session.prefix());
+		assertEquals(1, session.numberOfMatches());
+		session.update("");
+		assertEquals(5, session.numberOfMatches());
+	}
+
+	@Test
+	public void testMatchesAutocomplete() {
+		Random random = new Random(12);
+		Autocomplete synthetic = new Autocomplete(AutocompleteBenchmark.syntheticTerms(20_000));
+		AutocompleteSession typing = synthetic.session();
+		for (int i = 0; i < 2000; i++) {
+			if (random.nextInt(3) == 0) {
+				typing.backspace();
+			} else if (typing.prefix().length() < 6) {
+				typing.append((char) ('a' + random.nextInt(4)));
+			}
+			String prefix = typing.prefix();
+			assertEquals(prefix, synthetic.numberOfMatches(prefix), typing.numberOfMatches());
+			assertArrayEquals(prefix, synthetic.allMatches(prefix, 5), typing.allMatches(5));
+		}
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testUpdate_null() {
+		session.update(null);
+	}
+}
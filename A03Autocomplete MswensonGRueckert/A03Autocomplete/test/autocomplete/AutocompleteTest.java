@@ -0,0 +1,184 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AutocompleteTest {
+	private Autocomplete auto;
+
+	@Before
+	public void setUp() throws Exception {
+		auto = new Autocomplete(new Term[] {
+				new Term("company", 133159.0),
+				new Term("complete", 78039.8),
+				new Term("companion", 60384.9),
+				new Term("completely", 52050.3),
+				new Term("comply", 44817.7),
+				new Term("banana", 1000.0)
+		});
+	}
+
+	@Test
+	public void testAllMatchesTopK() {
+		Term[] top = auto.allMatches("comp", 2);
+		assertEquals(2, top.length);
+		assertEquals("133159.0\tcompany", top[0].toString());
+		assertEquals("78039.8\tcomplete", top[1].toString());
+	}
+
+	@Test
+	public void testAllMatchesTopK_sameAsFullSort() {
+		Term[] all = auto.allMatches("comp");
+		Term[] top = auto.allMatches("comp", 10);
+		assertArrayEquals(all, top);
+	}
+
+	@Test
+	public void testAllMatchesTopK_noMatch() {
+		assertEquals(0, auto.allMatches("zebra", 3).length);
+		assertEquals(0, auto.allMatches("comp", 0).length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAllMatchesTopK_negativeK() {
+		auto.allMatches("comp", -1);
+	}
+
+	@Test
+	public void testNumberOfMatches() {
+		assertEquals(5, auto.numberOfMatches("comp"));
+		assertEquals(2, auto.numberOfMatches("COMPLETE"));
+		assertEquals(1, auto.numberOfMatches("banana"));
+		assertEquals(0, auto.numberOfMatches("zebra"));
+	}
+
+	@Test
+	public void testParallelBuild() {
+		Term[] terms = AutocompleteBenchmark.syntheticTerms(50_000);
+		Autocomplete sequential = new Autocomplete(terms);
+		Autocomplete parallel = new Autocomplete(terms, true);
+		assertTrue(parallel.buildTimes().isParallel());
+		for (String prefix : new String[] { "", "a", "mq", "zzz" }) {
+			assertEquals(prefix, sequential.numberOfMatches(prefix), parallel.numberOfMatches(prefix));
+			assertArrayEquals(prefix, sequential.allMatches(prefix, 20), parallel.allMatches(prefix, 20));
+		}
+	}
+
+	@Test
+	public void testBatchAllMatches() {
+		Autocomplete synthetic = new Autocomplete(AutocompleteBenchmark.syntheticTerms(50_000));
+		String[] prefixes = BatchBenchmark.shortPrefixes(2);
+		Collections.shuffle(Arrays.asList(prefixes), new Random(3));
+		prefixes[0] = "";
+		prefixes[1] = "QW";
+		prefixes[2] = prefixes[3];
+		prefixes[4] = "zzzzzzzz";
+		for (boolean parallel : new boolean[] { false, true }) {
+			Term[][] batch = synthetic.allMatches(prefixes, 7, parallel);
+			assertEquals(prefixes.length, batch.length);
+			for (int i = 0; i < prefixes.length; i++) {
+				assertArrayEquals(prefixes[i], synthetic.allMatches(prefixes[i], 7), batch[i]);
+			}
+		}
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testBatchAllMatches_nullPrefix() {
+		auto.allMatches(new String[] { "a", null }, 3);
+	}
+
+	// number of terms whose query starts with prefix, ignoring case
+	private static int bruteForceMatches(Term[] terms, String prefix) {
+		int count = 0;
+		for (Term term : terms) {
+			if (term.getQuery().regionMatches(true, 0, prefix, 0, prefix.length())) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testMixedCasePrefixes() {
+		Term[] terms = AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA);
+		Autocomplete mixed = new Autocomplete(terms);
+		for (String prefix : new String[] { "metallica", "METALLICA - m", "iRoN", "oPETH - b", "\u00e6", "Z" }) {
+			assertEquals(prefix, bruteForceMatches(terms, prefix), mixed.numberOfMatches(prefix));
+		}
+		String letters = "aEmOsZ -";
+		for (char c1 : letters.toCharArray()) {
+			for (char c2 : letters.toCharArray()) {
+				String prefix = "" + c1 + c2;
+				assertEquals(prefix, bruteForceMatches(terms, prefix), mixed.numberOfMatches(prefix));
+			}
+		}
+	}
+
+	@Test
+	public void testStripAccents() {
+		Term[] terms = AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA);
+		Autocomplete exact = new Autocomplete(terms);
+		Autocomplete stripped = new Autocomplete(terms, false, true);
+		assertEquals(0, exact.numberOfMatches("motorhead"));
+		assertEquals(21, exact.numberOfMatches("MOT\u00d6RHEAD"));
+		assertEquals(21, stripped.numberOfMatches("motorhead"));
+		assertEquals(21, stripped.numberOfMatches("Mot\u00f6rhead"));
+		assertEquals("Mot\u00f6rhead - Ace Of Spades (1980)", stripped.allMatches("motorhead", 1)[0].getQuery());
+		assertEquals(0, exact.numberOfMatches("alcest - ec"));
+		assertEquals("Alcest - \u00c9cailles De Lune (2010)", stripped.allMatches("alcest - ec", 1)[0].getQuery());
+	}
+
+	@Test
+	public void testMatches_pagesFollowAllMatches() {
+		Autocomplete big = new Autocomplete(AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA));
+		for (String prefix : new String[] { "", "s", "the", "zzz" }) {
+			Term[] all = big.allMatches(prefix);
+			Term[] walked = new Term[all.length];
+			int count = 0;
+			String cursor = null;
+			do {
+				Matches matches = cursor == null ? big.matches(prefix) : big.matches(prefix, cursor);
+				for (Term term : matches.next(7)) {
+					walked[count++] = term;
+				}
+				cursor = matches.hasNext() ? matches.cursor() : null;
+			} while (cursor != null);
+			assertEquals(all.length, count);
+			assertArrayEquals(all, walked);
+		}
+	}
+
+	@Test
+	public void testMatches_iterator() {
+		Matches matches = auto.matches("comp");
+		assertEquals("133159.0\tcompany", matches.next().toString());
+		assertEquals("78039.8\tcomplete", matches.next().toString());
+		String cursor = matches.cursor();
+		assertEquals(3, matches.next(10).length);
+		assertFalse(matches.hasNext());
+		// the cursor still resumes after the second term
+		assertEquals("60384.9\tcompanion", auto.matches("comp", cursor).next().toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMatches_cursorFromOtherPrefix() {
+		String cursor = auto.matches("comp").cursor();
+		auto.matches("compl", cursor);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMatches_malformedCursor() {
+		auto.matches("comp", "not a cursor");
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testMatches_nullPrefix() {
+		auto.matches(null);
+	}
+}
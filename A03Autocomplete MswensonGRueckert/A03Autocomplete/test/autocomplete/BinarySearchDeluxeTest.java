@@ -96,4 +96,119 @@ public class BinarySearchDeluxeTest{
 		assertEquals(23, firstIndex);
 	}
 
+	@Test 
+	public void testEqualRange_nullArgument() {
+		String message = "NullPoiterException expected ";
+
+		try{ BinarySearchDeluxe.equalRange(null, "banana", String.CASE_INSENSITIVE_ORDER); }
+		catch (NullPointerException e) { }
+		catch (Exception e) { message += "when array is null "; }
+		
+		try{ BinarySearchDeluxe.equalRange(keys, null, String.CASE_INSENSITIVE_ORDER); }
+		catch (NullPointerException e) { }
+		catch (Exception e) { message += "when key is null "; }		
+		
+		try{ BinarySearchDeluxe.equalRange(keys, "banana", null); }
+		catch (NullPointerException e) { }
+		catch (Exception e) {  message += "when comparator is null "; }
+		
+		assertEquals("NullPoiterException expected ", message);
+	}
+
+	@Test 
+	public void testEqualRange() {
+		assertArrayEquals(new int[] {3, 3}, BinarySearchDeluxe.equalRange(numbers1, 7, Collections.reverseOrder()));
+		assertArrayEquals(new int[] {4, 23}, BinarySearchDeluxe.equalRange(numbers2, 7, Collections.reverseOrder()));
+		assertArrayEquals(new int[] {2, 4}, BinarySearchDeluxe.equalRange(numbers3, 8, Collections.reverseOrder()));
+		assertArrayEquals(new int[] {0, 0}, BinarySearchDeluxe.equalRange(numbers3, 10, Collections.reverseOrder()));
+		assertArrayEquals(new int[] {11, 11}, BinarySearchDeluxe.equalRange(numbers3, 1, Collections.reverseOrder()));
+	}
+
+	@Test 
+	public void testEqualRange_notPresent() {
+		assertArrayEquals(new int[] {-1, -1}, BinarySearchDeluxe.equalRange(numbers1, 11, Collections.reverseOrder()));
+		assertArrayEquals(new int[] {-1, -1}, BinarySearchDeluxe.equalRange(new Integer[0], 1, Collections.reverseOrder()));
+	}
+
+	@Test 
+	public void testEqualRange_window() {
+		assertArrayEquals(new int[] {4, 23}, BinarySearchDeluxe.equalRange(numbers2, 0, numbers2.length - 1, 7, Collections.reverseOrder()));
+		assertArrayEquals(new int[] {10, 15}, BinarySearchDeluxe.equalRange(numbers2, 10, 15, 7, Collections.reverseOrder()));
+		assertArrayEquals(new int[] {-1, -1}, BinarySearchDeluxe.equalRange(numbers3, 5, 11, 8, Collections.reverseOrder()));
+		assertArrayEquals(new int[] {-1, -1}, BinarySearchDeluxe.equalRange(numbers3, 3, 2, 8, Collections.reverseOrder()));
+	}
+
+	@Test (expected = IndexOutOfBoundsException.class)
+	public void testEqualRange_windowOutOfBounds() {
+		BinarySearchDeluxe.equalRange(numbers3, 0, numbers3.length, 8, Collections.reverseOrder());
+	}
+
+	@Test 
+	public void testPrimitiveInt() {
+		int[] a = {1, 2, 2, 2, 5, 7, 7, 9};
+		assertEquals(1, BinarySearchDeluxe.firstIndexOf(a, 2));
+		assertEquals(3, BinarySearchDeluxe.lastIndexOf(a, 2));
+		assertEquals(5, BinarySearchDeluxe.firstIndexOf(a, 7));
+		assertEquals(6, BinarySearchDeluxe.lastIndexOf(a, 7));
+		assertEquals(-1, BinarySearchDeluxe.firstIndexOf(a, 3));
+		assertEquals(-1, BinarySearchDeluxe.lastIndexOf(a, 10));
+		assertEquals(-1, BinarySearchDeluxe.firstIndexOf(new int[0], 1));
+	}
+
+	@Test 
+	public void testPrimitiveLong() {
+		long[] a = {Long.MIN_VALUE, -3, 0, 0, Long.MAX_VALUE, Long.MAX_VALUE};
+		assertEquals(0, BinarySearchDeluxe.firstIndexOf(a, Long.MIN_VALUE));
+		assertEquals(2, BinarySearchDeluxe.firstIndexOf(a, 0L));
+		assertEquals(3, BinarySearchDeluxe.lastIndexOf(a, 0L));
+		assertEquals(5, BinarySearchDeluxe.lastIndexOf(a, Long.MAX_VALUE));
+		assertEquals(-1, BinarySearchDeluxe.lastIndexOf(a, 1L));
+	}
+
+	@Test 
+	public void testPrimitiveDouble() {
+		double[] a = {-1.5, -0.0, 0.0, 0.0, 2.5, Double.NaN};
+		assertEquals(1, BinarySearchDeluxe.firstIndexOf(a, -0.0));
+		assertEquals(1, BinarySearchDeluxe.lastIndexOf(a, -0.0));
+		assertEquals(2, BinarySearchDeluxe.firstIndexOf(a, 0.0));
+		assertEquals(3, BinarySearchDeluxe.lastIndexOf(a, 0.0));
+		assertEquals(5, BinarySearchDeluxe.firstIndexOf(a, Double.NaN));
+		assertEquals(-1, BinarySearchDeluxe.firstIndexOf(a, 1.0));
+	}
+
+	@Test (expected = NullPointerException.class)
+	public void testPrimitive_nullArray() {
+		BinarySearchDeluxe.firstIndexOf((int[]) null, 1);
+	}
+
+	@Test 
+	public void testIndexComparator() {
+		// numbers2 in descending order, searched in place through its indices
+		BinarySearchDeluxe.IndexComparator seven = new BinarySearchDeluxe.IndexComparator() {
+			public int compareTo(int i) {
+				return Integer.compare(numbers2[i], 7);
+			}
+		};
+		assertEquals(4, BinarySearchDeluxe.firstIndexOf(0, numbers2.length - 1, seven));
+		assertEquals(23, BinarySearchDeluxe.lastIndexOf(0, numbers2.length - 1, seven));
+		assertArrayEquals(new int[] {4, 23}, BinarySearchDeluxe.equalRange(0, numbers2.length - 1, seven));
+		assertArrayEquals(new int[] {10, 15}, BinarySearchDeluxe.equalRange(10, 15, seven));
+		assertArrayEquals(new int[] {-1, -1}, BinarySearchDeluxe.equalRange(24, numbers2.length - 1, seven));
+		assertArrayEquals(new int[] {-1, -1}, BinarySearchDeluxe.equalRange(3, 2, seven));
+	}
+
+	@Test (expected = IndexOutOfBoundsException.class)
+	public void testIndexComparator_badWindow() {
+		BinarySearchDeluxe.firstIndexOf(-1, 3, new BinarySearchDeluxe.IndexComparator() {
+			public int compareTo(int i) {
+				return 0;
+			}
+		});
+	}
+
+	@Test (expected = NullPointerException.class)
+	public void testIndexComparator_null() {
+		BinarySearchDeluxe.lastIndexOf(0, 3, null);
+	}
+
 }
@@ -0,0 +1,76 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BlockMaxIndexTest {
+
+	private static void assertSameAsRangeMaxIndex(double[] w, Random random) {
+		RangeMaxIndex expected = new RangeMaxIndex(w);
+		BlockMaxIndex index = new BlockMaxIndex(w);
+		assertEquals(w.length, index.size());
+		for (int i = 0; i < w.length; i++) {
+			assertEquals(w[i], index.weight(i), 0.0);
+		}
+		for (int q = 0; q < 2000; q++) {
+			int lo = random.nextInt(w.length);
+			int hi = lo + random.nextInt(w.length - lo);
+			assertEquals(expected.argMax(lo, hi), index.argMax(lo, hi));
+		}
+		int[] lo = { 3, 200, 700 };
+		int[] hi = { 150, 650, w.length - 1 };
+		assertArrayEquals(expected.topK(lo, hi, 60), index.topK(lo, hi, 60));
+	}
+
+	@Test
+	public void testRankedWeights() {
+		Random random = new Random(7);
+		double[] w = new double[1000];
+		for (int i = 0; i < w.length; i++) {
+			w[i] = random.nextInt(50);
+		}
+		assertSameAsRangeMaxIndex(w, random);
+	}
+
+	@Test
+	public void testPackedRanks() {
+		Random random = new Random(9);
+		double[] w = new double[200_000];
+		for (int i = 0; i < w.length; i++) {
+			w[i] = random.nextInt(80_000);
+		}
+		assertSameAsRangeMaxIndex(w, random);
+		// more than half distinct, but 17-bit ranks are still smaller
+		for (int i = 0; i < w.length; i++) {
+			w[i] = random.nextInt(150_000);
+		}
+		assertSameAsRangeMaxIndex(w, random);
+	}
+
+	@Test
+	public void testManyDistinctWeights() {
+		Random random = new Random(8);
+		double[] w = new double[70_000];
+		for (int i = 0; i < w.length; i++) {
+			w[i] = random.nextDouble();
+		}
+		assertSameAsRangeMaxIndex(w, random);
+	}
+
+	@Test
+	public void testSmall() {
+		BlockMaxIndex index = new BlockMaxIndex(new double[] { 5, 1, 9, 3, 9 });
+		assertEquals(2, index.argMax(0, 4));
+		assertEquals(4, index.argMax(3, 4));
+		assertArrayEquals(new int[] { 2, 4, 0 }, index.topK(new int[] { 0 }, new int[] { 4 }, 3));
+		assertEquals(0, new BlockMaxIndex(new double[0]).size());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testArgMax_emptyRange() {
+		new BlockMaxIndex(new double[] { 1, 2, 3 }).argMax(2, 1);
+	}
+}
@@ -0,0 +1,67 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachedAutocompleteTest {
+	private Autocomplete auto;
+	private CachedAutocomplete cache;
+
+	@Before
+	public void setUp() {
+		auto = new Autocomplete(new Term[] { new Term("metal", 10), new Term("metallica", 50),
+				new Term("megadeth", 30), new Term("opeth", 20) });
+		cache = new CachedAutocomplete(auto, 100);
+	}
+
+	@Test
+	public void testHitsAndMisses() {
+		assertArrayEquals(auto.allMatches("me", 2), cache.allMatches("me", 2));
+		assertArrayEquals(auto.allMatches("me", 2), cache.allMatches("me", 2));
+		assertArrayEquals(auto.allMatches("me", 3), cache.allMatches("me", 3));
+		assertEquals(1, cache.hits());
+		assertEquals(2, cache.misses());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testCaseFoldedKey() {
+		cache.allMatches("met", 5);
+		assertArrayEquals(auto.allMatches("MeT", 5), cache.allMatches("MeT", 5));
+		assertEquals(1, cache.hits());
+	}
+
+	@Test
+	public void testReturnsCopies() {
+		cache.allMatches("me", 2)[0] = null;
+		assertNotNull(cache.allMatches("me", 2)[0]);
+	}
+
+	@Test
+	public void testEviction() {
+		CachedAutocomplete small = new CachedAutocomplete(auto, 2);
+		small.allMatches("m", 1);
+		small.allMatches("o", 1);
+		small.allMatches("me", 1);
+		small.allMatches("met", 1);
+		assertTrue(small.size() <= 2);
+		assertEquals(4 - small.size(), small.evictions());
+	}
+
+	@Test
+	public void testReplace() {
+		assertEquals("metallica", cache.allMatches("me", 1)[0].getQuery());
+		cache.replace(new Autocomplete(new Term[] { new Term("meshuggah", 99), new Term("metal", 10) }));
+		assertEquals(0, cache.size());
+		assertEquals("meshuggah", cache.allMatches("me", 1)[0].getQuery());
+		assertEquals(2, cache.numberOfMatches("me"));
+		assertEquals(0, cache.hits());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAllMatches_negativeK() {
+		cache.allMatches("me", -1);
+	}
+}
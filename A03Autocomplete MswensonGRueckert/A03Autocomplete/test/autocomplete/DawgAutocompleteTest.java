@@ -0,0 +1,86 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DawgAutocompleteTest {
+	private final Term[] terms = AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA);
+	private final Autocomplete auto = new Autocomplete(terms);
+	private final DawgAutocomplete dawg = new DawgAutocomplete(terms);
+
+	// Autocomplete breaks weight ties in search key order, the DAWG in
+	// natural order, so compare with the ties put in natural order
+	private static String inWeightThenQueryOrder(Term[] matches) {
+		Term[] sorted = matches.clone();
+		Arrays.sort(sorted, new Comparator<Term>() {
+			public int compare(Term t1, Term t2) {
+				int cmp = Term.byReverseWeightOrder().compare(t1, t2);
+				return cmp != 0 ? cmp : t1.compareTo(t2);
+			}
+		});
+		return Arrays.toString(sorted);
+	}
+
+	@Test
+	public void testSameAsAutocomplete() {
+		for (String prefix : new String[] { "", "M", "metallica", "Opeth - B", "Zz", "iron maiden - " }) {
+			assertEquals(prefix, auto.numberOfMatches(prefix), dawg.numberOfMatches(prefix));
+			assertEquals(prefix, inWeightThenQueryOrder(auto.allMatches(prefix)),
+					inWeightThenQueryOrder(dawg.allMatches(prefix)));
+			assertEquals(prefix, inWeightThenQueryOrder(auto.allMatches(prefix, 7)),
+					inWeightThenQueryOrder(dawg.allMatches(prefix, 7)));
+		}
+	}
+
+	@Test
+	public void testSameAsAutocomplete_random() {
+		// enough states for long jumps, wide states and characters past ASCII
+		Random random = new Random(5);
+		String letters = "abcAB -\u00e9\u4e2d";
+		Term[] many = new Term[20_000];
+		for (int i = 0; i < many.length; i++) {
+			char[] query = new char[1 + random.nextInt(12)];
+			for (int j = 0; j < query.length; j++) {
+				query[j] = letters.charAt(random.nextInt(letters.length()));
+			}
+			many[i] = new Term(new String(query), i);
+		}
+		Autocomplete expected = new Autocomplete(many);
+		DawgAutocomplete actual = new DawgAutocomplete(many);
+		for (String prefix : new String[] { "", "a", "B", "ab -", "\u00e9", "\u4e2d A", "abcab", "zz" }) {
+			assertEquals(prefix, expected.numberOfMatches(prefix), actual.numberOfMatches(prefix));
+			assertEquals(prefix, inWeightThenQueryOrder(expected.allMatches(prefix, 7)),
+					inWeightThenQueryOrder(actual.allMatches(prefix, 7)));
+		}
+		assertEquals(inWeightThenQueryOrder(expected.allMatches("ba")),
+				inWeightThenQueryOrder(actual.allMatches("ba")));
+	}
+
+	@Test
+	public void testSharesSuffixes() {
+		DawgAutocomplete small = new DawgAutocomplete(new Term[] {
+				new Term("tap", 1), new Term("taps", 2), new Term("top", 3), new Term("tops", 4)
+		});
+		// "t" -> {a, o} -> "p" (final) -> s -> (final)
+		assertEquals(3, small.states());
+		assertEquals(3, small.transitions());
+		assertEquals("[4.0\ttops, 3.0\ttop]", Arrays.toString(small.allMatches("TO")));
+		assertEquals("[2.0\ttaps, 1.0\ttap]", Arrays.toString(small.allMatches("tap")));
+	}
+
+	@Test
+	public void testDuplicatesAndCase() {
+		DawgAutocomplete small = new DawgAutocomplete(new Term[] {
+				new Term("Metal", 5), new Term("metal", 7), new Term("metal", 2), new Term("Meta", 1)
+		});
+		assertEquals(4, small.numberOfMatches("meta"));
+		assertEquals(3, small.numberOfMatches("METAL"));
+		assertEquals("[7.0\tmetal, 5.0\tMetal]", Arrays.toString(small.allMatches("metal", 2)));
+		assertEquals(0, small.numberOfMatches("metals"));
+	}
+}
@@ -0,0 +1,78 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class EytzingerIndexTest {
+	private final int[] numbers = { 1, 3, 3, 3, 5, 8, 8, 13 };
+	private final EytzingerIndex index = new EytzingerIndex(numbers);
+
+	@Test
+	public void testFirstAndLastIndexOf() {
+		assertEquals(0, index.firstIndexOf(1));
+		assertEquals(0, index.lastIndexOf(1));
+		assertEquals(1, index.firstIndexOf(3));
+		assertEquals(3, index.lastIndexOf(3));
+		assertEquals(5, index.firstIndexOf(8));
+		assertEquals(6, index.lastIndexOf(8));
+		assertEquals(7, index.firstIndexOf(13));
+		assertEquals(7, index.lastIndexOf(13));
+	}
+
+	@Test
+	public void testMissingKeys() {
+		for (int key : new int[] { Integer.MIN_VALUE, 0, 2, 4, 9, 14, Integer.MAX_VALUE }) {
+			assertEquals(-1, index.firstIndexOf(key));
+			assertEquals(-1, index.lastIndexOf(key));
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		EytzingerIndex empty = new EytzingerIndex(new int[0]);
+		assertEquals(0, empty.size());
+		assertEquals(-1, empty.firstIndexOf(0));
+		assertEquals(-1, empty.lastIndexOf(0));
+	}
+
+	@Test
+	public void testMatchesBinarySearchDeluxe() {
+		Random random = new Random(24);
+		for (int n = 1; n <= 300; n++) {
+			int[] sorted = new int[n];
+			for (int i = 0; i < n; i++) {
+				sorted[i] = random.nextInt(n / 2 + 1);
+			}
+			Arrays.sort(sorted);
+			EytzingerIndex eytzinger = new EytzingerIndex(sorted);
+			assertEquals(n, eytzinger.size());
+			for (int key = -1; key <= n / 2 + 1; key++) {
+				assertEquals(BinarySearchDeluxe.firstIndexOf(sorted, key), eytzinger.firstIndexOf(key));
+				assertEquals(BinarySearchDeluxe.lastIndexOf(sorted, key), eytzinger.lastIndexOf(key));
+			}
+		}
+	}
+
+	@Test
+	public void testAllEqual() {
+		int[] same = new int[100];
+		Arrays.fill(same, 7);
+		EytzingerIndex eytzinger = new EytzingerIndex(same);
+		assertEquals(0, eytzinger.firstIndexOf(7));
+		assertEquals(99, eytzinger.lastIndexOf(7));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsorted() {
+		new EytzingerIndex(new int[] { 1, 3, 2 });
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNull() {
+		new EytzingerIndex(null);
+	}
+}
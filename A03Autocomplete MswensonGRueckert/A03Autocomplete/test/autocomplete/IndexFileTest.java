@@ -0,0 +1,76 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class IndexFileTest {
+	private final Term[] terms = AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA);
+
+	private static File tempIndex() throws IOException {
+		File file = File.createTempFile("autocomplete", IndexFile.EXTENSION);
+		file.deleteOnExit();
+		return file;
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		File file = tempIndex();
+		IndexFile.write(terms, file.getPath());
+		MappedAutocomplete mapped = new MappedAutocomplete(file.getPath());
+		PackedAutocomplete packed = new PackedAutocomplete(terms);
+
+		assertEquals(terms.length, mapped.size());
+		for (String prefix : new String[] { "", "M", "metallica", "Opeth - B", "Zz" }) {
+			assertEquals(prefix, packed.numberOfMatches(prefix), mapped.numberOfMatches(prefix));
+			assertEquals(prefix, Arrays.toString(packed.allMatches(prefix)), Arrays.toString(mapped.allMatches(prefix)));
+			assertEquals(prefix, Arrays.toString(packed.allMatches(prefix, 5)),
+					Arrays.toString(mapped.allMatches(prefix, 5)));
+		}
+	}
+
+	@Test
+	public void testEmptyIndex() throws IOException {
+		File file = tempIndex();
+		IndexFile.write(new Term[0], file.getPath());
+		MappedAutocomplete mapped = new MappedAutocomplete(file.getPath());
+		assertEquals(0, mapped.size());
+		assertEquals(0, mapped.allMatches("a", 3).length);
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotAnIndexFile() throws IOException {
+		File file = tempIndex();
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write("3000\n   2686\tMetallica".getBytes("UTF-8"));
+		}
+		new MappedAutocomplete(file.getPath());
+	}
+
+	// an index of the test terms with one header int overwritten
+	private File corruptHeader(int offset, int value) throws IOException {
+		File file = tempIndex();
+		IndexFile.write(terms, file.getPath());
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(offset);
+			raf.writeInt(Integer.reverseBytes(value)); // the file is little endian
+		}
+		return file;
+	}
+
+	@Test(expected = IOException.class)
+	public void testNegativeTermCount() throws IOException {
+		new MappedAutocomplete(corruptHeader(8, -5).getPath());
+	}
+
+	@Test(expected = IOException.class)
+	public void testNegativeCharCount() throws IOException {
+		new MappedAutocomplete(corruptHeader(12, Integer.MIN_VALUE).getPath());
+	}
+}
@@ -0,0 +1,102 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class InfixAutocompleteTest {
+	private final Term[] terms = AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA);
+	private final Autocomplete auto = new Autocomplete(terms);
+	private final InfixAutocomplete infix = new InfixAutocomplete(terms);
+
+	// whether a word of query starts with prefix, ignoring case
+	private static boolean matchesWord(String query, String prefix) {
+		for (int i = 0; i < query.length() || i == 0; i++) {
+			boolean wordStart = i == 0
+					|| Character.isLetterOrDigit(query.charAt(i)) && !Character.isLetterOrDigit(query.charAt(i - 1));
+			if (wordStart && query.regionMatches(true, i, prefix, 0, prefix.length())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void testWordInMiddle() {
+		Term[] top = infix.allMatches("puppets", 3);
+		assertEquals(1, top.length);
+		assertEquals("Metallica - Master Of Puppets (1986)", top[0].getQuery());
+		assertEquals(1, infix.allMatches("MASTER OF P", 5).length);
+		assertEquals(0, auto.numberOfMatches("puppets"));
+	}
+
+	@Test
+	public void testSameAsBruteForce() {
+		for (String prefix : new String[] { "", "m", "metallica", "of the", "1986", "lune", "zz", "- " }) {
+			int expected = 0;
+			for (Term term : terms) {
+				if (matchesWord(term.getQuery(), prefix)) {
+					expected++;
+				}
+			}
+			assertEquals(prefix, expected, infix.numberOfMatches(prefix));
+			assertEquals(prefix, expected, infix.allMatches(prefix).length);
+		}
+	}
+
+	@Test
+	public void testEachTermOnce() {
+		// "Metallica - Metallica (1991)" starts two suffixes with "metallica"
+		Term[] all = infix.allMatches("metallica");
+		assertEquals(all.length, infix.numberOfMatches("metallica"));
+		assertEquals(all.length, Arrays.asList(all).stream().distinct().count());
+		Term[] top = infix.allMatches("metallica", all.length + 5);
+		assertEquals(all.length, top.length);
+	}
+
+	@Test
+	public void testTopKSameAsFullSort() {
+		for (String prefix : new String[] { "", "the", "of", "m", "iron" }) {
+			Term[] all = infix.allMatches(prefix);
+			Term[] top = infix.allMatches(prefix, 10);
+			assertEquals(prefix, Math.min(10, all.length), top.length);
+			for (int i = 0; i < top.length; i++) {
+				assertEquals(prefix, all[i].getWeight(), top[i].getWeight(), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testLargeK() {
+		Term[] all = infix.allMatches("puppets");
+		assertArrayEquals(all, infix.allMatches("puppets", Integer.MAX_VALUE));
+		assertEquals(infix.numberOfMatches("p"), infix.allMatches("p", Integer.MAX_VALUE).length);
+	}
+
+	@Test
+	public void testContainsPrefixMatches() {
+		for (String prefix : new String[] { "Opeth", "iron maiden - ", "d" }) {
+			assertTrue(prefix, infix.numberOfMatches(prefix) >= auto.numberOfMatches(prefix));
+			assertTrue(prefix, Arrays.asList(infix.allMatches(prefix)).containsAll(Arrays.asList(auto.allMatches(prefix))));
+		}
+	}
+
+	@Test
+	public void testEmptyIndex() {
+		InfixAutocomplete empty = new InfixAutocomplete(new Term[0]);
+		assertEquals(0, empty.numberOfMatches(""));
+		assertEquals(0, empty.allMatches("a", 3).length);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullPrefix() {
+		infix.allMatches(null, 3);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeK() {
+		infix.allMatches("a", -1);
+	}
+}
@@ -0,0 +1,66 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LogHistogramTest {
+
+	@Test
+	public void testBuckets() {
+		LogHistogram histogram = new LogHistogram();
+		for (long value : new long[] { 0, 1, 2, 3, 4, 1000, -5 }) {
+			histogram.record(value);
+		}
+		long[] buckets = histogram.buckets();
+		assertEquals(64, buckets.length);
+		assertEquals(2, buckets[0]);
+		assertEquals(1, buckets[1]);
+		assertEquals(2, buckets[2]);
+		assertEquals(1, buckets[3]);
+		assertEquals(1, buckets[10]);
+		assertEquals(7, histogram.count());
+	}
+
+	@Test
+	public void testSnapshot() {
+		LogHistogram histogram = new LogHistogram();
+		assertEquals(0, histogram.snapshot().getCount());
+		assertEquals(0, histogram.snapshot().getP99());
+		for (int i = 0; i < 99; i++) {
+			histogram.record(10);
+		}
+		histogram.record(5000);
+		HistogramSnapshot snapshot = histogram.snapshot();
+		assertEquals(100, snapshot.getCount());
+		assertEquals((99 * 10 + 5000) / 100.0, snapshot.getMean(), 1e-9);
+		// 10 is in [8, 16), reported as the top of its bucket
+		assertEquals(15, snapshot.getP50());
+		assertEquals(15, snapshot.getP99());
+		assertEquals(5000, snapshot.getMax());
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.snapshot().getMax());
+	}
+
+	@Test
+	public void testConcurrentRecording() throws InterruptedException {
+		final LogHistogram histogram = new LogHistogram();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int offset = t;
+			threads[t] = new Thread(new Runnable() {
+				public void run() {
+					for (int i = 0; i < 10_000; i++) {
+						histogram.record(offset * 10_000 + i);
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(40_000, histogram.count());
+		assertEquals(39_999, histogram.snapshot().getMax());
+	}
+}
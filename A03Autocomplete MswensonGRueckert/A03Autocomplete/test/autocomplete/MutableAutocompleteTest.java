@@ -0,0 +1,177 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MutableAutocompleteTest {
+	private MutableAutocomplete auto;
+
+	@Before
+	public void setUp() {
+		auto = new MutableAutocomplete(new Term[] { new Term("metal", 10), new Term("metallica", 50),
+				new Term("megadeth", 30), new Term("opeth", 20) }, 100);
+	}
+
+	@Test
+	public void testPut() {
+		auto.put("meshuggah", 40);
+		assertEquals(4, auto.numberOfMatches("me"));
+		assertEquals("meshuggah", auto.allMatches("me", 2)[1].getQuery());
+		auto.put("metal", 60);
+		assertEquals(4, auto.numberOfMatches("me"));
+		assertEquals("metal", auto.allMatches("me", 1)[0].getQuery());
+		assertEquals(4, auto.allMatches("me").length);
+	}
+
+	@Test
+	public void testRemove() {
+		assertTrue(auto.remove("metallica"));
+		assertFalse(auto.remove("metallica"));
+		assertFalse(auto.remove("slayer"));
+		assertEquals(2, auto.numberOfMatches("me"));
+		assertEquals("megadeth", auto.allMatches("me", 5)[0].getQuery());
+		auto.put("slayer", 1);
+		assertTrue(auto.remove("slayer"));
+		assertEquals(0, auto.numberOfMatches("s"));
+	}
+
+	@Test
+	public void testAdjustWeight() {
+		assertEquals(25.0, auto.adjustWeight("metal", 15), 0);
+		assertEquals(15.0, auto.adjustWeight("metal", -10), 0);
+		assertEquals("metal", auto.allMatches("met", 2)[1].getQuery());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testAdjustWeight_missing() {
+		auto.adjustWeight("slayer", 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAdjustWeight_negative() {
+		auto.adjustWeight("metal", -11);
+	}
+
+	@Test
+	public void testMerge() {
+		auto.put("meshuggah", 40);
+		auto.remove("opeth");
+		assertEquals(2, auto.pendingWrites());
+		auto.merge();
+		assertEquals(0, auto.pendingWrites());
+		assertEquals(4, auto.numberOfMatches(""));
+		assertEquals(0, auto.numberOfMatches("o"));
+		assertEquals("meshuggah", auto.allMatches("mes", 1)[0].getQuery());
+	}
+
+	@Test
+	public void testMatchesRebuild() {
+		Random random = new Random(7);
+		Map<String, Double> model = new TreeMap<String, Double>();
+		for (Term term : AutocompleteBenchmark.syntheticTerms(2000)) {
+			model.put(term.getQuery(), term.getWeight());
+		}
+		List<String> queries = new ArrayList<String>(model.keySet());
+		MutableAutocomplete mutable = new MutableAutocomplete(toTerms(model), 64);
+
+		String[] prefixes = { "", "a", "b", "m", "q", "ab", "zz" };
+		for (int op = 0; op < 1000; op++) {
+			String query = queries.get(random.nextInt(queries.size()));
+			switch (random.nextInt(3)) {
+			case 0:
+				double weight = random.nextInt(1000);
+				mutable.put(query, weight);
+				model.put(query, weight);
+				break;
+			case 1:
+				assertEquals(model.remove(query) != null, mutable.remove(query));
+				break;
+			default:
+				if (model.containsKey(query)) {
+					model.put(query, mutable.adjustWeight(query, random.nextInt(100)));
+				}
+			}
+			if (op % 50 == 0) {
+				Autocomplete rebuilt = new Autocomplete(toTerms(model));
+				for (String prefix : prefixes) {
+					assertEquals(prefix, rebuilt.numberOfMatches(prefix), mutable.numberOfMatches(prefix));
+					assertArrayEquals(prefix, weights(rebuilt.allMatches(prefix, 10)),
+							weights(mutable.allMatches(prefix, 10)), 0);
+				}
+			}
+		}
+	}
+
+	private static Term[] toTerms(Map<String, Double> model) {
+		List<Term> terms = new ArrayList<Term>();
+		for (Map.Entry<String, Double> entry : model.entrySet()) {
+			terms.add(new Term(entry.getKey(), entry.getValue()));
+		}
+		return terms.toArray(new Term[terms.size()]);
+	}
+
+	private static double[] weights(Term[] terms) {
+		double[] weights = new double[terms.length];
+		for (int i = 0; i < terms.length; i++) {
+			weights[i] = terms[i].getWeight();
+		}
+		return weights;
+	}
+
+	@Test
+	public void testConcurrentWritesAndMerges() throws InterruptedException {
+		// a small threshold so writers keep landing in the delta while merges run
+		final MutableAutocomplete concurrent = new MutableAutocomplete(new Term[0], 16);
+		final AtomicReference<String> error = new AtomicReference<String>();
+		final AtomicBoolean running = new AtomicBoolean(true);
+		Thread reader = ThreadSupport.start(new Runnable() {
+			public void run() {
+				while (running.get()) {
+					Term[] top = concurrent.allMatches("w", 20);
+					for (int i = 1; i < top.length; i++) {
+						if (top[i - 1].getWeight() < top[i].getWeight()) {
+							error.set("matches out of order");
+						}
+					}
+				}
+			}
+		});
+		Thread[] writers = new Thread[4];
+		for (int t = 0; t < writers.length; t++) {
+			final int writer = t;
+			writers[t] = ThreadSupport.start(new Runnable() {
+				public void run() {
+					for (int i = 0; i < 500; i++) {
+						String query = "w" + writer + "-" + i;
+						concurrent.put(query, i);
+						if (i % 5 == 0) {
+							concurrent.remove(query);
+						}
+					}
+				}
+			});
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		running.set(false);
+		reader.join();
+		assertNull(error.get());
+		assertEquals(4 * 400, concurrent.numberOfMatches("w"));
+		concurrent.merge();
+		assertEquals(0, concurrent.pendingWrites());
+		assertEquals(4 * 400, concurrent.allMatches("w").length);
+		assertEquals(4 * 400, concurrent.numberOfMatches("W"));
+	}
+}
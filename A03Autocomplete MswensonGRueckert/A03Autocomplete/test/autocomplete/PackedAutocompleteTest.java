@@ -0,0 +1,58 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class PackedAutocompleteTest {
+	private final Term[] terms = AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA);
+	private final Autocomplete auto = new Autocomplete(terms);
+	private final PackedAutocomplete packed = new PackedAutocomplete(terms);
+
+	@Test
+	public void testSize() {
+		assertEquals(terms.length, packed.size());
+	}
+
+	@Test
+	public void testSameAsAutocomplete() {
+		for (String prefix : new String[] { "", "M", "metallica", "Opeth - B", "Zz", "Iron Maiden - " }) {
+			assertEquals(prefix, auto.numberOfMatches(prefix), packed.numberOfMatches(prefix));
+			assertEquals(prefix, Arrays.toString(auto.allMatches(prefix)), Arrays.toString(packed.allMatches(prefix)));
+			assertEquals(prefix, Arrays.toString(auto.allMatches(prefix, 7)),
+					Arrays.toString(packed.allMatches(prefix, 7)));
+		}
+	}
+
+	@Test
+	public void testLoad() throws Exception {
+		PackedAutocomplete loaded = PackedAutocomplete.load(AutocompleteBenchmark.TEST_DATA);
+		assertEquals(terms.length, loaded.size());
+		for (int i = 0; i < loaded.size(); i++) {
+			assertEquals(packed.termAt(i).toString(), loaded.termAt(i).toString());
+		}
+	}
+
+	@Test
+	public void testMixedCasePrefixes() {
+		for (String prefix : new String[] { "metallica", "METALLICA - m", "iRoN", "oPETH - b", "\u00e6", "aL", "Mo" }) {
+			assertEquals(prefix, auto.numberOfMatches(prefix), packed.numberOfMatches(prefix));
+			assertEquals(prefix, Arrays.toString(auto.allMatches(prefix, 7)),
+					Arrays.toString(packed.allMatches(prefix, 7)));
+		}
+	}
+
+	@Test
+	public void testNoMatch() {
+		assertEquals(0, packed.allMatches("qqqq").length);
+		assertEquals(0, packed.allMatches("qqqq", 5).length);
+		assertEquals(0, packed.numberOfMatches("qqqq"));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testAllMatches_nullPrefix() {
+		packed.allMatches(null);
+	}
+}
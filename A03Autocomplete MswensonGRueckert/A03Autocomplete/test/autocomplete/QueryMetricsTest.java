@@ -0,0 +1,86 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Test;
+
+public class QueryMetricsTest {
+	private final Term[] terms = AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA);
+
+	@Test
+	public void testOffByDefault() {
+		Autocomplete auto = new Autocomplete(terms);
+		assertNull(auto.metrics());
+		auto.allMatches("M", 5);
+	}
+
+	@Test
+	public void testRecordsEveryKindOfQuery() {
+		Autocomplete plain = new Autocomplete(terms);
+		Autocomplete recorded = new Autocomplete(terms);
+		QueryMetrics metrics = new QueryMetrics();
+		recorded.setMetrics(metrics);
+		assertSame(metrics, recorded.metrics());
+
+		assertArrayEquals(plain.allMatches("Metallica"), recorded.allMatches("Metallica"));
+		assertArrayEquals(plain.allMatches("M", 5), recorded.allMatches("M", 5));
+		assertEquals(plain.numberOfMatches("Zz"), recorded.numberOfMatches("Zz"));
+		assertEquals(0, recorded.allMatches("Zz").length);
+
+		assertEquals(2, metrics.getAllMatchesQueries());
+		assertEquals(1, metrics.getTopKQueries());
+		assertEquals(1, metrics.getNumberOfMatchesQueries());
+		assertEquals(4, metrics.getSearchNanos().getCount());
+		assertEquals(3, metrics.getCopyNanos().getCount());
+		assertEquals(2, metrics.getSortNanos().getCount());
+		assertEquals(4, metrics.getTotalNanos().getCount());
+		assertEquals(plain.numberOfMatches("M"), metrics.getRangeSizes().getMax());
+
+		recorded.setMetrics(null);
+		recorded.allMatches("M", 5);
+		assertEquals(1, metrics.getTopKQueries());
+	}
+
+	@Test
+	public void testJmx() throws Exception {
+		Autocomplete auto = new Autocomplete(terms);
+		QueryMetrics metrics = new QueryMetrics();
+		auto.setMetrics(metrics);
+		ObjectName name = metrics.register("QueryMetricsTest");
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			auto.allMatches("Opeth", 3);
+			assertEquals(1L, server.getAttribute(name, "TopKQueries"));
+			CompositeData search = (CompositeData) server.getAttribute(name, "SearchNanos");
+			assertEquals(1L, search.get("count"));
+		} finally {
+			server.unregisterMBean(name);
+		}
+	}
+
+	@Test
+	public void testDump() throws InterruptedException {
+		QueryMetrics metrics = new QueryMetrics();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ScheduledFuture<?> dumping = metrics.dumpEvery(10, TimeUnit.MILLISECONDS, new PrintStream(bytes, true));
+		try {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (bytes.size() == 0 && System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+		} finally {
+			dumping.cancel(false);
+		}
+		assertTrue(bytes.toString().startsWith("queries: allMatches 0, top k 0, numberOfMatches 0"));
+	}
+}
@@ -0,0 +1,100 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RangeMaxIndexTest {
+	private final double[] weights = { 5, 1, 9, 3, 9, 7, 2, 8 };
+	private final RangeMaxIndex index = new RangeMaxIndex(weights);
+
+	@Test
+	public void testArgMax() {
+		assertEquals(2, index.argMax(0, 7));
+		assertEquals(0, index.argMax(0, 1));
+		assertEquals(5, index.argMax(5, 6));
+		assertEquals(6, index.argMax(6, 6));
+	}
+
+	@Test
+	public void testArgMax_tiesGoToLowerIndex() {
+		assertEquals(2, index.argMax(2, 4));
+		assertEquals(4, index.argMax(3, 7));
+	}
+
+	@Test
+	public void testTopK() {
+		assertArrayEquals(new int[] { 2, 4, 7, 5 }, index.topK(0, 7, 4));
+		assertArrayEquals(new int[] { 4, 5, 3, 6 }, index.topK(3, 6, 10));
+		assertEquals(0, index.topK(0, 7, 0).length);
+	}
+
+	@Test
+	public void testTopK_matchesSort() {
+		Random random = new Random(7);
+		double[] w = new double[1000];
+		for (int i = 0; i < w.length; i++) {
+			w[i] = random.nextInt(50);
+		}
+		RangeMaxIndex big = new RangeMaxIndex(w);
+		int[] top = big.topK(100, 899, 40);
+		double[] expected = Arrays.copyOfRange(w, 100, 900);
+		Arrays.sort(expected);
+		for (int i = 0; i < top.length; i++) {
+			assertEquals(expected[expected.length - 1 - i], w[top[i]], 0.0);
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testArgMax_emptyRange() {
+		index.argMax(3, 2);
+	}
+
+	@Test
+	public void testParallelBuild() {
+		Random random = new Random(11);
+		double[] w = new double[100_003];
+		for (int i = 0; i < w.length; i++) {
+			w[i] = random.nextInt(1000);
+		}
+		RangeMaxIndex sequential = new RangeMaxIndex(w);
+		RangeMaxIndex parallel = new RangeMaxIndex(w, true);
+		assertArrayEquals(sequential.topK(0, w.length - 1, 100), parallel.topK(0, w.length - 1, 100));
+		assertArrayEquals(sequential.topK(12_345, 67_890, 50), parallel.topK(12_345, 67_890, 50));
+	}
+
+	@Test
+	public void testWalk() {
+		RangeMaxIndex.Walk walk = index.walk(0, 7);
+		int[] order = new int[8];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = walk.nextInt();
+		}
+		assertFalse(walk.hasNext());
+		assertArrayEquals(index.topK(0, 7, 8), order);
+	}
+
+	@Test
+	public void testWalk_resumeFromRemaining() {
+		RangeMaxIndex.Walk walk = index.walk(1, 6);
+		assertEquals(2, walk.nextInt());
+		assertEquals(4, walk.nextInt());
+		int[][] remaining = walk.remaining();
+		assertArrayEquals(new int[] { 1, 1, 1 }, remaining[0]);
+		assertArrayEquals(new int[] { 3, 3, 3 }, remaining[1]);
+		assertArrayEquals(new int[] { 5, 6, 5 }, remaining[2]);
+		RangeMaxIndex.Walk resumed = index.resume(remaining);
+		for (int expected : new int[] { 5, 3, 6, 1 }) {
+			assertEquals(expected, resumed.nextInt());
+		}
+		assertFalse(resumed.hasNext());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testResume_argMaxOutsideRange() {
+		index.resume(new int[][] { { 2, 4, 5 } });
+	}
+}
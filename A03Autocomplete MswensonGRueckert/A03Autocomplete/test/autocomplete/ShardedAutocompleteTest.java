@@ -0,0 +1,78 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+public class ShardedAutocompleteTest {
+	private final Term[] terms = AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA);
+	private final Autocomplete auto = new Autocomplete(terms);
+
+	private static void assertSameWeights(String prefix, Term[] expected, Term[] actual) {
+		assertEquals(prefix, expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(prefix, expected[i].getWeight(), actual[i].getWeight(), 0.0);
+		}
+	}
+
+	@Test
+	public void testSameAsAutocomplete() {
+		for (int shardCount : new int[] { 1, 3, 8 }) {
+			ShardedAutocomplete sharded = new ShardedAutocomplete(terms, shardCount);
+			assertEquals(shardCount, sharded.shards());
+			for (String prefix : new String[] { "", "M", "metallica", "Opeth - B", "Zz", "iron maiden - " }) {
+				assertEquals(prefix, auto.numberOfMatches(prefix), sharded.numberOfMatches(prefix));
+				assertSameWeights(prefix, auto.allMatches(prefix), sharded.allMatches(prefix));
+				assertSameWeights(prefix, auto.allMatches(prefix, 7), sharded.allMatches(prefix, 7));
+			}
+		}
+	}
+
+	@Test
+	public void testOwnExecutor() {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			ShardedAutocomplete sharded = new ShardedAutocomplete(terms, 4, executor);
+			assertSameWeights("m", auto.allMatches("m", 20), sharded.allMatches("m", 20));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testMoreShardsThanTerms() {
+		ShardedAutocomplete sharded = new ShardedAutocomplete(new Term[] { new Term("metal", 2), new Term("Meta", 5) },
+				16);
+		Term[] top = sharded.allMatches("met", 5);
+		assertEquals(2, top.length);
+		assertEquals("5.0\tMeta", top[0].toString());
+		assertEquals("2.0\tmetal", top[1].toString());
+		assertEquals(0, sharded.allMatches("met", 0).length);
+	}
+
+	@Test
+	public void testMerge() {
+		Term a = new Term("a", 3), b = new Term("b", 3), c = new Term("c", 2), d = new Term("d", 1);
+		Term[] merged = ShardedAutocomplete.merge(new Term[][] { { b, d }, {}, { a, c } }, 3);
+		assertArrayEquals(new Term[] { b, a, c }, merged);
+		assertEquals(4, ShardedAutocomplete.merge(new Term[][] { { b, d }, { a, c } }, -1).length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoShards() {
+		new ShardedAutocomplete(terms, 0);
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullPrefix() {
+		new ShardedAutocomplete(terms, 2).allMatches(null, 3);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeK() {
+		new ShardedAutocomplete(terms, 2).allMatches("a", -1);
+	}
+}
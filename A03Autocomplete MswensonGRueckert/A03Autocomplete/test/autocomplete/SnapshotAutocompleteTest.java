@@ -0,0 +1,61 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class SnapshotAutocompleteTest {
+	private final Autocomplete first = new Autocomplete(new Term[] { new Term("metal", 10),
+			new Term("metallica", 50) });
+	private final Autocomplete second = new Autocomplete(new Term[] { new Term("megadeth", 30) });
+
+	@Test
+	public void testSwap() {
+		SnapshotAutocomplete auto = new SnapshotAutocomplete(first);
+		assertEquals(2, auto.numberOfMatches("me"));
+		assertSame(first, auto.swap(second));
+		assertSame(second, auto.current());
+		assertEquals(1, auto.numberOfMatches("me"));
+		assertEquals("megadeth", auto.allMatches("me", 5)[0].getQuery());
+		assertEquals(1, auto.swaps());
+	}
+
+	@Test
+	public void testRebuild() {
+		SnapshotAutocomplete auto = new SnapshotAutocomplete(first);
+		auto.rebuild(new Term[] { new Term("opeth", 20) });
+		assertEquals(0, auto.numberOfMatches("me"));
+		assertEquals(1, auto.numberOfMatches("op"));
+	}
+
+	@Test
+	public void testReadersSeeWholeSnapshots() throws InterruptedException {
+		final SnapshotAutocomplete auto = new SnapshotAutocomplete(first);
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicReference<String> error = new AtomicReference<String>();
+		Thread reader = ThreadSupport.start(new Runnable() {
+			public void run() {
+				while (running.get()) {
+					AutocompleteEngine snapshot = auto.current();
+					if (snapshot.numberOfMatches("me") != snapshot.allMatches("me").length) {
+						error.set("count and matches disagree");
+					}
+				}
+			}
+		});
+		for (int i = 0; i < 1000; i++) {
+			auto.swap(i % 2 == 0 ? second : first);
+		}
+		running.set(false);
+		reader.join();
+		assertNull(error.get());
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testSwap_null() {
+		new SnapshotAutocomplete(first).swap(null);
+	}
+}
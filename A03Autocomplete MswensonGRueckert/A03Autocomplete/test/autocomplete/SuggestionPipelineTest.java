@@ -0,0 +1,159 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class SuggestionPipelineTest {
+	// publishes on the pipeline thread itself, no event thread needed
+	private static final Executor DIRECT = new Executor() {
+		public void execute(Runnable task) {
+			task.run();
+		}
+	};
+
+	private final List<String> shown = Collections.synchronizedList(new ArrayList<String>());
+	// every test publishes exactly one result
+	private final CountDownLatch published = new CountDownLatch(1);
+	private final SuggestionPipeline.Publisher<String> publisher = new SuggestionPipeline.Publisher<String>() {
+		public void publish(String text, String result) {
+			shown.add(result);
+			published.countDown();
+		}
+	};
+
+	private static SuggestionPipeline.Query<String> upperCase(final List<String> looked) {
+		return new SuggestionPipeline.Query<String>() {
+			public String run(String text) {
+				looked.add(text);
+				return text.toUpperCase();
+			}
+		};
+	}
+
+	// lookups run in submission order, so once the result is published
+	// every lookup submitted before it has run or been dropped
+	private void awaitPublished() throws InterruptedException {
+		assertTrue(published.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testDebounceLooksUpLatestOnly() throws InterruptedException {
+		List<String> looked = Collections.synchronizedList(new ArrayList<String>());
+		SuggestionPipeline<String> pipeline = new SuggestionPipeline<String>(upperCase(looked), publisher, 100, DIRECT);
+		try {
+			pipeline.submit("m");
+			pipeline.submit("me");
+			pipeline.submit("met");
+			awaitPublished();
+			assertEquals(Collections.singletonList("met"), looked);
+			assertEquals(Collections.singletonList("MET"), shown);
+			assertEquals(1, pipeline.published());
+			assertEquals(2, pipeline.dropped());
+		} finally {
+			pipeline.close();
+		}
+	}
+
+	@Test
+	public void testStaleResultDropped() throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		SuggestionPipeline<String> pipeline = new SuggestionPipeline<String>(new SuggestionPipeline.Query<String>() {
+			public String run(String text) {
+				if (text.equals("slow")) {
+					started.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return text;
+			}
+		}, publisher, 0, DIRECT);
+		try {
+			pipeline.submit("slow");
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			// typed while the slow lookup runs: its result must not be shown
+			pipeline.submit("fast");
+			release.countDown();
+			awaitPublished();
+			assertEquals(Collections.singletonList("fast"), shown);
+			assertEquals(1, pipeline.dropped());
+		} finally {
+			pipeline.close();
+		}
+	}
+
+	@Test
+	public void testCancel() throws InterruptedException {
+		List<String> looked = Collections.synchronizedList(new ArrayList<String>());
+		SuggestionPipeline<String> pipeline = new SuggestionPipeline<String>(upperCase(looked), publisher, 100, DIRECT);
+		try {
+			pipeline.submit("abc");
+			pipeline.cancel();
+			pipeline.submit("x");
+			awaitPublished();
+			assertEquals(Collections.singletonList("x"), looked);
+			assertEquals(Collections.singletonList("X"), shown);
+			assertEquals(1, pipeline.dropped());
+		} finally {
+			pipeline.close();
+		}
+	}
+
+	@Test
+	public void testFailedLookupKeepsPipeline() throws InterruptedException {
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		final CountDownLatch failed = new CountDownLatch(1);
+		SuggestionPipeline<String> pipeline = new SuggestionPipeline<String>(new SuggestionPipeline.Query<String>() {
+			public String run(String text) {
+				if (text.isEmpty()) {
+					throw new IllegalStateException("expected by the test");
+				}
+				return text;
+			}
+		}, publisher, 0, DIRECT, new Thread.UncaughtExceptionHandler() {
+			public void uncaughtException(Thread thread, Throwable e) {
+				failures.add(e);
+				failed.countDown();
+			}
+		});
+		try {
+			pipeline.submit("");
+			assertTrue(failed.await(5, TimeUnit.SECONDS));
+			pipeline.submit("ok");
+			awaitPublished();
+			assertEquals(Collections.singletonList("ok"), shown);
+			assertEquals(1, failures.size());
+			assertEquals("expected by the test", failures.get(0).getMessage());
+		} finally {
+			pipeline.close();
+		}
+	}
+
+	@Test
+	public void testReplayTexts() {
+		assertEquals(Arrays.asList("a", "ab", "a", "", "", "c"), KeystrokeReplay.texts("ab<<<c"));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullText() {
+		SuggestionPipeline<String> pipeline = new SuggestionPipeline<String>(upperCase(new ArrayList<String>()),
+				publisher, 0, DIRECT);
+		try {
+			pipeline.submit(null);
+		} finally {
+			pipeline.close();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class TermLoaderTest {
+
+	private static Term[] parse(String text) throws IOException {
+		return TermLoader.parse(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), ForkJoinPool.commonPool());
+	}
+
+	@Test
+	public void testLoadResource() throws IOException {
+		Term[] terms = TermLoader.load(AutocompleteBenchmark.TEST_DATA);
+		assertEquals(3000, terms.length);
+		assertEquals("2686.0\tMetallica - Master Of Puppets (1986)", terms[0].toString());
+	}
+
+	@Test
+	public void testParse() throws IOException {
+		Term[] terms = parse("3\r\n   2686\tMetallica\r\n12 \tTsjuder - Kr\u00fcpt\n\n7\tOpeth - Ghost Reveries");
+		assertEquals("[2686.0\tMetallica, 12.0\tTsjuder - Kr\u00fcpt, 7.0\tOpeth - Ghost Reveries]",
+				Arrays.toString(terms));
+	}
+
+	@Test
+	public void testParse_extraLinesIgnored() throws IOException {
+		assertEquals(1, parse("1\n5\tone\n6\ttwo\n").length);
+	}
+
+	@Test
+	public void testParse_noTab() {
+		try {
+			parse("2\n5\tone\n6 two\n");
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertEquals("input, line 3: no tab character after the weight", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testParse_tooFewTerms() {
+		try {
+			parse("3\n5\tone\n6\ttwo\n");
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertEquals("input: expected 3 terms but found 2", e.getMessage());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testParse_noCount() throws IOException {
+		parse("five\n5\tone\n");
+	}
+
+	@Test
+	public void testParse_countTooLarge() {
+		// 2^64 + 3 would wrap around to 3 without the overflow check
+		for (String count : new String[] { "2147483648", "18446744073709551619", "99999999999999999999999" }) {
+			try {
+				parse(count + "\n5\tone\n6\ttwo\n7\tthree\n");
+				fail("IOException expected for " + count);
+			} catch (IOException e) {
+				assertEquals("input, line 1: expected the number of terms", e.getMessage());
+			}
+		}
+	}
+
+	@Test
+	public void testParse_weightTooLarge() throws IOException {
+		// 2 * 10^19 wraps around to a positive long without the check
+		for (String weight : new String[] { "9223372036854775808", "20000000000000000000" }) {
+			try {
+				parse("1\n" + weight + "\tfoo\n");
+				fail("IOException expected for " + weight);
+			} catch (IOException e) {
+				assertEquals("input, line 2: weight is too large", e.getMessage());
+			}
+		}
+		assertEquals(9223372036854775807.0, parse("1\n9223372036854775807\tfoo\n")[0].getWeight(), 0.0);
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoad_missingFile() throws IOException {
+		TermLoader.load("/no/such/terms.txt");
+	}
+}
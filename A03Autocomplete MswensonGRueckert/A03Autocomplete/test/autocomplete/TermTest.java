@@ -2,8 +2,10 @@ package autocomplete;
 
 import static org.junit.Assert.*;
 
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import org.junit.Before;
@@ -59,6 +61,65 @@ public class TermTest {
 			assertEquals(termsToString, terms.toString());
 	}
 
+	@Test
+	public void testByPrefixOrder_shorterQuerySortsFirst() {
+		Comparator<Term> comparator = Term.byPrefixOrder(5);
+		assertTrue(comparator.compare(new Term("met", 1), new Term("Metal", 1)) < 0);
+		assertTrue(comparator.compare(new Term("METALLICA", 1), new Term("metal", 1)) == 0);
+		assertTrue(comparator.compare(new Term("metam", 1), new Term("METAL", 1)) > 0);
+	}
+
+	@Test
+	public void testByPrefixOrder_cached() {
+		assertSame(Term.byPrefixOrder(4), Term.byPrefixOrder(4));
+	}
+
+	@Test
+	public void testByPrefixOrder_allocationFree() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Term key = new Term("Metallica - M", 0);
+		Term other = new Term("metallica - master of puppets", 0);
+		int sink = 0;
+		for (int i = 0; i < 20_000; i++) {
+			sink += Term.byPrefixOrder(13).compare(key, other);
+		}
+
+		long id = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(id);
+		for (int i = 0; i < 100_000; i++) {
+			sink += Term.byPrefixOrder(13).compare(key, other);
+		}
+		long allocated = threads.getThreadAllocatedBytes(id) - before;
+
+		assertEquals(0, sink);
+		// the probe itself may allocate a few bytes, 100k comparisons may not
+		assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+	}
+
+	@Test
+	public void testNumberOfMatches_allocation() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Autocomplete auto = new Autocomplete(AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA));
+		int sink = 0;
+		for (int i = 0; i < 20_000; i++) {
+			sink += auto.numberOfMatches("metal");
+		}
+
+		long id = Thread.currentThread().getId();
+		int queries = 100_000;
+		long before = threads.getThreadAllocatedBytes(id);
+		for (int i = 0; i < queries; i++) {
+			sink += auto.numberOfMatches("metal");
+		}
+		long allocated = threads.getThreadAllocatedBytes(id) - before;
+
+		assertTrue(sink > 0);
+		// a query is not allocation free: what remains is the int[2] range
+		// from equalRange, 24 bytes unless escape analysis removes it. A
+		// prefix that is not already lower case also allocates its folded key.
+		assertTrue("allocated " + allocated / queries + " bytes per query", allocated <= 24L * queries + 1024);
+	}
+
 	@Test
 	public void testCompareTo() {
 		String termsToString = "[60384.9\tcompanion, 133159.0\tcompany, " +
@@ -0,0 +1,159 @@
+package autocomplete;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TrieAutocompleteTest {
+	private final Term[] terms = AutocompleteBenchmark.readTerms(AutocompleteBenchmark.TEST_DATA);
+	private final Autocomplete auto = new Autocomplete(terms);
+	private final TrieAutocomplete trie = new TrieAutocomplete(terms);
+
+	private static void assertSameWeights(String prefix, Term[] expected, Term[] actual) {
+		assertEquals(prefix, expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(prefix, expected[i].getWeight(), actual[i].getWeight(), 0.0);
+		}
+	}
+
+	@Test
+	public void testSameAsAutocomplete() {
+		for (String prefix : new String[] { "", "M", "metallica", "Opeth - B", "Zz", "iron maiden - " }) {
+			assertEquals(prefix, auto.numberOfMatches(prefix), trie.numberOfMatches(prefix));
+			assertSameWeights(prefix, auto.allMatches(prefix), trie.allMatches(prefix));
+			assertSameWeights(prefix, auto.allMatches(prefix, 7), trie.allMatches(prefix, 7));
+		}
+	}
+
+	@Test
+	public void testTopK() {
+		TrieAutocomplete small = new TrieAutocomplete(new Term[] {
+				new Term("company", 133159.0),
+				new Term("complete", 78039.8),
+				new Term("companion", 60384.9),
+				new Term("completely", 52050.3),
+				new Term("comply", 44817.7),
+				new Term("", 1.0)
+		});
+		Term[] top = small.allMatches("COMPL", 2);
+		assertEquals("78039.8\tcomplete", top[0].toString());
+		assertEquals("52050.3\tcompletely", top[1].toString());
+		assertEquals(6, small.numberOfMatches(""));
+		assertEquals(1, small.numberOfMatches("completel"));
+		assertEquals(0, small.allMatches("compx", 3).length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAllMatches_negativeK() {
+		trie.allMatches("M", -1);
+	}
+
+	// smallest edit distance from prefix to any prefix of query, ignoring case
+	private static int prefixDistance(String prefix, String query) {
+		int[] row = new int[prefix.length() + 1];
+		for (int i = 0; i < row.length; i++) {
+			row[i] = i;
+		}
+		int best = row[prefix.length()];
+		for (int j = 0; j < query.length(); j++) {
+			int[] next = new int[row.length];
+			next[0] = j + 1;
+			for (int i = 1; i < row.length; i++) {
+				int cost = Term.foldCase(prefix.charAt(i - 1)) == Term.foldCase(query.charAt(j)) ? 0 : 1;
+				next[i] = Math.min(row[i - 1] + cost, Math.min(row[i], next[i - 1]) + 1);
+			}
+			row = next;
+			best = Math.min(best, row[prefix.length()]);
+		}
+		return best;
+	}
+
+	@Test
+	public void testFuzzyMatches() {
+		Term[] top = trie.fuzzyMatches("metalica - m", 1, 3);
+		assertEquals(2, top.length);
+		assertEquals("Metallica - Master Of Puppets (1986)", top[0].getQuery());
+		assertEquals("Metallica - Metallica (1991)", top[1].getQuery());
+		assertEquals(0, trie.fuzzyMatches("metalica - m", 0, 3).length);
+	}
+
+	@Test
+	public void testFuzzyMatches_exactFirst() {
+		TrieAutocomplete small = new TrieAutocomplete(new Term[] { new Term("metal", 1), new Term("petal", 100),
+				new Term("meta", 5), new Term("mettle", 50) });
+		Term[] top = small.fuzzyMatches("meta", 1, 10);
+		assertEquals("meta", top[0].getQuery());
+		assertEquals("metal", top[1].getQuery());
+		assertEquals("petal", top[2].getQuery());
+		assertEquals("mettle", top[3].getQuery());
+		assertEquals(4, top.length);
+	}
+
+	@Test
+	public void testFuzzyMatches_sameAsBruteForce() {
+		for (String prefix : new String[] { "", "m", "metalica", "Opth - B", "iron maden", "zz", "slayr - " }) {
+			assertSameAsBruteForce(trie, terms, prefix, 25);
+		}
+	}
+
+	@Test
+	public void testFuzzyMatches_denseTrie() {
+		// few letters, so most short strings are in the trie and branches
+		// are cut off at one edit and walked again at two; the prefixes use
+		// fewer letters still, so most siblings share one automaton state
+		Random random = new Random(17);
+		Term[] dense = new Term[5000];
+		for (int i = 0; i < dense.length; i++) {
+			char[] query = new char[1 + random.nextInt(7)];
+			for (int j = 0; j < query.length; j++) {
+				query[j] = (char) ('a' + random.nextInt(6));
+			}
+			dense[i] = new Term(new String(query), random.nextInt(1000));
+		}
+		TrieAutocomplete denseTrie = new TrieAutocomplete(dense);
+		for (String prefix : new String[] { "a", "ab", "abab", "aabba", "baaab", "bbbbbbbb", "dcba", "acdx", "xyz" }) {
+			assertSameAsBruteForce(denseTrie, dense, prefix, 10);
+			assertSameAsBruteForce(denseTrie, dense, prefix, 1000);
+		}
+	}
+
+	private static void assertSameAsBruteForce(TrieAutocomplete trie, Term[] terms, String prefix, int k) {
+		for (int d = 0; d <= TrieAutocomplete.MAX_DISTANCE; d++) {
+			Term[] top = trie.fuzzyMatches(prefix, d, k);
+			int[] found = new int[d + 1];
+			int[] expected = new int[d + 1];
+			for (Term term : terms) {
+				int distance = prefixDistance(prefix, term.getQuery());
+				if (distance <= d) {
+					expected[distance]++;
+				}
+			}
+			int previous = 0;
+			for (int i = 0; i < top.length; i++) {
+				int distance = prefixDistance(prefix, top[i].getQuery());
+				assertTrue(prefix, distance <= d && distance >= previous);
+				if (i > 0 && distance == previous) {
+					assertTrue(prefix, top[i - 1].getWeight() >= top[i].getWeight());
+				}
+				found[distance]++;
+				previous = distance;
+			}
+			int total = 0;
+			for (int e = 0; e <= d; e++) {
+				total += expected[e];
+			}
+			assertEquals(prefix + " " + d, Math.min(k, total), top.length);
+			// every tier before the last one reached is complete
+			for (int e = 0; e < previous; e++) {
+				assertEquals(prefix + " " + d, expected[e], found[e]);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFuzzyMatches_distanceTooLarge() {
+		trie.fuzzyMatches("metal", TrieAutocomplete.MAX_DISTANCE + 1, 5);
+	}
+}